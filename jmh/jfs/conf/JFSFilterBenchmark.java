@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.conf;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import jfs.sync.JFSFile;
+import jfs.sync.SyntheticTree;
+import jfs.sync.local.JFSLocalFileProducer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+
+/**
+ * Matching a typical set of exclude filters against all files and folders of a synthetic tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JFSFilterBenchmark {
+
+    private static final int FILES = 2000;
+
+    private File root;
+
+    private final List<JFSFile> files = new ArrayList<>();
+
+    private final List<JFSFilter> filters = new ArrayList<>();
+
+
+    private void collect(JFSFile dir) {
+        for (JFSFile file : dir.getList()) {
+            files.add(file);
+            if (file.isDirectory()) {
+                collect(file);
+            } // if
+        } // for
+    } // collect()
+
+
+    private void addFilter(String expression, JFSFilter.FilterType type, JFSFilter.FilterRange range) {
+        JFSFilter filter = new JFSFilter(expression);
+        filter.setType(type);
+        filter.setRange(range);
+        filters.add(filter);
+    } // addFilter()
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("jfs-filter").toFile();
+        new SyntheticTree(FILES, 16, 42).create(root);
+        collect(new JFSLocalFileProducer(root.getAbsolutePath()).getRootJfsFile());
+        addFilter(".*\\.tmp", JFSFilter.FilterType.NAME, JFSFilter.FilterRange.FILES);
+        addFilter("\\..*", JFSFilter.FilterType.NAME, JFSFilter.FilterRange.ALL);
+        addFilter(".*~", JFSFilter.FilterType.NAME, JFSFilter.FilterRange.FILES);
+        addFilter("folder-3", JFSFilter.FilterType.NAME, JFSFilter.FilterRange.DIRECTORIES);
+        addFilter("folder-1.folder-2", JFSFilter.FilterType.RELATIVE_PATH, JFSFilter.FilterRange.DIRECTORIES);
+        addFilter(".*file-1\\d\\.pdf", JFSFilter.FilterType.PATH, JFSFilter.FilterRange.FILES);
+    } // setUp()
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SyntheticTree.delete(root);
+    } // tearDown()
+
+
+    @Benchmark
+    public int match() {
+        int excluded = 0;
+        for (JFSFile file : files) {
+            for (JFSFilter filter : filters) {
+                if (filter.matches(file)) {
+                    excluded++;
+                    break;
+                } // if
+            } // for
+        } // for
+        return excluded;
+    } // match()
+
+} // JFSFilterBenchmark
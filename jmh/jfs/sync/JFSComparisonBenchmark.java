@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import jfs.conf.JFSConfig;
+import jfs.conf.JFSDirectoryPair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+
+/**
+ * Comparison of two local synthetic trees where every tenth file differs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JFSComparisonBenchmark {
+
+    @Param({"1000", "10000"})
+    public int files;
+
+    private File root;
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("jfs-comparison").toFile();
+        File src = new File(root, "src");
+        File tgt = new File(root, "tgt");
+        SyntheticTree tree = new SyntheticTree(files, 256, 42);
+        tree.create(src);
+        tree.create(tgt);
+        tree.modify(tgt, 10);
+        JFSConfig config = JFSConfig.getInstance();
+        config.clean();
+        config.addDirectoryPair(new JFSDirectoryPair(src.getAbsolutePath(), tgt.getAbsolutePath()));
+    } // setUp()
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        JFSTable.getInstance().clean();
+        JFSConfig.getInstance().clean();
+        SyntheticTree.delete(root);
+    } // tearDown()
+
+
+    @Benchmark
+    public int compare() {
+        JFSComparison.getInstance().compare();
+        return JFSTable.getInstance().getTableSize();
+    } // compare()
+
+} // JFSComparisonBenchmark
@@ -0,0 +1,266 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.util.Locale;
+import jfs.conf.JFSConfig;
+import jfs.conf.JFSDirectoryPair;
+import jfs.conf.JFSSyncMode.SyncAction;
+import jfs.sync.encfs.JFSEncfsProducerFactory;
+import jfs.sync.local.JFSLocalFileProducerFactory;
+import org.mrpdaemon.sec.encfs.EncFSConfigFactory;
+import org.mrpdaemon.sec.encfs.EncFSVolumeBuilder;
+
+
+/**
+ * End to end benchmark of complete headless comparison and synchronization cycles.
+ *
+ * For each target scheme a synthetic source tree is generated and mirrored to an empty target folder. Then a part of
+ * the source files is changed and the target is synchronized again. Each phase - comparison, computation of the
+ * synchronization lists, and synchronization - is reported with its wall time, number of elements or files per
+ * second, transferred megabytes per second, and the peak heap usage. A final comparison checks that no differences are
+ * left.
+ *
+ * The history is not stored to keep the JFS configuration directory untouched.
+ *
+ * Usage: SyncBenchmark [-files n] [-depth n] [-fanout n] [-size bytes] [-distribution uniform|exponential]
+ * [-changed percent] [-seed n] [-schemes file,encrypted,secure,encfs] [-dir folder] [-keep]
+ */
+public final class SyncBenchmark {
+
+    // Copy from source and delete from target
+    private static final byte SYNC_MODE = 13;
+
+    private static final String PASSPHRASE = "benchmark";
+
+    private static final double MB = 1024.0*1024.0;
+
+    private static final PrintStream OUT = System.out;
+
+    private int files = 10000;
+
+    private int depth = SyntheticTree.DEFAULT_DEPTH;
+
+    private int fanOut = SyntheticTree.DEFAULT_FAN_OUT;
+
+    private int meanSize = 16384;
+
+    private SyntheticTree.SizeDistribution distribution = SyntheticTree.SizeDistribution.UNIFORM;
+
+    private int changed = 10;
+
+    private long seed = 42;
+
+    private String[] schemes = {"file", "encrypted", "secure", "encfs"};
+
+    private File base;
+
+    private boolean keep = false;
+
+
+    private SyncBenchmark() {
+    } // SyncBenchmark()
+
+
+    private static void resetPeakHeap() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType()==MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            } // if
+        } // for
+    } // resetPeakHeap()
+
+
+    private static long getPeakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType()==MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            } // if
+        } // for
+        return peak;
+    } // getPeakHeap()
+
+
+    private static void report(String scheme, String run, String phase, long nanos, int count, long bytes) {
+        double seconds = nanos/1.0E9;
+        OUT.println(String.format(Locale.ROOT, "%-10s %-12s %-10s %10.1f %9d %10.1f %9.1f %9.1f %9.1f", scheme, run,
+                phase, nanos/1.0E6, count, count/seconds, bytes/MB, bytes/MB/seconds, getPeakHeap()/MB));
+    } // report()
+
+
+    private static String getUri(String scheme, File folder) {
+        if (JFSLocalFileProducerFactory.SCHEME_NAME.equals(scheme)) {
+            return folder.getAbsolutePath();
+        } // if
+        return scheme+"://"+folder.getAbsolutePath();
+    } // getUri()
+
+
+    /**
+     * Perform one comparison and synchronization cycle.
+     */
+    private static void cycle(String scheme, String run) {
+        JFSTable table = JFSTable.getInstance();
+        JFSSynchronization synchronization = JFSSynchronization.getInstance();
+
+        resetPeakHeap();
+        long start = System.nanoTime();
+        JFSComparison.getInstance().compare();
+        report(scheme, run, "compare", System.nanoTime()-start, table.getTableSize(), 0);
+
+        resetPeakHeap();
+        start = System.nanoTime();
+        synchronization.computeSynchronizationLists();
+        int statements = table.getCopyStatements().size()+table.getDeleteStatements().size();
+        report(scheme, run, "lists", System.nanoTime()-start, statements, 0);
+
+        long bytes = JFSCopyMonitor.getBytesToTransfer(table.getCopyStatements());
+        resetPeakHeap();
+        start = System.nanoTime();
+        synchronization.synchronize();
+        report(scheme, run, "sync", System.nanoTime()-start, statements, bytes);
+        int failed = table.getFailedCopyStatements().size()+table.getFailedDeleteStatements().size();
+        if (failed>0) {
+            OUT.println(scheme+" "+run+": "+failed+" failed operations");
+        } // if
+        JFSFileProducerManager.getInstance().resetProducers();
+    } // cycle()
+
+
+    /**
+     * Compare source and target again and count the elements still needing an action.
+     */
+    private static int countDifferences() {
+        JFSComparison.getInstance().compare();
+        JFSTable table = JFSTable.getInstance();
+        int differences = 0;
+        for (int i = 0; i<table.getTableSize(); i++) {
+            SyncAction action = table.getTableElement(i).getAction();
+            if ((action!=SyncAction.NOP)&&(action!=SyncAction.NOP_ROOT)) {
+                differences++;
+            } // if
+        } // for
+        JFSFileProducerManager.getInstance().resetProducers();
+        return differences;
+    } // countDifferences()
+
+
+    private void run(SyntheticTree tree, String scheme) throws Exception {
+        File src = new File(base, "source");
+        File tgt = new File(base, scheme);
+        SyntheticTree.delete(src);
+        SyntheticTree.delete(tgt);
+        tgt.mkdirs();
+
+        resetPeakHeap();
+        long start = System.nanoTime();
+        long bytes = tree.create(src);
+        report(scheme, "generate", "create", System.nanoTime()-start, files, bytes);
+
+        JFSConfig config = JFSConfig.getInstance();
+        config.clean();
+        config.setSyncMode(SYNC_MODE);
+        config.setStoreHistory(false);
+        config.setEncryptionPassPhrase(PASSPHRASE);
+        if (JFSEncfsProducerFactory.SCHEME_NAME.equals(scheme)) {
+            new EncFSVolumeBuilder().withRootPath(tgt.getAbsolutePath()).withConfig(EncFSConfigFactory.createDefault())
+                    .withPassword(PASSPHRASE).writeVolumeConfig();
+        } // if
+        config.addDirectoryPair(new JFSDirectoryPair(src.getAbsolutePath(), getUri(scheme, tgt)));
+        JFSTable.getInstance().clean();
+
+        cycle(scheme, "initial");
+        int modified = tree.modify(src, changed);
+        cycle(scheme, "incremental");
+        OUT.println(scheme+": "+modified+" files changed, "+countDifferences()+" differences left after sync");
+
+        JFSTable.getInstance().clean();
+        if (!keep) {
+            SyntheticTree.delete(src);
+            SyntheticTree.delete(tgt);
+        } // if
+    } // run()
+
+
+    private void run() throws Exception {
+        SyntheticTree tree = new SyntheticTree(files, meanSize, seed);
+        tree.setDepth(depth);
+        tree.setFanOut(fanOut);
+        tree.setSizeDistribution(distribution);
+        OUT.println(files+" files in "+tree.getFolders()+" folders, "+distribution.name().toLowerCase(Locale.ROOT)
+                +" sizes around "+meanSize+" bytes, "+changed+"% changed, in "+base);
+        OUT.println(String.format(Locale.ROOT, "%-10s %-12s %-10s %10s %9s %10s %9s %9s %9s", "scheme", "run", "phase",
+                "ms", "count", "count/s", "MB", "MB/s", "peak MB"));
+        for (String scheme : schemes) {
+            run(tree, scheme);
+        } // for
+        if (!keep) {
+            base.delete();
+        } // if
+    } // run()
+
+
+    private void parse(String[] args) throws IOException {
+        for (int i = 0; i<args.length; i++) {
+            if (args[i].equals("-files")) {
+                files = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-depth")) {
+                depth = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-fanout")) {
+                fanOut = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-size")) {
+                meanSize = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-distribution")) {
+                distribution = SyntheticTree.SizeDistribution.valueOf(args[++i].toUpperCase(Locale.ROOT));
+            } else if (args[i].equals("-changed")) {
+                changed = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-seed")) {
+                seed = Long.parseLong(args[++i]);
+            } else if (args[i].equals("-schemes")) {
+                schemes = args[++i].split(",");
+            } else if (args[i].equals("-dir")) {
+                base = new File(args[++i]);
+            } else if (args[i].equals("-keep")) {
+                keep = true;
+            } else {
+                throw new IllegalArgumentException("Unknown option "+args[i]);
+            } // if
+        } // for
+        if (base==null) {
+            base = Files.createTempDirectory("jfs-sync").toFile();
+        } // if
+    } // parse()
+
+
+    public static void main(String[] args) throws Exception {
+        SyncBenchmark benchmark = new SyncBenchmark();
+        benchmark.parse(args);
+        benchmark.run();
+        System.exit(0);
+    } // main()
+
+} // SyncBenchmark
@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+
+/**
+ * Reproducible synthetic directory trees for benchmarks.
+ *
+ * The files are spread round robin over all folders of a tree with the given depth and fan out. Names, sizes,
+ * contents, and modification dates only depend on the parameters, so two trees created with the same parameters are
+ * equal.
+ */
+public final class SyntheticTree {
+
+    /**
+     * Distribution of the file sizes around the mean size.
+     */
+    public enum SizeDistribution {
+        /**
+         * Sizes evenly distributed between zero and twice the mean size.
+         */
+        UNIFORM,
+        /**
+         * Many small and few large files - limited to MAX_SIZE_FACTOR times the mean size.
+         */
+        EXPONENTIAL
+
+    }
+
+    public static final int DEFAULT_DEPTH = 3;
+
+    public static final int DEFAULT_FAN_OUT = 5;
+
+    private static final int MAX_SIZE_FACTOR = 64;
+
+    private static final int CHUNK_SIZE = 65536;
+
+    // Fixed base modification date to keep trees comparable
+    private static final long BASE_DATE = 1700000000000L;
+
+    private static final String[] EXTENSIONS = {".txt", ".java", ".jpg", ".pdf", ".xml", ".tmp"};
+
+    private final int files;
+
+    private final int meanSize;
+
+    private final long seed;
+
+    private int depth = DEFAULT_DEPTH;
+
+    private int fanOut = DEFAULT_FAN_OUT;
+
+    private SizeDistribution sizeDistribution = SizeDistribution.UNIFORM;
+
+
+    /**
+     * Describe a tree with default depth, fan out, and uniform size distribution.
+     *
+     * @param files number of files
+     * @param meanSize mean file size in bytes
+     * @param seed seed for sizes and contents
+     */
+    public SyntheticTree(int files, int meanSize, long seed) {
+        this.files = files;
+        this.meanSize = meanSize;
+        this.seed = seed;
+    } // SyntheticTree()
+
+
+    public int getFiles() {
+        return files;
+    }
+
+
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+
+    public void setFanOut(int fanOut) {
+        this.fanOut = fanOut;
+    }
+
+
+    public void setSizeDistribution(SizeDistribution sizeDistribution) {
+        this.sizeDistribution = sizeDistribution;
+    }
+
+
+    /**
+     * Number of folders including the root folder: all levels up to the depth are completely filled.
+     */
+    public int getFolders() {
+        long folders = 1;
+        long level = 1;
+        for (int d = 0; (d<depth)&&(folders<files); d++) {
+            level *= fanOut;
+            folders += level;
+        } // for
+        return (int) Math.max(1, Math.min(folders, files));
+    } // getFolders()
+
+
+    private long nextSize(Random random) {
+        if (sizeDistribution==SizeDistribution.EXPONENTIAL) {
+            long size = (long) (-meanSize*Math.log(1.0-random.nextDouble()));
+            return Math.min(size, (long) MAX_SIZE_FACTOR*meanSize);
+        } // if
+        return random.nextInt(2*meanSize+1);
+    } // nextSize()
+
+
+    /**
+     * Path of the n-th folder of a tree: the folders are numbered breadth first.
+     */
+    private File getFolder(File root, int folder) {
+        StringBuilder path = new StringBuilder();
+        for (int index = folder; index>0; index = (index-1)/fanOut) {
+            path.insert(0, File.separator+"folder-"+((index-1)%fanOut));
+        } // for
+        return new File(root.getPath()+path);
+    } // getFolder()
+
+
+    private File getFile(File root, int index) {
+        return new File(getFolder(root, index%getFolders()), "file-"+index+EXTENSIONS[index%EXTENSIONS.length]);
+    } // getFile()
+
+
+    /**
+     * Create the tree.
+     *
+     * @param root root folder of the tree to be created
+     * @return number of bytes written
+     * @throws IOException on write errors
+     */
+    public long create(File root) throws IOException {
+        Random random = new Random(seed);
+        byte[] buffer = new byte[CHUNK_SIZE];
+        long bytes = 0;
+        for (int i = 0; i<files; i++) {
+            File file = getFile(root, i);
+            file.getParentFile().mkdirs();
+            long size = nextSize(random);
+            try (OutputStream os = new FileOutputStream(file)) {
+                for (long written = 0; written<size; written += buffer.length) {
+                    int length = (int) Math.min(buffer.length, size-written);
+                    // Half random and half repeated bytes to keep the data partly compressible
+                    random.nextBytes(buffer);
+                    for (int j = length/2; j<length; j++) {
+                        buffer[j] = (byte) ('a'+(j%26));
+                    } // for
+                    os.write(buffer, 0, length);
+                } // for
+            } // try
+            file.setLastModified(BASE_DATE+i*1000L);
+            bytes += size;
+        } // for
+        return bytes;
+    } // create()
+
+
+    /**
+     * Change the contents and modification date of the given percentage of the files of the tree.
+     *
+     * @param root root folder of the tree
+     * @param percent percentage of files to change - spread evenly over the tree
+     * @return number of changed files
+     * @throws IOException on write errors
+     */
+    public int modify(File root, int percent) throws IOException {
+        int modified = 0;
+        for (int i = 0; i<files; i++) {
+            if ((i*percent)%100<percent) {
+                File file = getFile(root, i);
+                try (OutputStream os = new FileOutputStream(file, true)) {
+                    os.write('m');
+                } // try
+                file.setLastModified(BASE_DATE+(files+i)*1000L);
+                modified++;
+            } // if
+        } // for
+        return modified;
+    } // modify()
+
+
+    /**
+     * Remove a tree.
+     *
+     * @param file root of the tree
+     */
+    public static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children!=null) {
+            for (File child : children) {
+                delete(child);
+            } // for
+        } // if
+        file.delete();
+    } // delete()
+
+} // SyntheticTree
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync.encryption;
+
+import java.util.concurrent.TimeUnit;
+import jfs.conf.JFSConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Encryption and decryption of file names as done for every path element of the encrypted storages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FileNameEncryptionBenchmark {
+
+    private static final String PATH = "/Documents/Projects/2026";
+
+    private static final String[] NAMES = {
+        "README.md", "Capture d'écran 2026-01-17 à 10.42.17.png", "build.gradle", "Übersicht Kontoauszüge.pdf",
+        "IMG_20260101_235959.jpg", "a", "A rather long file name for a document with many words in it.docx"
+    };
+
+    @Param({"false", "true"})
+    public boolean shortenPaths;
+
+    private AbstractEncryptedStorageAccess access;
+
+    private String[] encryptedNames;
+
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JFSConfig.getInstance().setEncryptionPassPhrase("benchmark");
+        access = new AbstractEncryptedStorageAccess(shortenPaths) {
+
+            @Override
+            public String getSeparator() {
+                return "/";
+            }
+
+
+            @Override
+            public String getCipherSpec() {
+                return JFSConfig.getInstance().getEncryptionCipher();
+            }
+
+        };
+        encryptedNames = new String[NAMES.length];
+        for (int i = 0; i<NAMES.length; i++) {
+            encryptedNames[i] = access.getEncryptedFileName(PATH, NAMES[i]);
+        } // for
+    } // setUp()
+
+
+    @Benchmark
+    public void encrypt(Blackhole blackhole) {
+        for (String name : NAMES) {
+            blackhole.consume(access.getEncryptedFileName(PATH, name));
+        } // for
+    } // encrypt()
+
+
+    @Benchmark
+    public void decrypt(Blackhole blackhole) {
+        for (String name : encryptedNames) {
+            blackhole.consume(access.getDecryptedFileName(PATH, name));
+        } // for
+    } // decrypt()
+
+} // FileNameEncryptionBenchmark
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync.encryption;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+/**
+ * Compression and decompression of the contents of encrypted files for each of the compression methods.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JFSEncryptedStreamBenchmark {
+
+    @Param({"deflate", "bzip2", "lzma", "lzmablocks"})
+    public String method;
+
+    @Param({"65536", "16777216"})
+    public int size;
+
+    private byte marker;
+
+    private byte[] data;
+
+    private byte[] compressed;
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        switch (method) {
+            case "deflate":
+                marker = JFSEncryptedStream.COMPRESSION_DEFLATE;
+                break;
+            case "bzip2":
+                marker = JFSEncryptedStream.COMPRESSION_BZIP2;
+                break;
+            case "lzma":
+                marker = JFSEncryptedStream.COMPRESSION_LZMA;
+                break;
+            default:
+                marker = JFSEncryptedStream.COMPRESSION_LZMA_BLOCKS;
+        } // switch
+        // Text like data from a small alphabet with repetitions
+        Random random = new Random(42);
+        data = new byte[size];
+        for (int i = 0; i<size; i++) {
+            data[i] = (byte) (((i/64)%3==0) ? 'a'+(i%26) : 'a'+random.nextInt(20));
+        } // for
+        compressed = JFSEncryptedStream.compress(marker, data);
+    } // setUp()
+
+
+    @Benchmark
+    public byte[] compress() throws IOException {
+        return JFSEncryptedStream.compress(marker, data);
+    } // compress()
+
+
+    @Benchmark
+    public long decompress() throws IOException {
+        long count = 0;
+        byte[] buffer = new byte[65536];
+        try (InputStream in = JFSEncryptedStream.decompress(marker, new ByteArrayInputStream(compressed), size)) {
+            int n;
+            while ((n = in.read(buffer))>=0) {
+                count += n;
+            } // while
+        } // try
+        return count;
+    } // decompress()
+
+} // JFSEncryptedStreamBenchmark
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync.encryption;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import jfs.conf.JFSConfig;
+import jfs.sync.SyntheticTree;
+import jfs.sync.meta.MetaFileStorageAccess;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+
+/**
+ * Writing and reading the encrypted meta data file of a folder with the given number of entries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MetaStorageAccessBenchmark {
+
+    private static final String[] ROOT_PATH_AND_NAME = {"", ""};
+
+    @Param({"10", "1000"})
+    public int entries;
+
+    private File root;
+
+    private final Map<String, ExtendedFileInfo> listing = new HashMap<>();
+
+
+    private static MetaFileStorageAccess createAccess() {
+        JFSConfig config = JFSConfig.getInstance();
+        return new MetaFileStorageAccess(config.getEncryptionCipher(), config.isShortenPaths());
+    } // createAccess()
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        JFSConfig.getInstance().setEncryptionPassPhrase("benchmark");
+        root = Files.createTempDirectory("jfs-meta").toFile();
+        for (int i = 0; i<entries; i++) {
+            ExtendedFileInfo info = new ExtendedFileInfo();
+            info.setPath("");
+            info.setName("file-"+i+".txt");
+            info.setSize(i*1000L);
+            info.setModificationDate(1700000000000L+i);
+            info.setCanRead(true);
+            info.setCanWrite(true);
+            info.setExists(true);
+            listing.put(info.getName(), info);
+        } // for
+        createAccess().flushMetaData(root.getAbsolutePath(), ROOT_PATH_AND_NAME, listing);
+    } // setUp()
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SyntheticTree.delete(root);
+    } // tearDown()
+
+
+    @Benchmark
+    public void write() {
+        createAccess().flushMetaData(root.getAbsolutePath(), ROOT_PATH_AND_NAME, listing);
+    } // write()
+
+
+    @Benchmark
+    public int read() {
+        // A fresh instance doesn't have the folder in its cache
+        return createAccess().getMetaData(root.getAbsolutePath(), "").size();
+    } // read()
+
+} // MetaStorageAccessBenchmark
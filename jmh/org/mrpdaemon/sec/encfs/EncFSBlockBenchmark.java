@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package org.mrpdaemon.sec.encfs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+
+/**
+ * Block encryption and decryption of an in memory file on an EncFS volume with and without MAC block headers, on the
+ * calling thread and in parallel. Decryption is measured for chunked and for single byte reads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EncFSBlockBenchmark {
+
+    private static final String PASSWORD = "benchmark";
+
+    private static final String PATH = "/benchmark.bin";
+
+    private static final int CHUNK_SIZE = 65536;
+
+    @Param({"false", "true"})
+    public boolean blockHeaders;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    @Param({"16777216"})
+    public int size;
+
+    private File root;
+
+    private EncFSVolume volume;
+
+    private ExecutorService executor;
+
+    private byte[] plain;
+
+    private byte[] encrypted;
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        root = Files.createTempDirectory("encfs").toFile();
+        EncFSConfig config = EncFSConfigFactory.createDefault();
+        config.setIterationForPasswordKeyDerivationCount(1000);
+        if (blockHeaders) {
+            config.setNumberOfMACBytesForEachFileBlock(8);
+            config.setNumberOfRandomBytesInEachMACHeader(8);
+        } // if
+        new EncFSVolumeBuilder().withRootPath(root.getPath()).withConfig(config).withPassword(PASSWORD).writeVolumeConfig();
+        volume = new EncFSVolumeBuilder().withRootPath(root.getPath()).withPassword(PASSWORD).buildVolume();
+        if (parallel) {
+            int parallelism = Runtime.getRuntime().availableProcessors();
+            executor = Executors.newFixedThreadPool(parallelism);
+            volume.setBlockExecutor(executor, parallelism);
+        } // if
+        plain = new byte[size];
+        new Random(42).nextBytes(plain);
+        encrypted = encrypt();
+    } // setUp()
+
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (executor!=null) {
+            executor.shutdown();
+        } // if
+        for (File file : root.listFiles()) {
+            file.delete();
+        } // for
+        root.delete();
+    } // tearDown()
+
+
+    @Benchmark
+    public byte[] encrypt() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(size+size/8);
+        try (OutputStream os = new EncFSOutputStream(volume, output, PATH)) {
+            for (int offset = 0; offset<size; offset += CHUNK_SIZE) {
+                os.write(plain, offset, Math.min(CHUNK_SIZE, size-offset));
+            } // for
+        } // try
+        return output.toByteArray();
+    } // encrypt()
+
+
+    @Benchmark
+    public long decrypt() throws Exception {
+        long count = 0;
+        byte[] buffer = new byte[CHUNK_SIZE];
+        try (InputStream is = new EncFSInputStream(volume, new ByteArrayInputStream(encrypted), PATH)) {
+            int n;
+            while ((n = is.read(buffer))>=0) {
+                count += n;
+            } // while
+        } // try
+        return count;
+    } // decrypt()
+
+
+    @Benchmark
+    public long decryptSingleBytes() throws Exception {
+        long count = 0;
+        try (InputStream is = new EncFSInputStream(volume, new ByteArrayInputStream(encrypted), PATH)) {
+            while (is.read()>=0) {
+                count++;
+            } // while
+        } // try
+        return count;
+    } // decryptSingleBytes()
+
+} // EncFSBlockBenchmark
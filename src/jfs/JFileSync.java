@@ -190,6 +190,10 @@ public final class JFileSync {
                     i++;
                     config.setServerTimeout(Integer.parseInt(args[i]));
                     loadDefaultFile = false;
+                } else if (args[i].equals("-connections")) {
+                    i++;
+                    config.setServerConnections(Integer.parseInt(args[i]));
+                    loadDefaultFile = false;
                 } else if (args[i].equals("-nogui")) {
                     nogui = true;
                 } else if (args[i].equals("-quiet")) {
@@ -59,6 +59,15 @@ public abstract class JFSConfig implements Cloneable {
     /** Determines whether the set can write property of a file is set. */
     protected boolean doSetCanWrite;
 
+    /** Determines whether the contents of files are compared by their hashes. */
+    protected boolean verifyContent;
+
+    /** Determines whether moved and renamed files are detected. */
+    protected boolean detectMoves;
+
+    /** The minimum length of files in MB, which are updated by only writing their changed blocks. */
+    protected int deltaThreshold;
+
     /** The files to include in comparison. */
     protected List<JFSFilter> includes = new ArrayList<>();
 
@@ -74,6 +83,30 @@ public abstract class JFSConfig implements Cloneable {
     /** The used default server timeout for all used sockets. */
     protected int serverTimeout;
 
+    /** The maximum number of concurrent connections to a single server. */
+    protected int serverConnections;
+
+    /** The maximum time in ms idle server connections are kept alive. */
+    protected int serverKeepAlive;
+
+    /** Determines whether server connections use TCP_NODELAY. */
+    protected boolean serverNoDelay;
+
+    /** The number of directory levels listed in one go on servers. */
+    protected int serverListingDepth;
+
+    /** Determines whether server folder listings are kept across runs. */
+    protected boolean serverListingSnapshot;
+
+    /** Determines whether an unchanged server folder ETag validates the stored listings of its whole sub tree. */
+    protected boolean serverListingSnapshotTrees;
+
+    /** The number of retries for server requests failing with transient errors. */
+    protected int serverRetries;
+
+    /** The time in ms after which slow server listing requests are hedged. */
+    protected int serverHedgeDelay;
+
     /** The used pass phrase for encryption. */
     protected String encryptionPassPhrase;
 
@@ -83,6 +116,9 @@ public abstract class JFSConfig implements Cloneable {
     /** shorten paths by use of seven bit file name character tables */
     protected boolean shortenPaths = false;
 
+    /** compress large files as parallel LZMA blocks, which older releases cannot read */
+    protected boolean compressionBlocks = false;
+
     /** Determines whether the current profile was stored to a file. */
     protected boolean currentProfileStored;
 
@@ -138,6 +174,9 @@ public abstract class JFSConfig implements Cloneable {
         keepUserActions = JFSConst.KEEP_USER_ACTIONS;
         storeHistory = JFSConst.STORE_HISTORY;
         doSetCanWrite = JFSConst.SET_CAN_WRITE;
+        verifyContent = JFSConst.VERIFY_CONTENT;
+        detectMoves = JFSConst.DETECT_MOVES;
+        deltaThreshold = JFSConst.DELTA_THRESHOLD;
 
         // Includes and excludes:
         includes.clear();
@@ -147,10 +186,19 @@ public abstract class JFSConfig implements Cloneable {
         serverUserName = JFSConst.SERVER_USER_NAME;
         serverPassPhrase = JFSConst.SERVER_PASS_PHRASE;
         serverTimeout = JFSConst.SERVER_TIMEOUT;
+        serverConnections = JFSConst.SERVER_CONNECTIONS;
+        serverKeepAlive = JFSConst.SERVER_KEEP_ALIVE;
+        serverNoDelay = JFSConst.SERVER_NO_DELAY;
+        serverListingDepth = JFSConst.SERVER_LISTING_DEPTH;
+        serverListingSnapshot = JFSConst.SERVER_LISTING_SNAPSHOT;
+        serverListingSnapshotTrees = JFSConst.SERVER_LISTING_SNAPSHOT_TREES;
+        serverRetries = JFSConst.SERVER_RETRIES;
+        serverHedgeDelay = JFSConst.SERVER_HEDGE_DELAY;
 
         encryptionPassPhrase = "";
         encryptionCipher = "AES";
         shortenPaths = false;
+        compressionBlocks = false;
 
         // When cleaned, the profile is stored by definition:
         currentProfileStored = true;
@@ -486,6 +534,82 @@ public abstract class JFSConfig implements Cloneable {
     }
 
 
+    /**
+     * Returns whether the contents of files with equal length are compared by their hashes. This detects equal files
+     * with unreliable modification dates and different files with equal modification dates. The hashes are kept in
+     * the history, so files are only read again when their length or modification date changes.
+     *
+     * @return True if and only if the contents of files are verified.
+     */
+    public boolean isVerifyContent() {
+        return verifyContent;
+    }
+
+
+    /**
+     * Sets whether the contents of files with equal length are compared by their hashes.
+     *
+     * @param verifyContent
+     *            True if and only if the contents of files should be verified.
+     */
+    public void setVerifyContent(boolean verifyContent) {
+        if (verifyContent!=this.verifyContent) {
+            this.verifyContent = verifyContent;
+            setCurrentProfileStored(false);
+        }
+    }
+
+
+    /**
+     * Returns whether files which would be copied to one side and deleted at another path on the same side are moved
+     * there instead. Files are matched by their length, modification date, and content hash.
+     *
+     * @return True if and only if moved and renamed files are detected.
+     */
+    public boolean isDetectMoves() {
+        return detectMoves;
+    }
+
+
+    /**
+     * Sets whether moved and renamed files are detected.
+     *
+     * @param detectMoves
+     *            True if and only if moved and renamed files should be detected.
+     */
+    public void setDetectMoves(boolean detectMoves) {
+        if (detectMoves!=this.detectMoves) {
+            this.detectMoves = detectMoves;
+            setCurrentProfileStored(false);
+        }
+    }
+
+
+    /**
+     * Returns the minimum length of existing files, which are updated by only writing their changed blocks instead of
+     * copying them as a whole. This is only supported for file systems allowing random access.
+     *
+     * @return Length in MB - or zero if files are always copied as a whole.
+     */
+    public final int getDeltaThreshold() {
+        return deltaThreshold;
+    }
+
+
+    /**
+     * Sets the minimum length of existing files, which are updated by only writing their changed blocks.
+     *
+     * @param deltaThreshold
+     *            Length in MB - or zero if files should always be copied as a whole.
+     */
+    public void setDeltaThreshold(int deltaThreshold) {
+        if (deltaThreshold>=0&&deltaThreshold!=this.deltaThreshold) {
+            this.deltaThreshold = deltaThreshold;
+            setCurrentProfileStored(false);
+        }
+    }
+
+
     /**
      * Returns the vector of filters used to determine whether a file should be included in the comparison.
      *
@@ -664,6 +788,200 @@ public abstract class JFSConfig implements Cloneable {
     }
 
 
+    /**
+     * Returns the maximum number of concurrent connections to a single server.
+     *
+     * @return The maximum number of connections per server.
+     */
+    public int getServerConnections() {
+        return serverConnections;
+    }
+
+
+    /**
+     * Sets the maximum number of concurrent connections to a single server if it is greater than zero.
+     *
+     * @param serverConnections
+     *            The maximum number of connections per server.
+     */
+    public void setServerConnections(int serverConnections) {
+        if (serverConnections>0&&serverConnections!=this.serverConnections) {
+            this.serverConnections = serverConnections;
+            setCurrentProfileStored(false);
+        }
+    }
+
+
+    /**
+     * Returns the maximum time idle server connections are kept alive for reuse.
+     *
+     * @return The keep alive time in ms.
+     */
+    public int getServerKeepAlive() {
+        return serverKeepAlive;
+    }
+
+
+    /**
+     * Sets the maximum time idle server connections are kept alive for reuse.
+     *
+     * @param serverKeepAlive
+     *            The keep alive time in ms.
+     */
+    public void setServerKeepAlive(int serverKeepAlive) {
+        if (serverKeepAlive!=this.serverKeepAlive) {
+            this.serverKeepAlive = serverKeepAlive;
+            setCurrentProfileStored(false);
+        }
+    }
+
+
+    /**
+     * Returns whether server connections disable Nagle's algorithm.
+     *
+     * @return True if TCP_NODELAY is set for server connections.
+     */
+    public boolean isServerNoDelay() {
+        return serverNoDelay;
+    }
+
+
+    /**
+     * Determines whether server connections disable Nagle's algorithm.
+     *
+     * @param serverNoDelay
+     *            True if TCP_NODELAY should be set for server connections.
+     */
+    public void setServerNoDelay(boolean serverNoDelay) {
+        if (serverNoDelay!=this.serverNoDelay) {
+            this.serverNoDelay = serverNoDelay;
+            setCurrentProfileStored(false);
+        }
+    }
+
+
+    /**
+     * Returns the number of directory levels fetched with bulk listings from servers. 1 means each folder is listed
+     * on its own, 0 or less requests whole sub trees at once where the server allows it.
+     *
+     * @return The listing depth.
+     */
+    public int getServerListingDepth() {
+        return serverListingDepth;
+    }
+
+
+    /**
+     * Sets the number of directory levels fetched with bulk listings from servers.
+     *
+     * @param serverListingDepth
+     *            The listing depth - 1 for single folder listings, 0 or less for whole sub trees.
+     */
+    public void setServerListingDepth(int serverListingDepth) {
+        if (serverListingDepth!=this.serverListingDepth) {
+            this.serverListingDepth = serverListingDepth;
+            setCurrentProfileStored(false);
+        }
+    }
+
+
+    /**
+     * Returns whether snapshots of server folder listings are kept across runs.
+     *
+     * @return True if listings of unchanged server folders are taken from the last run.
+     */
+    public boolean isServerListingSnapshot() {
+        return serverListingSnapshot;
+    }
+
+
+    /**
+     * Determines whether snapshots of server folder listings are kept across runs.
+     *
+     * @param serverListingSnapshot
+     *            True if listings of unchanged server folders should be taken from the last run.
+     */
+    public void setServerListingSnapshot(boolean serverListingSnapshot) {
+        if (serverListingSnapshot!=this.serverListingSnapshot) {
+            this.serverListingSnapshot = serverListingSnapshot;
+            setCurrentProfileStored(false);
+        }
+    }
+
+
+    /**
+     * Returns whether an unchanged ETag of a server folder is taken as proof for its whole sub tree being unchanged.
+     *
+     * @return True if the stored listings below a folder with unchanged ETag are used without further checks.
+     */
+    public boolean isServerListingSnapshotTrees() {
+        return serverListingSnapshotTrees;
+    }
+
+
+    /**
+     * Determines whether an unchanged ETag of a server folder is taken as proof for its whole sub tree being
+     * unchanged. Only servers changing the ETag of a folder with any change below it may be used this way.
+     *
+     * @param serverListingSnapshotTrees
+     *            True if the stored listings below a folder with unchanged ETag should be used without further checks.
+     */
+    public void setServerListingSnapshotTrees(boolean serverListingSnapshotTrees) {
+        if (serverListingSnapshotTrees!=this.serverListingSnapshotTrees) {
+            this.serverListingSnapshotTrees = serverListingSnapshotTrees;
+            setCurrentProfileStored(false);
+        }
+    }
+
+
+    /**
+     * Returns the number of retries for server requests failing with transient errors.
+     *
+     * @return The number of retries.
+     */
+    public int getServerRetries() {
+        return serverRetries;
+    }
+
+
+    /**
+     * Sets the number of retries for server requests failing with transient errors.
+     *
+     * @param serverRetries
+     *            The number of retries - 0 to disable retries.
+     */
+    public void setServerRetries(int serverRetries) {
+        if ((serverRetries>=0)&&(serverRetries!=this.serverRetries)) {
+            this.serverRetries = serverRetries;
+            setCurrentProfileStored(false);
+        }
+    }
+
+
+    /**
+     * Returns the time after which slow server listing requests are issued a second time in parallel.
+     *
+     * @return The hedge delay in ms - 0 if hedging is disabled.
+     */
+    public int getServerHedgeDelay() {
+        return serverHedgeDelay;
+    }
+
+
+    /**
+     * Sets the time after which slow server listing requests are issued a second time in parallel.
+     *
+     * @param serverHedgeDelay
+     *            The hedge delay in ms - 0 to disable hedging.
+     */
+    public void setServerHedgeDelay(int serverHedgeDelay) {
+        if (serverHedgeDelay!=this.serverHedgeDelay) {
+            this.serverHedgeDelay = serverHedgeDelay;
+            setCurrentProfileStored(false);
+        }
+    }
+
+
     public String getEncryptionPassPhrase() {
         return encryptionPassPhrase;
     }
@@ -703,6 +1021,24 @@ public abstract class JFSConfig implements Cloneable {
     }
 
 
+    /**
+     * Returns whether large files are compressed as independent LZMA blocks in parallel.
+     *
+     * @return True if the block format is used. Releases before its introduction cannot read files written this way.
+     */
+    public boolean isCompressionBlocks() {
+        return compressionBlocks;
+    }
+
+
+    public void setCompressionBlocks(boolean compressionBlocks) {
+        if ( compressionBlocks!=this.compressionBlocks) {
+            setCurrentProfileStored(false);
+        }
+        this.compressionBlocks = compressionBlocks;
+    }
+
+
     public boolean isDontAskQuestions() {
         return dontAskQuestions;
     }
@@ -874,6 +1210,21 @@ public abstract class JFSConfig implements Cloneable {
             configUpdate = true;
         }
 
+        if (verifyContent!=config.verifyContent) {
+            config.verifyContent = verifyContent;
+            comparisonUpdate = true;
+        }
+
+        if (detectMoves!=config.detectMoves) {
+            config.detectMoves = detectMoves;
+            configUpdate = true;
+        }
+
+        if (deltaThreshold!=config.deltaThreshold) {
+            config.deltaThreshold = deltaThreshold;
+            configUpdate = true;
+        }
+
         // Transfer includes and excludes:
         if ( !includes.equals(config.includes)) {
             config.includes.clear();
@@ -906,6 +1257,46 @@ public abstract class JFSConfig implements Cloneable {
             serverUpdate = true;
         }
 
+        if (serverConnections!=config.serverConnections) {
+            config.serverConnections = serverConnections;
+            serverUpdate = true;
+        }
+
+        if (serverKeepAlive!=config.serverKeepAlive) {
+            config.serverKeepAlive = serverKeepAlive;
+            serverUpdate = true;
+        }
+
+        if (serverNoDelay!=config.serverNoDelay) {
+            config.serverNoDelay = serverNoDelay;
+            serverUpdate = true;
+        }
+
+        if (serverListingDepth!=config.serverListingDepth) {
+            config.serverListingDepth = serverListingDepth;
+            serverUpdate = true;
+        }
+
+        if (serverListingSnapshot!=config.serverListingSnapshot) {
+            config.serverListingSnapshot = serverListingSnapshot;
+            serverUpdate = true;
+        }
+
+        if (serverListingSnapshotTrees!=config.serverListingSnapshotTrees) {
+            config.serverListingSnapshotTrees = serverListingSnapshotTrees;
+            serverUpdate = true;
+        }
+
+        if (serverRetries!=config.serverRetries) {
+            config.serverRetries = serverRetries;
+            serverUpdate = true;
+        }
+
+        if (serverHedgeDelay!=config.serverHedgeDelay) {
+            config.serverHedgeDelay = serverHedgeDelay;
+            serverUpdate = true;
+        }
+
         if ( !encryptionPassPhrase.equals(config.encryptionPassPhrase)) {
             config.encryptionPassPhrase = encryptionPassPhrase;
             configUpdate = true;
@@ -41,6 +41,24 @@ class JFSConfigXML extends JFSConfig {
 
     private static final String ATTR_SHORTEN = "shorten";
 
+    private static final String ATTR_LZMABLOCKS = "lzmablocks";
+
+    private static final String ATTR_CONNECTIONS = "connections";
+
+    private static final String ATTR_KEEPALIVE = "keepalive";
+
+    private static final String ATTR_NODELAY = "nodelay";
+
+    private static final String ATTR_LISTINGDEPTH = "listingdepth";
+
+    private static final String ATTR_SNAPSHOT = "snapshot";
+
+    private static final String ATTR_SNAPSHOTTREES = "snapshottrees";
+
+    private static final String ATTR_RETRIES = "retries";
+
+    private static final String ATTR_HEDGE = "hedge";
+
 
     /**
      * @see JFSConfig#loadProfile(File)
@@ -116,6 +134,24 @@ class JFSConfigXML extends JFSConfig {
                 if (attr!=null) {
                     setCanWrite(Boolean.valueOf(attr.getValue()).booleanValue());
                 }
+
+                attr = root.getAttributeNode("verifycontent");
+
+                if (attr!=null) {
+                    setVerifyContent(Boolean.valueOf(attr.getValue()).booleanValue());
+                }
+
+                attr = root.getAttributeNode("detectmoves");
+
+                if (attr!=null) {
+                    setDetectMoves(Boolean.valueOf(attr.getValue()).booleanValue());
+                }
+
+                attr = root.getAttributeNode("deltathreshold");
+
+                if (attr!=null) {
+                    setDeltaThreshold(Integer.parseInt(attr.getValue()));
+                }
             } catch (NumberFormatException e) {
                 // Thrown by parseInt() and parseByte(). Continue in this case.
                 JFSLog.getErr().getStream().println(t.get("error.numberFormat"));
@@ -136,6 +172,36 @@ class JFSConfigXML extends JFSConfig {
                         if (attr!=null) {
                             serverTimeout = Integer.parseInt(attr.getValue());
                         }
+
+                        attr = ((Element) child).getAttributeNode(ATTR_CONNECTIONS);
+
+                        if (attr!=null) {
+                            setServerConnections(Integer.parseInt(attr.getValue()));
+                        }
+
+                        attr = ((Element) child).getAttributeNode(ATTR_KEEPALIVE);
+
+                        if (attr!=null) {
+                            serverKeepAlive = Integer.parseInt(attr.getValue());
+                        }
+
+                        attr = ((Element) child).getAttributeNode(ATTR_LISTINGDEPTH);
+
+                        if (attr!=null) {
+                            serverListingDepth = Integer.parseInt(attr.getValue());
+                        }
+
+                        attr = ((Element) child).getAttributeNode(ATTR_RETRIES);
+
+                        if (attr!=null) {
+                            setServerRetries(Integer.parseInt(attr.getValue()));
+                        }
+
+                        attr = ((Element) child).getAttributeNode(ATTR_HEDGE);
+
+                        if (attr!=null) {
+                            serverHedgeDelay = Integer.parseInt(attr.getValue());
+                        }
                     } catch (Exception e) {
                         // Thrown by parseInt() and parseByte(). Continue in
                         // this case.
@@ -153,6 +219,24 @@ class JFSConfigXML extends JFSConfig {
                     if (attr!=null) {
                         serverPassPhrase = attr.getValue();
                     } // if
+
+                    attr = ((Element) child).getAttributeNode(ATTR_NODELAY);
+
+                    if (attr!=null) {
+                        serverNoDelay = Boolean.valueOf(attr.getValue()).booleanValue();
+                    } // if
+
+                    attr = ((Element) child).getAttributeNode(ATTR_SNAPSHOT);
+
+                    if (attr!=null) {
+                        serverListingSnapshot = Boolean.valueOf(attr.getValue()).booleanValue();
+                    } // if
+
+                    attr = ((Element) child).getAttributeNode(ATTR_SNAPSHOTTREES);
+
+                    if (attr!=null) {
+                        serverListingSnapshotTrees = Boolean.valueOf(attr.getValue()).booleanValue();
+                    } // if
                 }
 
                 if ("encryption".equals(nodeName)) {
@@ -168,6 +252,10 @@ class JFSConfigXML extends JFSConfig {
                     if (attr!=null) {
                         shortenPaths = Boolean.valueOf(attr.getValue()).booleanValue();
                     } // if
+                    attr = ((Element) child).getAttributeNode(ATTR_LZMABLOCKS);
+                    if (attr!=null) {
+                        compressionBlocks = Boolean.valueOf(attr.getValue()).booleanValue();
+                    } // if
                 } // if
 
                 if ("directory".equals(nodeName)) {
@@ -271,9 +359,26 @@ class JFSConfigXML extends JFSConfig {
                 root.setAttribute("setcanwrite", String.valueOf(isSetCanWrite()));
             }
 
+            if (isVerifyContent()!=JFSConst.VERIFY_CONTENT) {
+                root.setAttribute("verifycontent", String.valueOf(isVerifyContent()));
+            }
+
+            if (isDetectMoves()!=JFSConst.DETECT_MOVES) {
+                root.setAttribute("detectmoves", String.valueOf(isDetectMoves()));
+            }
+
+            if (getDeltaThreshold()!=JFSConst.DELTA_THRESHOLD) {
+                root.setAttribute("deltathreshold", String.valueOf(getDeltaThreshold()));
+            }
+
             // Add server settings if not equal to default:
             if (!serverUserName.equals(JFSConst.SERVER_USER_NAME)
-                    ||!serverPassPhrase.equals(JFSConst.SERVER_PASS_PHRASE)||serverTimeout!=JFSConst.SERVER_TIMEOUT) {
+                    ||!serverPassPhrase.equals(JFSConst.SERVER_PASS_PHRASE)||serverTimeout!=JFSConst.SERVER_TIMEOUT
+                    ||serverConnections!=JFSConst.SERVER_CONNECTIONS||serverKeepAlive!=JFSConst.SERVER_KEEP_ALIVE
+                    ||serverNoDelay!=JFSConst.SERVER_NO_DELAY||serverListingDepth!=JFSConst.SERVER_LISTING_DEPTH
+                    ||serverListingSnapshot!=JFSConst.SERVER_LISTING_SNAPSHOT
+                    ||serverListingSnapshotTrees!=JFSConst.SERVER_LISTING_SNAPSHOT_TREES||serverRetries!=JFSConst.SERVER_RETRIES
+                    ||serverHedgeDelay!=JFSConst.SERVER_HEDGE_DELAY) {
                 Element element = doc.createElement("server");
 
                 if (!serverUserName.equals(JFSConst.SERVER_USER_NAME)) {
@@ -288,6 +393,38 @@ class JFSConfigXML extends JFSConfig {
                     element.setAttribute("timeout", String.valueOf(serverTimeout));
                 }
 
+                if (serverConnections!=JFSConst.SERVER_CONNECTIONS) {
+                    element.setAttribute(ATTR_CONNECTIONS, String.valueOf(serverConnections));
+                }
+
+                if (serverKeepAlive!=JFSConst.SERVER_KEEP_ALIVE) {
+                    element.setAttribute(ATTR_KEEPALIVE, String.valueOf(serverKeepAlive));
+                }
+
+                if (serverNoDelay!=JFSConst.SERVER_NO_DELAY) {
+                    element.setAttribute(ATTR_NODELAY, String.valueOf(serverNoDelay));
+                }
+
+                if (serverListingDepth!=JFSConst.SERVER_LISTING_DEPTH) {
+                    element.setAttribute(ATTR_LISTINGDEPTH, String.valueOf(serverListingDepth));
+                }
+
+                if (serverListingSnapshot!=JFSConst.SERVER_LISTING_SNAPSHOT) {
+                    element.setAttribute(ATTR_SNAPSHOT, String.valueOf(serverListingSnapshot));
+                }
+
+                if (serverListingSnapshotTrees!=JFSConst.SERVER_LISTING_SNAPSHOT_TREES) {
+                    element.setAttribute(ATTR_SNAPSHOTTREES, String.valueOf(serverListingSnapshotTrees));
+                }
+
+                if (serverRetries!=JFSConst.SERVER_RETRIES) {
+                    element.setAttribute(ATTR_RETRIES, String.valueOf(serverRetries));
+                }
+
+                if (serverHedgeDelay!=JFSConst.SERVER_HEDGE_DELAY) {
+                    element.setAttribute(ATTR_HEDGE, String.valueOf(serverHedgeDelay));
+                }
+
                 root.appendChild(doc.createTextNode("\n  "));
                 root.appendChild(element);
             }
@@ -305,6 +442,9 @@ class JFSConfigXML extends JFSConfig {
                 if (shortenPaths) {
                     element.setAttribute(ATTR_SHORTEN, "true");
                 }
+                if (compressionBlocks) {
+                    element.setAttribute(ATTR_LZMABLOCKS, "true");
+                }
 
                 root.appendChild(doc.createTextNode("\n  "));
                 root.appendChild(element);
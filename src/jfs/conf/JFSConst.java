@@ -144,6 +144,27 @@ public final class JFSConst {
      */
     public static final boolean SET_CAN_WRITE = true;
 
+    /**
+     * Determines whether the contents of files with equal length are compared by their hashes.
+     */
+    public static final boolean VERIFY_CONTENT = false;
+
+    /**
+     * The number of threads computing content hashes of files.
+     */
+    public static final int VERIFY_THREADS = 4;
+
+    /**
+     * Determines whether moved and renamed files are moved on the other side instead of being copied and deleted.
+     */
+    public static final boolean DETECT_MOVES = false;
+
+    /**
+     * The minimum length of files in MB, which are updated by only writing their changed blocks. Zero disables the
+     * delta copy.
+     */
+    public static final int DELTA_THRESHOLD = 64;
+
     /**
      * The used default server user name.
      */
@@ -159,6 +180,48 @@ public final class JFSConst {
      */
     public static final int SERVER_TIMEOUT = 5000;
 
+    /**
+     * The default maximum number of concurrent connections to a single server.
+     */
+    public static final int SERVER_CONNECTIONS = 8;
+
+    /**
+     * The default maximum time in ms an idle server connection is kept alive for reuse.
+     */
+    public static final int SERVER_KEEP_ALIVE = 60000;
+
+    /**
+     * Determines whether server connections disable Nagle's algorithm (TCP_NODELAY).
+     */
+    public static final boolean SERVER_NO_DELAY = true;
+
+    /**
+     * The default number of directory levels fetched in one go when listing server folders. 1 lists each folder
+     * separately, 0 requests the whole sub tree at once.
+     */
+    public static final int SERVER_LISTING_DEPTH = 1;
+
+    /**
+     * Determines whether listings of server folders are kept across runs and only re-read if changed.
+     */
+    public static final boolean SERVER_LISTING_SNAPSHOT = false;
+
+    /**
+     * Determines whether an unchanged folder ETag validates the stored listings of the whole sub tree below it.
+     */
+    public static final boolean SERVER_LISTING_SNAPSHOT_TREES = false;
+
+    /**
+     * The default number of retries for server requests failing with transient errors.
+     */
+    public static final int SERVER_RETRIES = 3;
+
+    /**
+     * The default time in ms after which a slow server listing request is issued a second time in parallel. 0 disables
+     * hedging of requests.
+     */
+    public static final int SERVER_HEDGE_DELAY = 0;
+
     /**
      * The time interval between an update of the progress observers in
      * milliseconds.
@@ -181,6 +244,11 @@ public final class JFSConst {
      */
     public static final String HISTORY_FILE_PREFIX = "History-";
 
+    /**
+     * The prefix of a file holding a snapshot of server folder listings.
+     */
+    public static final String LISTING_FILE_PREFIX = "Listing-";
+
     /**
      * The associated bundle to access the properties file.
      */
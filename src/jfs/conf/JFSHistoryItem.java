@@ -43,6 +43,15 @@ public class JFSHistoryItem {
     /** Determines whether the item is a directory. */
     private boolean directory = false;
 
+    /** The hash of the content of the synchronized files or null if unknown. */
+    private String contentHash = null;
+
+    /** The last modified date of the source file the content hash was computed for. */
+    private long srcLastModified = -1;
+
+    /** The last modified date of the target file the content hash was computed for. */
+    private long tgtLastModified = -1;
+
 
     /**
      * Constructs a history item.
@@ -126,6 +135,89 @@ public class JFSHistoryItem {
     }
 
 
+    /**
+     * Returns the hash of the content of the synchronized files.
+     * 
+     * @return The hash or null if it is unknown.
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+
+    /**
+     * Sets the hash of the content of the synchronized files.
+     * 
+     * @param contentHash
+     *            The hash to set.
+     */
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+
+    /**
+     * Returns the last modified date of the source file the content hash was computed for.
+     * 
+     * @return The date as long value.
+     */
+    public long getSrcLastModified() {
+        return srcLastModified;
+    }
+
+
+    /**
+     * Sets the last modified date of the source file the content hash was computed for.
+     * 
+     * @param srcLastModified
+     *            The date as long value.
+     */
+    public void setSrcLastModified(long srcLastModified) {
+        this.srcLastModified = srcLastModified;
+    }
+
+
+    /**
+     * Returns the last modified date of the target file the content hash was computed for.
+     * 
+     * @return The date as long value.
+     */
+    public long getTgtLastModified() {
+        return tgtLastModified;
+    }
+
+
+    /**
+     * Sets the last modified date of the target file the content hash was computed for.
+     * 
+     * @param tgtLastModified
+     *            The date as long value.
+     */
+    public void setTgtLastModified(long tgtLastModified) {
+        this.tgtLastModified = tgtLastModified;
+    }
+
+
+    /**
+     * Returns the content hash for a file of the synchronized pair, if the file is unchanged since the hash was
+     * computed.
+     * 
+     * @param source
+     *            True for the source file, false for the target file.
+     * @param length
+     *            The current length of the file.
+     * @param lastModified
+     *            The current last modified date of the file.
+     * @return The hash or null if it is unknown or outdated.
+     */
+    public String getContentHash(boolean source, long length, long lastModified) {
+        if (contentHash==null||length!=getLength()) {
+            return null;
+        }
+        return lastModified==(source ? srcLastModified : tgtLastModified) ? contentHash : null;
+    }
+
+
     /**
      * Returns the relative path of the file (from the JFS root files).
      * 
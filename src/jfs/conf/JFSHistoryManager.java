@@ -233,6 +233,13 @@ public final class JFSHistoryManager {
                 }
                 item.setLastModified(element.getSrcFile().getLastModified());
                 item.setLength(element.getSrcFile().getLength());
+
+                // Keep the content hash for the current state of both files:
+                if (element.getContentHash()!=null) {
+                    item.setContentHash(element.getContentHash());
+                    item.setSrcLastModified(element.getSrcFile().getLastModified());
+                    item.setTgtLastModified(element.getTgtFile().getLastModified());
+                }
             }
 
             // If a history item was found or a new one was created, add this
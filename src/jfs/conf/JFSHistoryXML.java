@@ -96,6 +96,12 @@ class JFSHistoryXML extends JFSHistory {
                         i.setLastModified(Long.parseLong(modified.getValue()));
                         i.setLength(Long.parseLong(length.getValue()));
                         i.setDirectory(Boolean.valueOf(directory.getValue()));
+                        Attr hash = item.getAttributeNode("hash");
+                        if (hash!=null) {
+                            i.setContentHash(hash.getValue());
+                            i.setSrcLastModified(Long.parseLong(item.getAttribute("srcmodified")));
+                            i.setTgtLastModified(Long.parseLong(item.getAttribute("tgtmodified")));
+                        }
                         history.add(i);
                         if (i.isDirectory()) {
                             directories.put(i.getRelativePath(), i);
@@ -145,6 +151,11 @@ class JFSHistoryXML extends JFSHistory {
                 item.setAttribute("modified", String.valueOf(i.getLastModified()));
                 item.setAttribute("length", String.valueOf(i.getLength()));
                 item.setAttribute("directory", String.valueOf(i.isDirectory()));
+                if (i.getContentHash()!=null) {
+                    item.setAttribute("hash", i.getContentHash());
+                    item.setAttribute("srcmodified", String.valueOf(i.getSrcLastModified()));
+                    item.setAttribute("tgtmodified", String.valueOf(i.getTgtLastModified()));
+                }
                 root.appendChild(doc.createTextNode("\n  "));
                 root.appendChild(item);
             }
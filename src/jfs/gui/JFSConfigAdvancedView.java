@@ -63,6 +63,15 @@ public class JFSConfigAdvancedView extends JDialog implements ActionListener {
     /** The set can write checkbox. */
     private final JCheckBox setCanWrite;
 
+    /** The verify content checkbox. */
+    private final JCheckBox verifyContent;
+
+    /** The detect moves checkbox. */
+    private final JCheckBox detectMoves;
+
+    /** The delta threshold spinner. */
+    private final SpinnerNumberModel deltaThreshold;
+
 
     /**
      * Initializes the config view.
@@ -102,6 +111,14 @@ public class JFSConfigAdvancedView extends JDialog implements ActionListener {
 
         setCanWrite = new JCheckBox(t.get("profile.setCanWrite"), config.isStoreHistory());
 
+        verifyContent = new JCheckBox(t.get("profile.verifyContent"), config.isVerifyContent());
+
+        detectMoves = new JCheckBox(t.get("profile.detectMoves"), config.isDetectMoves());
+
+        JLabel deltaThresholdLabel = new JLabel(t.get("profile.deltaThreshold"));
+        deltaThreshold = new SpinnerNumberModel(config.getDeltaThreshold(), 0, 1048576, 16);
+        JSpinner deltaThresholdSpinner = new JSpinner(deltaThreshold);
+
         JPanel row1Panel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         row1Panel.add(granularityLabel);
         row1Panel.add(granularitySpinner);
@@ -119,13 +136,26 @@ public class JFSConfigAdvancedView extends JDialog implements ActionListener {
         JPanel row5Panel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         row5Panel.add(setCanWrite);
 
-        JPanel optionsPanel = new JPanel(new GridLayout(5, 1));
+        JPanel row6Panel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        row6Panel.add(verifyContent);
+
+        JPanel row7Panel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        row7Panel.add(detectMoves);
+
+        JPanel row8Panel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        row8Panel.add(deltaThresholdLabel);
+        row8Panel.add(deltaThresholdSpinner);
+
+        JPanel optionsPanel = new JPanel(new GridLayout(8, 1));
         optionsPanel.setBorder(new TitledBorder(t.get("profile.option.heading")));
         optionsPanel.add(row1Panel);
         optionsPanel.add(row2Panel);
         optionsPanel.add(row3Panel);
         optionsPanel.add(row4Panel);
         optionsPanel.add(row5Panel);
+        optionsPanel.add(row6Panel);
+        optionsPanel.add(row7Panel);
+        optionsPanel.add(row8Panel);
 
         // Create buttons in a separate panel:
         JPanel buttonPanel = new JPanel();
@@ -161,6 +191,9 @@ public class JFSConfigAdvancedView extends JDialog implements ActionListener {
             config.setKeepUserActions(keepUserActions.isSelected());
             config.setStoreHistory(history.isSelected());
             config.setCanWrite(setCanWrite.isSelected());
+            config.setVerifyContent(verifyContent.isSelected());
+            config.setDetectMoves(detectMoves.isSelected());
+            config.setDeltaThreshold(deltaThreshold.getNumber().intValue());
         }
     }
 }
\ No newline at end of file
@@ -94,6 +94,11 @@ public class JFSMainView extends WindowAdapter implements ActionListener, Compon
      */
     private final JTable syncTable;
 
+    /**
+     * The model of the synchronization table.
+     */
+    private final JFSTableView syncTableView;
+
     /**
      * Group with all possible views of the shown files.
      */
@@ -296,8 +301,8 @@ public class JFSMainView extends WindowAdapter implements ActionListener, Compon
         Container cp = frame.getContentPane();
 
         // Initialize JTable:
-        JFSTableView jfsSyncTable = new JFSTableView(frame);
-        syncTable = jfsSyncTable.getJTable();
+        syncTableView = new JFSTableView(frame);
+        syncTable = syncTableView.getJTable();
 
         // Create main menus:
         JMenuBar menubar = new JMenuBar();
@@ -691,12 +696,11 @@ public class JFSMainView extends WindowAdapter implements ActionListener, Compon
 
 
     /**
-     * Updates the content of the comparison table.
+     * Updates the content of the comparison table. The method may be called from any thread; the changes are shown
+     * with the next publication of the table view.
      */
     public final void updateComparisonTable() {
-        syncTable.clearSelection();
-        syncTable.revalidate();
-        syncTable.repaint();
+        syncTableView.schedulePublish();
     }
 
 
@@ -30,6 +30,7 @@ import javax.swing.JDialog;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JProgressBar;
+import javax.swing.SwingWorker;
 import javax.swing.border.TitledBorder;
 import jfs.conf.JFSText;
 import jfs.sync.JFSComparison;
@@ -413,30 +414,32 @@ public class JFSProgressView extends JDialog implements JFSProgressObserver, Act
 
 
     /**
-     * Performs the comparison as a separate thread.
+     * Performs the comparison in a background worker while the dialog is shown.
      */
     public final void compareInThread() {
         final JDialog dialog = this;
 
-        // Create new thread:
-        final Thread thread = new Thread() {
+        // Create background worker. Since the dialog is modal, done() is
+        // handled in the event dispatch thread after the dialog has appeared:
+        final SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
             @Override
-            public void run() {
-                // Wait for dialog to appear:
-                while (!dialog.isVisible()) {
-                }
-
+            protected Void doInBackground() {
                 // Compare:
                 JFSComparison.getInstance().compare();
+                return null;
+            }
+
 
+            @Override
+            protected void done() {
                 // Hide dialog:
                 dialog.setVisible(false);
             }
 
         };
 
-        // Start thread:
-        thread.start();
+        // Start worker:
+        worker.execute();
 
         // Make dialog window visible:
         dialog.setVisible(true);
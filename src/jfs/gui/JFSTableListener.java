@@ -35,7 +35,6 @@ import jfs.conf.JFSSyncMode.SyncAction;
 import jfs.conf.JFSSyncModes;
 import jfs.sync.JFSElement;
 import jfs.sync.JFSElement.ElementState;
-import jfs.sync.JFSTable;
 
 
 /**
@@ -259,7 +258,10 @@ public class JFSTableListener implements MouseListener, ActionListener {
         currentSelection.clear();
         for (int i = sm.getMinSelectionIndex(); i<=sm.getMaxSelectionIndex(); i++) {
             if (sm.isSelectedIndex(i)) {
-                currentSelection.add(JFSTable.getInstance().getViewElement(i));
+                JFSElement element = ((JFSTableView) table.getModel()).getElement(i);
+                if (element!=null) {
+                    currentSelection.add(element);
+                }
             }
         }
     }
@@ -36,7 +36,6 @@ import jfs.conf.JFSText;
 import jfs.sync.JFSElement;
 import jfs.sync.JFSElement.ElementState;
 import jfs.sync.JFSFile;
-import jfs.sync.JFSTable;
 
 /**
  * This class is responsible for rendering the synchronization table.
@@ -146,12 +145,11 @@ public class JFSTableRenderer implements TableCellRenderer {
     @Override
     public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus,
             int row, int column) {
-        if (row>=JFSTable.getInstance().getViewSize()||row<0) {
+        // Determine corresponding element of the comparison table:
+        JFSElement element = ((JFSTableView) table.getModel()).getElement(row);
+        if (element==null) {
             return null;
         }
-
-        // Determine corresponding element of the comparison table:
-        JFSElement element = JFSTable.getInstance().getViewElement(row);
         JFSFile jfsFile = null;
         if (column==0) {
             jfsFile = element.getSrcFile();
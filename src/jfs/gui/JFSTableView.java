@@ -19,7 +19,14 @@
 package jfs.gui;
 
 import java.awt.Frame;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import javax.swing.JTable;
+import javax.swing.Timer;
 import javax.swing.table.AbstractTableModel;
 import javax.swing.table.DefaultTableColumnModel;
 import javax.swing.table.TableColumn;
@@ -29,15 +36,24 @@ import jfs.sync.JFSElement;
 import jfs.sync.JFSFile;
 import jfs.sync.JFSFormatter;
 import jfs.sync.JFSTable;
+import jfs.sync.JFSTableObserver;
 
 
 /**
  * This class is responsible for displaying the synchronization table.
  *
+ * The rows shown are a snapshot of the view of the synchronization table, which is only accessed from the event
+ * dispatch thread. Changes of the view - e.g. during a comparison running in the background - are published to this
+ * snapshot in coalesced batches: Appended elements are reported as inserted rows, other changes reload the table.
+ *
+ * The display strings of the file columns are computed once per element and kept in a cache of bounded size for the
+ * recently painted elements. Cached strings are dropped when the synchronization table reports an update of their
+ * element.
+ *
  * @author Jens Heidrich
  * @version $Id: JFSTableView.java,v 1.3 2007/02/26 18:49:10 heidrich Exp $
  */
-public class JFSTableView extends AbstractTableModel {
+public class JFSTableView extends AbstractTableModel implements JFSTableObserver {
 
     /**
      * The UID.
@@ -49,6 +65,51 @@ public class JFSTableView extends AbstractTableModel {
      */
     private final JTable table;
 
+    /**
+     * The minimal time between two publications of changes of the view in milliseconds.
+     */
+    private static final int PUBLISH_DELAY = 200;
+
+    /**
+     * The rows currently shown.
+     */
+    private final List<JFSElement> rows = new ArrayList<>();
+
+    /**
+     * The version of the view the rows were taken from.
+     */
+    private int rowsVersion = -1;
+
+    /**
+     * The timer coalescing the requests to publish changes of the view.
+     */
+    private final Timer publisher;
+
+    /**
+     * The maximum number of elements with cached display strings.
+     */
+    private static final int RENDER_CACHE_SIZE = 4096;
+
+    /**
+     * The display strings of the recently shown elements per column in access order.
+     */
+    private final Map<JFSElement, String[]> renderCache = new LinkedHashMap<JFSElement, String[]>(RENDER_CACHE_SIZE,
+            0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<JFSElement, String[]> eldest) {
+            return size()>RENDER_CACHE_SIZE;
+        }
+
+    };
+
+    /**
+     * The elements updated since the last publication.
+     */
+    private final Queue<JFSElement> updatedElements = new ConcurrentLinkedQueue<>();
+
 
     /**
      * The default constructor just performs some initialization work.
@@ -100,6 +161,81 @@ public class JFSTableView extends AbstractTableModel {
 
         // Set row height:
         table.setRowHeight(table.getRowHeight()+2);
+
+        // Create publisher:
+        publisher = new Timer(PUBLISH_DELAY, e -> publish());
+        publisher.setRepeats(false);
+        publish();
+        JFSTable.getInstance().attach(this);
+    }
+
+
+    /**
+     * @see JFSTableObserver#updateElement(JFSElement)
+     */
+    @Override
+    public void updateElement(JFSElement element) {
+        updatedElements.add(element);
+        schedulePublish();
+    }
+
+
+    /**
+     * Requests publishing the current view of the synchronization table. The method may be called from any thread.
+     * All requests until the next publication are handled at once.
+     */
+    public final void schedulePublish() {
+        if (!publisher.isRunning()) {
+            publisher.start();
+        }
+    }
+
+
+    /**
+     * Takes over the changes of the view of the synchronization table into the shown rows. Must be called in the event
+     * dispatch thread.
+     */
+    private void publish() {
+        JFSTable jfsTable = JFSTable.getInstance();
+        List<JFSElement> elements;
+        boolean reload;
+        synchronized (jfsTable) {
+            int version = jfsTable.getViewVersion();
+            reload = (version!=rowsVersion)||(jfsTable.getViewSize()<rows.size());
+            rowsVersion = version;
+            elements = jfsTable.getViewElements(reload ? 0 : rows.size());
+        }
+
+        JFSElement updated;
+        while ((updated = updatedElements.poll())!=null) {
+            renderCache.remove(updated);
+        }
+
+        if (reload) {
+            renderCache.clear();
+            rows.clear();
+            rows.addAll(elements);
+            fireTableDataChanged();
+        } else if (!elements.isEmpty()) {
+            int first = rows.size();
+            rows.addAll(elements);
+            fireTableRowsInserted(first, rows.size()-1);
+        } else if (!rows.isEmpty()) {
+            // Actions and files of the shown elements may have changed
+            fireTableRowsUpdated(0, rows.size()-1);
+        }
+    }
+
+
+    /**
+     * Returns the element shown in a row.
+     *
+     * @param row
+     * The row.
+     * @return The element for the row or null if the row doesn't exist.
+     */
+    public final JFSElement getElement(int row) {
+        return (row>=0&&row<rows.size()) ? rows.get(row) : null;
     }
 
 
@@ -108,7 +244,7 @@ public class JFSTableView extends AbstractTableModel {
      */
     @Override
     public final int getRowCount() {
-        return JFSTable.getInstance().getViewSize();
+        return rows.size();
     }
 
 
@@ -139,8 +275,35 @@ public class JFSTableView extends AbstractTableModel {
             return null;
         }
 
+        JFSElement element = rows.get(row);
+        if (column==3) {
+            return String.valueOf(element.getAction());
+        }
+
+        String[] entries = renderCache.get(element);
+        if (entries==null) {
+            entries = new String[getColumnCount()];
+            renderCache.put(element, entries);
+        }
+        if (entries[column]==null) {
+            entries[column] = getDisplayString(element, column);
+        }
+
+        return entries[column];
+    }
+
+
+    /**
+     * Computes the string to display for an element in a file column.
+     *
+     * @param element
+     * The element to display.
+     * @param column
+     * The file column.
+     * @return The display string.
+     */
+    private static String getDisplayString(JFSElement element, int column) {
         String entry = "";
-        JFSElement element = JFSTable.getInstance().getViewElement(row);
         JFSFile file = null;
 
         if (column>=0&&column<=2) {
@@ -173,10 +336,6 @@ public class JFSTableView extends AbstractTableModel {
             }
         }
 
-        if (column==3) {
-            entry = String.valueOf(element.getAction());
-        }
-
         return entry;
     }
 
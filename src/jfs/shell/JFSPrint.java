@@ -86,6 +86,12 @@ public final class JFSPrint {
                 +config.isKeepUserActions());
         p.println("  "+t.get("profile.print.storeHistory")+" "
                 +config.isStoreHistory());
+        p.println("  "+t.get("profile.print.verifyContent")+" "
+                +config.isVerifyContent());
+        p.println("  "+t.get("profile.print.detectMoves")+" "
+                +config.isDetectMoves());
+        p.println("  "+t.get("profile.print.deltaThreshold")+" "
+                +config.getDeltaThreshold());
 
         // Print includes and excludes:
         if (config.getIncludes().size()>0) {
@@ -123,6 +129,22 @@ public final class JFSPrint {
                 +config.getServerPassPhrase());
         p.println("  "+t.get("profile.print.server.timeout")+" "
                 +config.getServerTimeout());
+        p.println("  "+t.get("profile.print.server.connections")+" "
+                +config.getServerConnections());
+        p.println("  "+t.get("profile.print.server.keepalive")+" "
+                +config.getServerKeepAlive());
+        p.println("  "+t.get("profile.print.server.nodelay")+" "
+                +config.isServerNoDelay());
+        p.println("  "+t.get("profile.print.server.listingdepth")+" "
+                +config.getServerListingDepth());
+        p.println("  "+t.get("profile.print.server.snapshot")+" "
+                +config.isServerListingSnapshot());
+        p.println("  "+t.get("profile.print.server.snapshottrees")+" "
+                +config.isServerListingSnapshotTrees());
+        p.println("  "+t.get("profile.print.server.retries")+" "
+                +config.getServerRetries());
+        p.println("  "+t.get("profile.print.server.hedge")+" "
+                +config.getServerHedgeDelay());
         p.println();
     }
 
@@ -36,6 +36,7 @@ import jfs.conf.JFSViewModes;
 import jfs.sync.JFSComparison;
 import jfs.sync.JFSCopyStatement;
 import jfs.sync.JFSDeleteStatement;
+import jfs.sync.JFSMetrics;
 import jfs.sync.JFSProgress;
 import jfs.sync.JFSSynchronization;
 import jfs.sync.JFSTable;
@@ -244,6 +245,10 @@ public final class JFSShell {
 			synchronize();
 		}
 
+		// Print the metrics of the backend operations:
+		p.println();
+		p.print(JFSMetrics.getInstance().getSummary());
+
 		p.println();
 		p.println(t.get("cmd.exit"));
 		p.println();
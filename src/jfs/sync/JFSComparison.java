@@ -18,10 +18,19 @@
  */
 package jfs.sync;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import jfs.conf.JFSConfig;
+import jfs.conf.JFSConst;
 import jfs.conf.JFSDirectoryPair;
+import jfs.conf.JFSHistory;
+import jfs.conf.JFSHistoryItem;
 import jfs.sync.JFSProgress.ProgressActivity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,6 +39,11 @@ import org.slf4j.LoggerFactory;
 /**
  * Compares all JFS directory pairs and adds the results to the table.
  *
+ * If the contents of files are verified, the files of a directory are added to the table after the contents of all
+ * pairs of equal length have been hashed in parallel. Hashes of unchanged files are taken from the history. If moves
+ * are detected, files existing on one side only are hashed after the comparison of a directory pair if they may be
+ * moved to a file of the same length on the other side.
+ *
  * @author Jens Heidrich
  * @version $Id: JFSComparison.java,v 1.31 2007/07/18 16:20:49 heidrich Exp $
  */
@@ -37,6 +51,15 @@ public final class JFSComparison {
 
     private static final Logger LOG = LoggerFactory.getLogger(JFSComparison.class);
 
+    /**
+     * Threads shared by all comparisons to hash the contents of files.
+     */
+    private static final ExecutorService HASH_EXECUTOR = Executors.newFixedThreadPool(JFSConst.VERIFY_THREADS, r -> {
+        Thread thread = new Thread(r, "JFS content hash");
+        thread.setDaemon(true);
+        return thread;
+    });
+
 
     /**
      * Stores the only instance of the class.
@@ -77,8 +100,9 @@ public final class JFSComparison {
      * @param tgtFile A target file which may be null if no corresponding target file exists, but a source file.
      * @param parent The parent element.
      * @param isDirectory Determines whether the files are directories.
+     * @param pending List to collect elements for content verification in or null to add the element directly.
      */
-    private void add(JFSFile srcFile, JFSFile tgtFile, JFSElement parent, boolean isDirectory) {
+    private void add(JFSFile srcFile, JFSFile tgtFile, JFSElement parent, boolean isDirectory, List<JFSElement> pending) {
         assert srcFile!=null||tgtFile!=null;
 
         // Determine whether the comparison should be performed:
@@ -107,6 +131,10 @@ public final class JFSComparison {
                 LOG.info("add() comparison table "+srcFile+" "+tgtFile+" "+isDirectory+" : "+element.getAction());
             } // if
         } // if
+        if (pending!=null) {
+            pending.add(element);
+            return;
+        } // if
         JFSTable.getInstance().addElement(element);
 
         // Start algorithm recursively, if the files are directories:
@@ -141,6 +169,7 @@ public final class JFSComparison {
 
         int srcIndex = 0;
         int tgtIndex = 0;
+        List<JFSElement> pending = (!isDirectory&&JFSConfig.getInstance().isVerifyContent()) ? new ArrayList<>() : null;
 
         while (srcIndex<srcFiles.length&&tgtIndex<tgtFiles.length) {
             int comp = srcFiles[srcIndex].compareTo(tgtFiles[tgtIndex]);
@@ -151,7 +180,7 @@ public final class JFSComparison {
             } // if
             if (comp==0) {
                 // Case 1: We found two matching files:
-                add(srcFiles[srcIndex], tgtFiles[tgtIndex], parent, isDirectory);
+                add(srcFiles[srcIndex], tgtFiles[tgtIndex], parent, isDirectory, pending);
                 srcIndex++;
                 tgtIndex++;
             } else if (comp>0) {
@@ -159,14 +188,14 @@ public final class JFSComparison {
                 // greater than the target file. In this case we have to write
                 // the target file to the comparison table and investigate the
                 // next target file in the list:
-                add(null, tgtFiles[tgtIndex], parent, isDirectory);
+                add(null, tgtFiles[tgtIndex], parent, isDirectory, pending);
                 tgtIndex++;
             } else if (comp<0) {
                 // Case 3: No matching file was found and the target file is
                 // greater than the source file. In this case we have to write
                 // the source file to the comparison table and investigate the
                 // next source file in the list:
-                add(srcFiles[srcIndex], null, parent, isDirectory);
+                add(srcFiles[srcIndex], null, parent, isDirectory, pending);
                 srcIndex++;
             }
         }
@@ -177,7 +206,7 @@ public final class JFSComparison {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("compareFiles()  II - srx "+srcIndex+" tgx "+tgtIndex+" "+tgtFiles[tgtIndex]);
             } // if
-            add(null, tgtFiles[tgtIndex], parent, isDirectory);
+            add(null, tgtFiles[tgtIndex], parent, isDirectory, pending);
             tgtIndex++;
         }
 
@@ -187,9 +216,149 @@ public final class JFSComparison {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("compareFiles() III - srx "+srcIndex+" tgx "+tgtIndex+" "+srcFiles[srcIndex]);
             } // if
-            add(srcFiles[srcIndex], null, parent, isDirectory);
+            add(srcFiles[srcIndex], null, parent, isDirectory, pending);
             srcIndex++;
         }
+
+        if (pending!=null) {
+            verifyContents(pending);
+            for (JFSElement element : pending) {
+                JFSTable.getInstance().addElement(element);
+            } // for
+        } // if
+    }
+
+
+    /**
+     * Hashes the contents of a file in the pool of hashing threads. Files of producers not supporting concurrent
+     * reading are read one after the other.
+     *
+     * @param file The file to hash.
+     * @return The future hash of the file's content.
+     */
+    private static CompletableFuture<String> hash(final JFSFile file) {
+        return CompletableFuture.supplyAsync(() -> {
+            JFSFileProducer producer = file.getFileProducer();
+            if (producer.isConcurrentReading()) {
+                return file.computeContentHash();
+            } // if
+            synchronized (producer) {
+                return file.computeContentHash();
+            } // synchronized
+        }, HASH_EXECUTOR).exceptionally(e -> {
+            LOG.error("hash() "+file.getPath(), e);
+            return null;
+        });
+    }
+
+
+    /**
+     * Verifies the contents of all pairs of files with equal length and revalidates the elements accordingly. Hashes
+     * are taken from the history if the files are unchanged and computed otherwise.
+     *
+     * @param elements The elements to verify.
+     */
+    private void verifyContents(List<JFSElement> elements) {
+        List<JFSElement> verified = new ArrayList<>(elements.size());
+        List<CompletableFuture<String>> srcHashes = new ArrayList<>(elements.size());
+        List<CompletableFuture<String>> tgtHashes = new ArrayList<>(elements.size());
+        for (JFSElement element : elements) {
+            JFSFile src = element.getSrcFile();
+            JFSFile tgt = element.getTgtFile();
+            if (src==null||tgt==null||src.getLength()!=tgt.getLength()||JFSProgress.getInstance().isCanceled()) {
+                continue;
+            } // if
+            JFSHistory history = element.getRoot().getHistory();
+            JFSHistoryItem item = history==null ? null : history.getHistory(element);
+            String srcHash = item==null ? null : item.getContentHash(true, src.getLength(), src.getLastModified());
+            String tgtHash = item==null ? null : item.getContentHash(false, tgt.getLength(), tgt.getLastModified());
+            verified.add(element);
+            srcHashes.add(srcHash==null ? hash(src) : CompletableFuture.completedFuture(srcHash));
+            tgtHashes.add(tgtHash==null ? hash(tgt) : CompletableFuture.completedFuture(tgtHash));
+        } // for
+
+        for (int i = 0; i<verified.size(); i++) {
+            JFSElement element = verified.get(i);
+            String srcHash = srcHashes.get(i).join();
+            String tgtHash = tgtHashes.get(i).join();
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("verifyContents() "+element.getRelativePath()+" "+srcHash+" "+tgtHash);
+            } // if
+            element.setContentHashes(srcHash, tgtHash);
+            element.revalidate();
+        } // for
+    }
+
+
+    /**
+     * Collects the files existing on one side only below the given element.
+     */
+    private static void collectOneSided(JFSElement element, List<JFSElement> srcOnly, List<JFSElement> tgtOnly) {
+        List<JFSElement> children = element.getChildren();
+        if (children==null) {
+            return;
+        } // if
+        for (JFSElement child : children) {
+            if (child.isDirectory()) {
+                collectOneSided(child, srcOnly, tgtOnly);
+            } else if (child.getTgtFile()==null) {
+                srcOnly.add(child);
+            } else if (child.getSrcFile()==null) {
+                tgtOnly.add(child);
+            } // if
+        } // for
+    }
+
+
+    /**
+     * Adds the files of one side with a length matching a file on the other side to the candidates.
+     */
+    private static void addMoveCandidates(List<JFSElement> elements, List<JFSElement> others, boolean source,
+            List<JFSElement> candidates, List<CompletableFuture<String>> hashes) {
+        Set<Long> lengths = new HashSet<>();
+        for (JFSElement element : others) {
+            lengths.add((source ? element.getTgtFile() : element.getSrcFile()).getLength());
+        } // for
+        for (JFSElement element : elements) {
+            JFSFile file = source ? element.getSrcFile() : element.getTgtFile();
+            if (file.getLength()==0||!lengths.contains(file.getLength())||JFSProgress.getInstance().isCanceled()) {
+                continue;
+            } // if
+            JFSHistory history = element.getRoot().getHistory();
+            JFSHistoryItem item = history==null ? null : history.getHistory(element);
+            String hash = item==null ? null : item.getContentHash(source, file.getLength(), file.getLastModified());
+            candidates.add(element);
+            hashes.add(hash==null ? hash(file) : CompletableFuture.completedFuture(hash));
+        } // for
+    }
+
+
+    /**
+     * Hashes the contents of the files existing on one side only which may be moved to a file of the same length
+     * existing on the other side only. This way the detection of moves doesn't need to read any files.
+     *
+     * @param root The compared root element.
+     */
+    private void hashMoveCandidates(JFSRootElement root) {
+        List<JFSElement> srcOnly = new ArrayList<>();
+        List<JFSElement> tgtOnly = new ArrayList<>();
+        collectOneSided(root, srcOnly, tgtOnly);
+        List<JFSElement> candidates = new ArrayList<>();
+        List<CompletableFuture<String>> hashes = new ArrayList<>();
+        addMoveCandidates(srcOnly, tgtOnly, true, candidates, hashes);
+        addMoveCandidates(tgtOnly, srcOnly, false, candidates, hashes);
+        for (int i = 0; i<candidates.size(); i++) {
+            JFSElement element = candidates.get(i);
+            String hash = hashes.get(i).join();
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("hashMoveCandidates() "+element.getRelativePath()+" "+hash);
+            } // if
+            if (element.getSrcFile()!=null) {
+                element.setContentHashes(hash, null);
+            } else {
+                element.setContentHashes(null, hash);
+            } // if
+        } // for
     }
 
 
@@ -209,7 +378,6 @@ public final class JFSComparison {
     private void compareDirectories(JFSFile srcDir, JFSFile tgtDir, JFSElement parent) {
         assert srcDir!=null||tgtDir!=null;
 
-        JFSProgress progress = JFSProgress.getInstance();
         JFSComparisonMonitor monitor = JFSComparisonMonitor.getInstance();
 
         JFSFile[] srcFileList = new JFSFile[0];
@@ -235,7 +403,6 @@ public final class JFSComparison {
         }
 
         monitor.increase(srcDirectoryList.length+tgtDirectoryList.length, weight);
-        progress.fireUpdate();
 
         compareFiles(srcFileList, tgtFileList, parent, false);
         compareFiles(srcDirectoryList, tgtDirectoryList, parent, true);
@@ -278,11 +445,14 @@ public final class JFSComparison {
                 // Start comparison if root is active:
                 if (root.isActive()) {
                     compareDirectories(root.getSrcFile(), root.getTgtFile(), root);
+                    JFSConfig config = JFSConfig.getInstance();
+                    if (config.isDetectMoves()&&!progress.isCanceled()) {
+                        hashMoveCandidates(root);
+                    }
                 }
             }
 
             monitor.decrease();
-            progress.fireUpdate();
         }
 
         // End the progress computation:
@@ -25,6 +25,9 @@ import java.util.List;
 /**
  * Monitors the detailed state of the currently performed comparison.
  *
+ * The stack of handled items is only changed once per directory. Access is synchronized, since the sampling thread of
+ * the progress computes the ratio concurrently.
+ *
  * @author Jens Heidrich
  * @version $Id: JFSComparisonMonitor.java,v 1.1 2006/08/25 15:54:37 heidrich Exp $
  */
@@ -60,22 +63,22 @@ public final class JFSComparisonMonitor {
     /**
      * The current root URI for source files handled.
      */
-    private String rootUriSrc = "";
+    private volatile String rootUriSrc = "";
 
     /**
      * The current root URI for target files handled.
      */
-    private String rootUriTgt = "";
+    private volatile String rootUriTgt = "";
 
     /**
      * The current source file handled.
      */
-    private JFSFile currentSrc = null;
+    private volatile JFSFile currentSrc = null;
 
     /**
      * The current target file handled.
      */
-    private JFSFile currentTgt = null;
+    private volatile JFSFile currentTgt = null;
 
 
     /**
@@ -99,7 +102,7 @@ public final class JFSComparisonMonitor {
     /**
      * Restores the default values.
      */
-    public void clean() {
+    public synchronized void clean() {
         currentSrc = null;
         currentTgt = null;
         itemsStarted.clear();
@@ -118,7 +121,7 @@ public final class JFSComparisonMonitor {
      * The weigth of the currently handled item; i.e., the delta by which the number of handled items is
      * increased if this item is completely handled.
      */
-    void increase(int containedItems, int weight) {
+    synchronized void increase(int containedItems, int weight) {
         itemsStarted.add(containedItems);
         itemsHandled.add(0);
         itemsWeight.add(weight);
@@ -128,7 +131,7 @@ public final class JFSComparisonMonitor {
     /**
      * Decreases the depth for the started and handled items. Always used in combination with increase().
      */
-    void decrease() {
+    synchronized void decrease() {
         // All vector (should ;-) have the same size, so we just
         // use the size of itemsStarted to remove the last elements:
         int size = itemsStarted.size();
@@ -157,7 +160,7 @@ public final class JFSComparisonMonitor {
     /**
      * @return Returns the ratio of the items already handled in percent.
      */
-    int getRatio() {
+    synchronized int getRatio() {
         float ratio = 0;
         for (int i = itemsStarted.size()-1; i>=0; i--) {
             int started = itemsStarted.get(i);
@@ -254,8 +257,9 @@ public final class JFSComparisonMonitor {
      * not null and the target directory otherwise). If the monitor was not initialized null is returned.
      */
     public JFSFile getCurrentDir() {
-        if (currentSrc!=null) {
-            return currentSrc;
+        JFSFile src = currentSrc;
+        if (src!=null) {
+            return src;
         }
         return currentTgt;
     }
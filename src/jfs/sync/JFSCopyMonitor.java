@@ -19,11 +19,15 @@
 package jfs.sync;
 
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 
 /**
  * Monitors the detailed state of the currently performed copy operations.
  *
+ * The counters updated while copying are adders, which may be increased cheaply from several threads and are read by
+ * the sampling thread of the progress.
+ *
  * @author Jens Heidrich
  * @version $Id: JFSCopyMonitor.java,v 1.2 2007/02/26 18:49:09 heidrich Exp $
  */
@@ -44,42 +48,42 @@ public final class JFSCopyMonitor {
     /**
      * The number of files to copy.
      */
-    private int filesToCopy = 0;
+    private volatile int filesToCopy = 0;
 
     /**
      * The number of files copied.
      */
-    private int filesCopied = 0;
+    private final LongAdder filesCopied = new LongAdder();
 
     /**
      * The number of bytes to transfer for all file.
      */
-    private long bytesToTransfer = 0;
+    private volatile long bytesToTransfer = 0;
 
     /**
      * The number of bytes transfered for all file.
      */
-    private long bytesTransfered = 0;
+    private final LongAdder bytesTransfered = new LongAdder();
 
     /**
      * The number of bytes to transfer for the current file.
      */
-    private long bytesToTransferCurrentFile = 0;
+    private volatile long bytesToTransferCurrentFile = 0;
 
     /**
      * The number of bytes transfered for the current file.
      */
-    private long bytesTransferedCurrentFile = 0;
+    private final LongAdder bytesTransferedCurrentFile = new LongAdder();
 
     /**
      * The currently copied source file.
      */
-    private JFSFile currentSrc = null;
+    private volatile JFSFile currentSrc = null;
 
     /**
      * The currently copied target file.
      */
-    private JFSFile currentTgt = null;
+    private volatile JFSFile currentTgt = null;
 
 
     /**
@@ -105,11 +109,11 @@ public final class JFSCopyMonitor {
      */
     public void clean() {
         filesToCopy = 0;
-        filesCopied = 0;
+        filesCopied.reset();
         bytesToTransfer = 0;
-        bytesTransfered = 0;
+        bytesTransfered.reset();
         bytesToTransferCurrentFile = 0;
-        bytesTransferedCurrentFile = 0;
+        bytesTransferedCurrentFile.reset();
         currentSrc = null;
         currentTgt = null;
     }
@@ -119,7 +123,7 @@ public final class JFSCopyMonitor {
      * @return Returns the ratio of bytes already transfered in percent.
      */
     public int getRatio() {
-        return getRatio(bytesTransfered+bytesTransferedCurrentFile, bytesToTransfer);
+        return getRatio(bytesTransfered.sum()+bytesTransferedCurrentFile.sum(), bytesToTransfer);
     }
 
 
@@ -127,7 +131,7 @@ public final class JFSCopyMonitor {
      * @return Returns the ratio of bytes already transfered for the current file transfer in percent.
      */
     public int getCurrentFileRatio() {
-        return getRatio(bytesTransferedCurrentFile, bytesToTransferCurrentFile);
+        return getRatio(bytesTransferedCurrentFile.sum(), bytesToTransferCurrentFile);
     }
 
 
@@ -135,7 +139,7 @@ public final class JFSCopyMonitor {
      * @return Returns the ratio of files already copied in percent.
      */
     public int getCopiedFileRatio() {
-        return getRatio(filesCopied, filesToCopy);
+        return getRatio(filesCopied.sum(), filesToCopy);
     }
 
 
@@ -198,18 +202,18 @@ public final class JFSCopyMonitor {
      * @return Returns the bytes transfered.
      */
     public long getBytesTransfered() {
-        return bytesTransfered;
+        return bytesTransfered.sum();
     }
 
 
     /**
-     * Sets the bytes transfered.
+     * Adds to the bytes transfered.
      *
-     * @param bytesTransfered
-     * The bytes transfered to set.
+     * @param bytes
+     * The number of bytes transfered additionally.
      */
-    void setBytesTransfered(long bytesTransfered) {
-        this.bytesTransfered = bytesTransfered;
+    void addBytesTransfered(long bytes) {
+        bytesTransfered.add(bytes);
     }
 
 
@@ -217,18 +221,26 @@ public final class JFSCopyMonitor {
      * @return Returns the bytes transfered of the current file transfer.
      */
     public long getBytesTransferedCurrentFile() {
-        return bytesTransferedCurrentFile;
+        return bytesTransferedCurrentFile.sum();
     }
 
 
     /**
-     * Sets the bytes transfered of the current file transfer.
+     * Adds to the bytes transfered of the current file transfer.
      *
-     * @param bytesTransferedCurrentFile
-     * The bytes transfered to set.
+     * @param bytes
+     * The number of bytes transfered additionally.
      */
-    void setBytesTransferedCurrentFile(long bytesTransferedCurrentFile) {
-        this.bytesTransferedCurrentFile = bytesTransferedCurrentFile;
+    void addBytesTransferedCurrentFile(long bytes) {
+        bytesTransferedCurrentFile.add(bytes);
+    }
+
+
+    /**
+     * Resets the bytes transfered of the current file transfer when a new transfer is started.
+     */
+    void resetBytesTransferedCurrentFile() {
+        bytesTransferedCurrentFile.reset();
     }
 
 
@@ -275,9 +287,9 @@ public final class JFSCopyMonitor {
      * and the target file otherwise).
      */
     public JFSFile getCurrentFile() {
-        assert currentSrc!=null||currentTgt!=null;
-        if (currentSrc!=null) {
-            return currentSrc;
+        JFSFile src = currentSrc;
+        if (src!=null) {
+            return src;
         }
         return currentTgt;
     }
@@ -287,18 +299,15 @@ public final class JFSCopyMonitor {
      * @return Returns the files copied.
      */
     public int getFilesCopied() {
-        return filesCopied;
+        return filesCopied.intValue();
     }
 
 
     /**
-     * Sets the files copied.
-     *
-     * @param filesCopied
-     * The files copied to set.
+     * Increases the number of files copied by one.
      */
-    void setFilesCopied(int filesCopied) {
-        this.filesCopied = filesCopied;
+    void incrementFilesCopied() {
+        filesCopied.increment();
     }
 
 
@@ -331,7 +340,7 @@ public final class JFSCopyMonitor {
     public static long getBytesToTransfer(List<JFSCopyStatement> copyStatements) {
         long bytes = 0;
         for (JFSCopyStatement cs : copyStatements) {
-            if (cs.getCopyFlag()&&!cs.getSuccess()) {
+            if (cs.getCopyFlag()&&!cs.getSuccess()&&!cs.isTimestampOnly()) {
                 bytes += cs.getSrc().getLength();
             }
         }
@@ -162,6 +162,26 @@ public class JFSCopyStatement {
     }
 
 
+    /**
+     * Returns whether only the modification date of the target has to be
+     * adjusted instead of copying the file. This is the case if the contents of
+     * both files of the associated element were verified to be equal and the
+     * executable flags don't differ.
+     *
+     * @return True if only the modification date has to be adjusted.
+     */
+    public boolean isTimestampOnly() {
+        JFSFile existing = copyFromSource ? element.getTgtFile() : element.getSrcFile();
+        if (existing==null||srcFile.isDirectory()||element.getContentHash()==null) {
+            return false;
+        }
+        if (srcFile.getFileProducer().hasExecutableFlag()&&existing.getFileProducer().hasExecutableFlag()) {
+            return srcFile.canExecute()==existing.canExecute();
+        }
+        return true;
+    }
+
+
     /**
      * Returns whether the source file in the copy statement equals to the
      * source file of the comparison table element (true) or the target file
@@ -42,17 +42,17 @@ public final class JFSDeleteMonitor {
     /**
      * The number of files to delete.
      */
-    private int filesToDelete = 0;
+    private volatile int filesToDelete = 0;
 
     /**
      * The number of files deleted.
      */
-    private int filesDeleted = 0;
+    private volatile int filesDeleted = 0;
 
     /**
      * The currently deleted file.
      */
-    private JFSFile currentFile = null;
+    private volatile JFSFile currentFile = null;
 
 
     /**
@@ -0,0 +1,401 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Updates an existing file in place with the contents of another file while only writing the changed blocks - in the
+ * style of rsync.
+ *
+ * The existing file is split into blocks, for which a rolling and a strong checksum are computed. The new contents are
+ * scanned with the rolling checksum for blocks of the existing file. Blocks found at their current position are kept
+ * as they are, blocks found elsewhere are copied within the file, and only the remaining bytes are written. Since the
+ * file is rebuilt in place, blocks are only taken from positions which have not been overwritten yet.
+ */
+final class JFSDeltaCopy {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JFSDeltaCopy.class);
+
+    /**
+     * Minimum block size - as used by rsync.
+     */
+    private static final int MIN_BLOCK_SIZE = 700;
+
+    /**
+     * Maximum block size unless the number of blocks would exceed its maximum.
+     */
+    private static final int MAX_BLOCK_SIZE = 131072;
+
+    /**
+     * Maximum number of blocks to keep the checksums of large files in reasonable memory bounds.
+     */
+    private static final int MAX_BLOCKS = 1<<19;
+
+    private static final int DIGEST_LENGTH = 16;
+
+    private static final int FILTER_BITS = 20;
+
+    private final SeekableByteChannel target;
+
+    private final long targetLength;
+
+    private final int blockSize;
+
+    private final int bufferSize;
+
+    private final MessageDigest digest;
+
+    /**
+     * Indices of the full blocks of the existing file by their rolling checksum.
+     */
+    private final Map<Integer, int[]> blocks = new HashMap<>();
+
+    /**
+     * Bit set of the rolling checksums present to avoid most of the map lookups.
+     */
+    private final long[] filter = new long[(1<<FILTER_BITS)/64];
+
+    /**
+     * Strong checksums of all blocks including a trailing short block.
+     */
+    private byte[] strong;
+
+    private final byte[] window = new byte[DIGEST_LENGTH];
+
+    private long bytesKept;
+
+    private long bytesMoved;
+
+    private long bytesWritten;
+
+
+    /**
+     * Prepares the update of an existing file.
+     *
+     * @param target
+     * The channel to read and write the existing file.
+     * @param bufferSize
+     * The buffer size for reading the new contents.
+     * @throws IOException
+     * If the length of the existing file cannot be determined.
+     */
+    JFSDeltaCopy(SeekableByteChannel target, int bufferSize) throws IOException {
+        this.target = target;
+        this.bufferSize = Math.max(bufferSize, MIN_BLOCK_SIZE);
+        targetLength = target.size();
+        blockSize = getBlockSize(targetLength);
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+
+    /**
+     * Determines the block size for a file like rsync does: the square root of its length rounded to multiples of 8.
+     */
+    static int getBlockSize(long length) {
+        int size = (int) Math.min(MAX_BLOCK_SIZE, Math.max(MIN_BLOCK_SIZE, ((long) Math.sqrt(length))&~7L));
+        while (length/size>=MAX_BLOCKS) {
+            size *= 2;
+        }
+        return size;
+    }
+
+
+    /**
+     * @return The number of bytes kept at their position.
+     */
+    long getBytesKept() {
+        return bytesKept;
+    }
+
+
+    /**
+     * @return The number of bytes copied within the file.
+     */
+    long getBytesMoved() {
+        return bytesMoved;
+    }
+
+
+    /**
+     * @return The number of bytes written from the new contents.
+     */
+    long getBytesWritten() {
+        return bytesWritten;
+    }
+
+
+    private static int checksum(byte[] b, int off, int len) {
+        int s1 = 0;
+        int s2 = 0;
+        for (int i = 0; i<len; i++) {
+            s1 += b[off+i];
+            s2 += s1;
+        }
+        return (s1&0xffff)|(s2<<16);
+    }
+
+
+    private void digest(byte[] b, int off, int len, byte[] result, int resultOffset) throws IOException {
+        digest.update(b, off, len);
+        try {
+            digest.digest(result, resultOffset, DIGEST_LENGTH);
+        } catch (DigestException e) {
+            throw new IOException(e);
+        }
+    }
+
+
+    private boolean isStrongMatch(int index) {
+        return Arrays.equals(window, 0, DIGEST_LENGTH, strong, index*DIGEST_LENGTH, (index+1)*DIGEST_LENGTH);
+    }
+
+
+    private static int getFilterIndex(int weak) {
+        return (weak^(weak>>>FILTER_BITS))&((1<<FILTER_BITS)-1);
+    }
+
+
+    private void read(long position, byte[] b, int off, int len) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+        target.position(position);
+        while (buffer.hasRemaining()) {
+            if (target.read(buffer)<0) {
+                throw new IOException("Unexpected end of file at "+(position+buffer.position()-off));
+            }
+        }
+    }
+
+
+    private void write(long position, byte[] b, int off, int len) throws IOException {
+        if (len==0) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+        target.position(position);
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+
+    /**
+     * Reads the existing file once and computes the checksums of its blocks.
+     */
+    private void computeChecksums() throws IOException {
+        int count = (int) ((targetLength+blockSize-1)/blockSize);
+        strong = new byte[count*DIGEST_LENGTH];
+        byte[] block = new byte[blockSize];
+        for (int i = 0; i<count&&!JFSProgress.getInstance().isCanceled(); i++) {
+            long position = (long) i*blockSize;
+            int len = (int) Math.min(blockSize, targetLength-position);
+            read(position, block, 0, len);
+            digest(block, 0, len, strong, i*DIGEST_LENGTH);
+            if (len==blockSize) {
+                int weak = checksum(block, 0, len);
+                int idx = getFilterIndex(weak);
+                filter[idx>>>6] |= 1L<<idx;
+                int[] indices = blocks.get(weak);
+                if (indices==null) {
+                    blocks.put(weak, new int[]{i});
+                } else {
+                    indices = Arrays.copyOf(indices, indices.length+1);
+                    indices[indices.length-1] = i;
+                    blocks.put(weak, indices);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Looks for a block of the existing file matching the window and not overwritten yet. A block at the position of
+     * the window is preferred, since it doesn't need to be written at all.
+     *
+     * @return The index of the block or -1 if there is no match.
+     */
+    private int findBlock(int weak, byte[] b, int off, long position) throws IOException {
+        int idx = getFilterIndex(weak);
+        if ((filter[idx>>>6]&(1L<<idx))==0) {
+            return -1;
+        }
+        int[] indices = blocks.get(weak);
+        if (indices==null) {
+            return -1;
+        }
+        int result = -1;
+        boolean digested = false;
+        for (int index : indices) {
+            long offset = (long) index*blockSize;
+            if (offset>=position&&(result<0||offset==position)) {
+                if (!digested) {
+                    digest(b, off, blockSize, window, 0);
+                    digested = true;
+                }
+                if (isStrongMatch(index)) {
+                    result = index;
+                    if (offset==position) {
+                        break;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * Rebuilds the existing file with the new contents.
+     *
+     * @param source
+     * The new contents.
+     * @param length
+     * The length of the new contents.
+     * @return True if and only if the file was completely rebuilt; false if the algorithm was canceled or the new
+     * contents didn't have the expected length.
+     * @throws IOException
+     * If reading or writing fails. In this case the file might be partially rebuilt.
+     */
+    boolean copy(InputStream source, long length) throws IOException {
+        JFSProgress progress = JFSProgress.getInstance();
+        JFSCopyMonitor monitor = JFSCopyMonitor.getInstance();
+        computeChecksums();
+
+        int tailLength = (int) (targetLength%blockSize);
+        long tailOffset = targetLength-tailLength;
+        byte[] buf = new byte[2*blockSize+bufferSize];
+        byte[] block = new byte[blockSize];
+        int start = 0;
+        int end = 0;
+        int literal = 0;
+        long out = 0;
+        boolean eof = false;
+        boolean rolling = false;
+        int s1 = 0;
+        int s2 = 0;
+
+        while (!progress.isCanceled()) {
+            if (end-start<=blockSize&&!eof) {
+                // Write pending bytes and refill the buffer behind the window:
+                write(out, buf, literal, start-literal);
+                bytesWritten += start-literal;
+                monitor.addBytesTransferedCurrentFile(start-literal);
+                out += start-literal;
+                System.arraycopy(buf, start, buf, 0, end-start);
+                end -= start;
+                start = 0;
+                literal = 0;
+                while (end<buf.length) {
+                    int len = source.read(buf, end, buf.length-end);
+                    if (len<0) {
+                        eof = true;
+                        break;
+                    }
+                    end += len;
+                }
+            }
+
+            long position = out+start-literal;
+            if (tailLength>0&&position==tailOffset&&end-start>=tailLength) {
+                // The short last block can only be kept at its position:
+                digest(buf, start, tailLength, window, 0);
+                if (isStrongMatch(strong.length/DIGEST_LENGTH-1)) {
+                    write(out, buf, literal, start-literal);
+                    bytesWritten += start-literal;
+                    bytesKept += tailLength;
+                    monitor.addBytesTransferedCurrentFile(start-literal+tailLength);
+                    out = position+tailLength;
+                    start += tailLength;
+                    literal = start;
+                    rolling = false;
+                    continue;
+                }
+            }
+            if (end-start<blockSize) {
+                break;
+            }
+
+            if (!rolling) {
+                int weak = checksum(buf, start, blockSize);
+                s1 = weak&0xffff;
+                s2 = weak>>>16;
+                rolling = true;
+            }
+            int index = findBlock((s1&0xffff)|(s2<<16), buf, start, position);
+            if (index>=0) {
+                write(out, buf, literal, start-literal);
+                bytesWritten += start-literal;
+                long offset = (long) index*blockSize;
+                if (offset==position) {
+                    bytesKept += blockSize;
+                } else {
+                    read(offset, block, 0, blockSize);
+                    write(position, block, 0, blockSize);
+                    bytesMoved += blockSize;
+                }
+                monitor.addBytesTransferedCurrentFile(start-literal+blockSize);
+                out = position+blockSize;
+                start += blockSize;
+                literal = start;
+                rolling = false;
+            } else if (start+blockSize<end) {
+                // Roll the window by one byte:
+                byte first = buf[start];
+                s1 += buf[start+blockSize]-first;
+                s2 += s1-blockSize*first;
+                start++;
+            } else {
+                break;
+            }
+        }
+        if (progress.isCanceled()) {
+            return false;
+        }
+
+        write(out, buf, literal, end-literal);
+        bytesWritten += end-literal;
+        monitor.addBytesTransferedCurrentFile(end-literal);
+        out += end-literal;
+        if (out!=length) {
+            LOG.error("copy() could not copy all necessary bytes: "+out+" of "+length);
+            return false;
+        }
+        if (targetLength>length) {
+            target.truncate(length);
+        }
+        LOG.info("copy() kept {}, moved {}, and wrote {} of {} bytes", bytesKept, bytesMoved, bytesWritten, length);
+        return true;
+    }
+
+}
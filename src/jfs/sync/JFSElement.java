@@ -97,6 +97,16 @@ public class JFSElement implements Comparable<JFSElement> {
      */
     protected boolean viewed = false;
 
+    /**
+     * The hash of the content of the source file or null if the content was not verified.
+     */
+    protected String srcContentHash = null;
+
+    /**
+     * The hash of the content of the target file or null if the content was not verified.
+     */
+    protected String tgtContentHash = null;
+
 
     /**
      * The states of the element.
@@ -196,6 +206,15 @@ public class JFSElement implements Comparable<JFSElement> {
             state = ElementState.LENGTH_INCONSISTENT;
         }
 
+        // Check content if it was verified; different contents with equal
+        // modification dates are inconsistent. Equal contents with different
+        // modification dates keep their state, so that the synchronization
+        // only has to adjust the modification date:
+        if (state==ElementState.EQUAL&&srcContentHash!=null&&tgtContentHash!=null
+                &&!srcContentHash.equals(tgtContentHash)) {
+            state = ElementState.LENGTH_INCONSISTENT;
+        }
+
         // Check executable flag:
         if (state==ElementState.EQUAL) {
             JFSFileProducer srcProducer = srcFile.getFileProducer();
@@ -239,6 +258,7 @@ public class JFSElement implements Comparable<JFSElement> {
      */
     public void setSrcFile(JFSFile file) {
         srcFile = file;
+        srcContentHash = null;
     }
 
 
@@ -257,6 +277,37 @@ public class JFSElement implements Comparable<JFSElement> {
      */
     public void setTgtFile(JFSFile file) {
         tgtFile = file;
+        tgtContentHash = null;
+    }
+
+
+    /**
+     * Sets the hashes of the contents of the source and target file, which are taken into account by the next
+     * revalidation.
+     *
+     * @param srcHash The hash of the source file's content or null if unknown.
+     * @param tgtHash The hash of the target file's content or null if unknown.
+     */
+    public void setContentHashes(String srcHash, String tgtHash) {
+        srcContentHash = srcHash;
+        tgtContentHash = tgtHash;
+    }
+
+
+    /**
+     * @return Returns the hash of the content of both files if they were verified to be equal and null otherwise.
+     */
+    public final String getContentHash() {
+        return (srcContentHash!=null&&srcContentHash.equals(tgtContentHash)) ? srcContentHash : null;
+    }
+
+
+    /**
+     * @param source Determines whether the hash of the source file (true) or the target file (false) is returned.
+     * @return Returns the hash of the content of the file on the given side or null if it is unknown.
+     */
+    public final String getContentHash(boolean source) {
+        return source ? srcContentHash : tgtContentHash;
     }
 
 
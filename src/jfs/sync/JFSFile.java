@@ -22,9 +22,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.channels.SeekableByteChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import jfs.conf.JFSConfig;
 import jfs.conf.JFSLog;
 import jfs.conf.JFSText;
+import jfs.sync.JFSMetrics.Operation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -160,7 +164,21 @@ public abstract class JFSFile implements Comparable<JFSFile> {
      *
      * @return An array of JFSFile objects included in the directory.
      */
-    public abstract JFSFile[] getList();
+    protected abstract JFSFile[] internalGetList();
+
+
+    /**
+     * Returns the included files. The returned list must be not equal to null. If no children exist, an array of size
+     * zero is returned.
+     *
+     * @return An array of JFSFile objects included in the directory.
+     */
+    public final JFSFile[] getList() {
+        long start = System.nanoTime();
+        JFSFile[] list = internalGetList();
+        JFSMetrics.getInstance().record(fileProducer.getScheme(), Operation.LIST, start);
+        return list;
+    } // getList()
 
 
     /**
@@ -249,7 +267,21 @@ public abstract class JFSFile implements Comparable<JFSFile> {
      * @param time The new last-modified time, measured in milliseconds since the epoch (00:00:00 GMT, January 1, 1970).
      * @return True if and only if the operation succeeded; false otherwise.
      */
-    public abstract boolean setLastModified(long time);
+    protected abstract boolean internalSetLastModified(long time);
+
+
+    /**
+     * Sets the last-modified time of the file or directory named by this abstract pathname.
+     *
+     * @param time The new last-modified time, measured in milliseconds since the epoch (00:00:00 GMT, January 1, 1970).
+     * @return True if and only if the operation succeeded; false otherwise.
+     */
+    public final boolean setLastModified(long time) {
+        long start = System.nanoTime();
+        boolean success = internalSetLastModified(time);
+        JFSMetrics.getInstance().record(fileProducer.getScheme(), Operation.SET_LAST_MODIFIED, start);
+        return success;
+    } // setLastModified()
 
 
     /**
@@ -282,7 +314,50 @@ public abstract class JFSFile implements Comparable<JFSFile> {
      *
      * @return True if and only if the file or directory is successfully deleted; false otherwise.
      */
-    public abstract boolean delete();
+    protected abstract boolean internalDelete();
+
+
+    /**
+     * Deletes the file or directory denoted by this abstract pathname. If this pathname denotes a directory, then the
+     * directory must be empty in order to be deleted.
+     *
+     * @return True if and only if the file or directory is successfully deleted; false otherwise.
+     */
+    public final boolean delete() {
+        long start = System.nanoTime();
+        boolean success = internalDelete();
+        JFSMetrics.getInstance().record(fileProducer.getScheme(), Operation.DELETE, start);
+        return success;
+    } // delete()
+
+
+    /**
+     * Moves the file or directory denoted by this abstract pathname to another relative path of the same file
+     * producer. The parent directory of the new path has to exist and existing files must not be overwritten. Only
+     * file producers which can move files override this method.
+     *
+     * @param relativePath The relative path to move the file or directory to.
+     * @return True if and only if the file or directory is successfully moved; false otherwise.
+     * @see JFSFileProducer#canMove()
+     */
+    protected boolean internalRenameTo(String relativePath) {
+        return false;
+    }
+
+
+    /**
+     * Moves the file or directory denoted by this abstract pathname to another relative path of the same file
+     * producer. The object itself still refers to the old path afterwards.
+     *
+     * @param relativePath The relative path to move the file or directory to.
+     * @return True if and only if the file or directory is successfully moved; false otherwise.
+     */
+    public final boolean renameTo(String relativePath) {
+        long start = System.nanoTime();
+        boolean success = internalRenameTo(relativePath);
+        JFSMetrics.getInstance().record(fileProducer.getScheme(), Operation.RENAME, start);
+        return success;
+    } // renameTo()
 
 
     /**
@@ -303,6 +378,19 @@ public abstract class JFSFile implements Comparable<JFSFile> {
     protected abstract OutputStream getOutputStream();
 
 
+    /**
+     * Opens the contents of an existing file for reading and writing at arbitrary positions without truncating it.
+     * Files of producers not supporting this are always copied as a whole.
+     *
+     * @return The channel or null if random access is not supported.
+     * @throws IOException
+     * If the file cannot be opened.
+     */
+    protected SeekableByteChannel getRandomAccessChannel() throws IOException {
+        return null;
+    }
+
+
     /**
      * Performs operations for closing the created input stream for this JFS file.
      */
@@ -397,8 +485,7 @@ public abstract class JFSFile implements Comparable<JFSFile> {
                     maxLen = (int) r;
                 }
 
-                monitor.setBytesTransferedCurrentFile(transferedBytes);
-                progress.fireUpdate();
+                monitor.addBytesTransferedCurrentFile(len);
             }
 
             if (transferedBytes==length) {
@@ -419,6 +506,47 @@ public abstract class JFSFile implements Comparable<JFSFile> {
     }
 
 
+    /**
+     * Updates an existing target file by only writing the blocks which differ from the contents of this file - if the
+     * file is large enough and the target file can be accessed randomly.
+     *
+     * @param tgtFile The target file.
+     * @return True if and only if the target file was updated; false if it has to be copied as a whole.
+     */
+    private boolean copyDelta(JFSFile tgtFile) {
+        long threshold = JFSConfig.getInstance().getDeltaThreshold()*1048576L;
+        if (threshold<=0||getLength()<threshold||!tgtFile.exists()||tgtFile.isDirectory()||tgtFile.getLength()==0) {
+            return false;
+        }
+
+        JFSMetrics metrics = JFSMetrics.getInstance();
+        String tgtScheme = tgtFile.getFileProducer().getScheme();
+        long start = System.nanoTime();
+        try (SeekableByteChannel channel = tgtFile.getRandomAccessChannel()) {
+            if (channel==null) {
+                return false;
+            }
+            metrics.record(tgtScheme, Operation.RANDOM_ACCESS, start);
+            start = System.nanoTime();
+            InputStream input = getInputStream();
+            metrics.record(fileProducer.getScheme(), Operation.INPUT_STREAM, start);
+            if (input==null) {
+                return false;
+            }
+            JFSDeltaCopy delta = new JFSDeltaCopy(channel, JFSConfig.getInstance().getBufferSize());
+            boolean success = delta.copy(metrics.get(fileProducer.getScheme(), Operation.INPUT_STREAM).countBytes(input),
+                    getLength());
+            metrics.get(tgtScheme, Operation.RANDOM_ACCESS).addBytes(delta.getBytesMoved()+delta.getBytesWritten());
+            return success;
+        } catch (IOException e) {
+            LOG.warn("copyDelta() copying "+getPath()+" as a whole: "+e.getMessage());
+            return false;
+        } finally {
+            closeInputStream();
+        }
+    }
+
+
     /**
      * Writes the content of the JFSFile to a new target file. If this JFSFile is a directory the target directory is
      * made.
@@ -441,9 +569,25 @@ public abstract class JFSFile implements Comparable<JFSFile> {
         if (isDirectory()) {
             success = success&&tgtFile.mkdir();
         } else {
-            success = success&&copy(getInputStream(), tgtFile.getOutputStream());
+            JFSMetrics metrics = JFSMetrics.getInstance();
+            String tgtScheme = tgtFile.getFileProducer().getScheme();
+            if (success&&copyDelta(tgtFile)) {
+                LOG.info("copy() done");
+            } else if (success&&!JFSProgress.getInstance().isCanceled()) {
+                JFSCopyMonitor.getInstance().resetBytesTransferedCurrentFile();
+                long start = System.nanoTime();
+                InputStream input = getInputStream();
+                metrics.record(fileProducer.getScheme(), Operation.INPUT_STREAM, start);
+                start = System.nanoTime();
+                OutputStream output = tgtFile.getOutputStream();
+                metrics.record(tgtScheme, Operation.OUTPUT_STREAM, start);
+                success = copy(metrics.get(fileProducer.getScheme(), Operation.INPUT_STREAM).countBytes(input),
+                        metrics.get(tgtScheme, Operation.OUTPUT_STREAM).countBytes(output));
+            } // if
             closeInputStream();
+            long start = System.nanoTime();
             tgtFile.closeOutputStream();
+            metrics.record(tgtScheme, Operation.FLUSH, start);
         }
 
         success = success&&tgtFile.postCopyTgt(this);
@@ -458,6 +602,53 @@ public abstract class JFSFile implements Comparable<JFSFile> {
     }
 
 
+    /**
+     * Computes the hash of the content of the file by streaming it through a SHA-256 digest. The reading is canceled
+     * with the algorithm.
+     *
+     * @return The hex encoded hash or null if the file is a directory or its content could not be read completely.
+     */
+    public final String computeContentHash() {
+        if (isDirectory()) {
+            return null;
+        }
+
+        JFSMetrics metrics = JFSMetrics.getInstance();
+        String hash = null;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            long start = System.nanoTime();
+            InputStream input = getInputStream();
+            metrics.record(fileProducer.getScheme(), Operation.INPUT_STREAM, start);
+            if (input!=null) {
+                input = metrics.get(fileProducer.getScheme(), Operation.INPUT_STREAM).countBytes(input);
+                byte[] buf = new byte[JFSConfig.getInstance().getBufferSize()];
+                long length = 0;
+                int len;
+                while ((len = input.read(buf))>0&&!JFSProgress.getInstance().isCanceled()) {
+                    digest.update(buf, 0, len);
+                    length += len;
+                }
+                if (length==getLength()) {
+                    StringBuilder hex = new StringBuilder(64);
+                    for (byte b : digest.digest()) {
+                        hex.append(Character.forDigit((b>>4)&0xf, 16)).append(Character.forDigit(b&0xf, 16));
+                    }
+                    hash = hex.toString();
+                } else {
+                    LOG.warn("computeContentHash() read "+length+" of "+getLength()+" bytes from "+getPath());
+                }
+            }
+        } catch (IOException|NoSuchAlgorithmException e) {
+            LOG.error("computeContentHash() "+getPath(), e);
+        } finally {
+            closeInputStream();
+        }
+
+        return hash;
+    }
+
+
     /**
      * Returns the result of the comparison of the names of two JFSFile objects.
      *
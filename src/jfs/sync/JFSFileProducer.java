@@ -145,4 +145,34 @@ public abstract class JFSFileProducer {
      */
     public abstract boolean hasExecutableFlag();
 
+
+    /**
+     * Tell, if the contents of different files of this producer may be read by several threads at the same time. This
+     * is used to read files in parallel e.g. for hashing their contents.
+     *
+     * @return true if input streams of different files may be used concurrently
+     */
+    public boolean isConcurrentReading() {
+        return false;
+    }
+
+
+    /**
+     * Tell, if files of this producer can be moved to another path without transferring their contents again. This
+     * is used to move renamed files instead of copying and deleting them.
+     *
+     * @return true if JFSFile.renameTo() is supported
+     */
+    public boolean canMove() {
+        return false;
+    }
+
+
+    /**
+     * Called after a synchronization of the directory pair using this producer has been completed. Producers may keep
+     * state for the next run here.
+     */
+    public void synchronizationDone() {
+    }
+
 }
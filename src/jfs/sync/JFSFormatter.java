@@ -19,8 +19,10 @@
 package jfs.sync;
 
 import java.io.File;
-import java.text.DateFormat;
-import java.util.Date;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
 
 
 /**
@@ -31,6 +33,12 @@ import java.util.Date;
  */
 public final class JFSFormatter {
 
+    /**
+     * The shared format for dates which - unlike DateFormat - may be used by several threads.
+     */
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT)
+            .withZone(ZoneId.systemDefault());
+
     private JFSFormatter() {
     }
 
@@ -79,8 +87,7 @@ public final class JFSFormatter {
             return "";
         }
 
-        DateFormat df = DateFormat.getDateTimeInstance(DateFormat.SHORT, DateFormat.SHORT);
-        return df.format(new Date(file.getLastModified()));
+        return DATE_FORMAT.format(Instant.ofEpochMilli(file.getLastModified()));
     }
 
 
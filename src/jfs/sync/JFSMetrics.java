@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import jfs.sync.util.PooledSardine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Per scheme metrics of the backend operations.
+ *
+ * JFS files record their operations under the scheme of their producer, the storage access layer of encrypting
+ * producers under the scheme followed by STORAGE_SUFFIX. Each operation is registered as an MBean named
+ * jfs.sync:type=Operation,scheme=&lt;scheme&gt;,operation=&lt;operation&gt; when it is recorded for the first time, the
+ * overall metrics as jfs.sync:type=Metrics.
+ */
+public final class JFSMetrics implements JFSMetricsMXBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JFSMetrics.class);
+
+    public static final String DOMAIN = "jfs.sync";
+
+    public static final String STORAGE_SUFFIX = "/storage";
+
+    private static final double MB = 1024.0*1024.0;
+
+
+    /**
+     * Recorded operations.
+     */
+    public enum Operation {
+
+        LIST("list"), FILE_INFO("fileInfo"), INPUT_STREAM("inputStream"), OUTPUT_STREAM("outputStream"),
+        SET_LAST_MODIFIED("setLastModified"), DELETE("delete"), FLUSH("flush"), RENAME("rename"),
+        RANDOM_ACCESS("randomAccess");
+
+        private final String name;
+
+
+        Operation(String name) {
+            this.name = name;
+        }
+
+
+        public String getName() {
+            return name;
+        }
+
+    }
+
+
+    /**
+     * Stores the only instance of the class.
+     */
+    private static class SingletonHolder {
+
+        public static final JFSMetrics INSTANCE = new JFSMetrics();
+
+    }
+
+    /**
+     * Metrics of all operations per scheme indexed by the ordinal of the operation.
+     */
+    private final ConcurrentMap<String, JFSOperationMetrics[]> metrics = new ConcurrentHashMap<>();
+
+
+    private JFSMetrics() {
+        register(this, DOMAIN+":type=Metrics");
+    } // JFSMetrics()
+
+
+    /**
+     * Returns the reference of the only object of the class.
+     *
+     * @return The only instance.
+     */
+    public static JFSMetrics getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+
+    private static void register(Object mbean, String name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(mbean, new ObjectName(name));
+        } catch (JMException|RuntimeException e) {
+            LOG.warn("register() cannot register {}: {}", name, e.getMessage());
+        } // try/catch
+    } // register()
+
+
+    private static JFSOperationMetrics[] create(String scheme) {
+        JFSOperationMetrics[] result = new JFSOperationMetrics[Operation.values().length];
+        for (Operation operation : Operation.values()) {
+            result[operation.ordinal()] = new JFSOperationMetrics(scheme, operation);
+        } // for
+        return result;
+    } // create()
+
+
+    /**
+     * Obtain the metrics of an operation - creating and registering them on first access.
+     *
+     * @param scheme scheme of the producer
+     * @param operation operation of the producer's files or storage access
+     * @return metrics of the operation
+     */
+    public JFSOperationMetrics get(String scheme, Operation operation) {
+        JFSOperationMetrics[] schemeMetrics = metrics.get(scheme);
+        if (schemeMetrics==null) {
+            JFSOperationMetrics[] created = create(scheme);
+            schemeMetrics = metrics.putIfAbsent(scheme, created);
+            if (schemeMetrics==null) {
+                schemeMetrics = created;
+                for (JFSOperationMetrics m : created) {
+                    register(m, DOMAIN+":type=Operation,scheme="+scheme+",operation="+m.getOperation().getName());
+                } // for
+            } // if
+        } // if
+        return schemeMetrics[operation.ordinal()];
+    } // get()
+
+
+    /**
+     * Take note of a call which started at the given time.
+     *
+     * @param scheme scheme of the producer
+     * @param operation operation called
+     * @param start start of the call from System.nanoTime()
+     */
+    public void record(String scheme, Operation operation, long start) {
+        get(scheme, operation).record(System.nanoTime()-start);
+    } // record()
+
+
+    private List<JFSOperationMetrics> getRecorded() {
+        List<JFSOperationMetrics> result = new ArrayList<>();
+        for (JFSOperationMetrics[] schemeMetrics : new TreeMap<>(metrics).values()) {
+            for (JFSOperationMetrics m : schemeMetrics) {
+                if (m.getCount()>0) {
+                    result.add(m);
+                } // if
+            } // for
+        } // for
+        return result;
+    } // getRecorded()
+
+
+    @Override
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder(1024);
+        summary.append(String.format(Locale.ROOT, "%-20s %-16s %9s %11s %9s %9s %9s %9s %9s%n", "scheme", "operation",
+                "count", "total ms", "mean ms", "p50 ms", "p99 ms", "max ms", "MB"));
+        for (JFSOperationMetrics m : getRecorded()) {
+            summary.append(String.format(Locale.ROOT, "%-20s %-16s %9d %11.1f %9.3f %9.3f %9.3f %9.1f %9.1f%n",
+                    m.getScheme(), m.getOperation().getName(), m.getCount(), m.getTotalMillis(), m.getMeanMillis(),
+                    m.getMedianMillis(), m.getPercentile99Millis(), m.getMaxMillis(), m.getBytes()/MB));
+        } // for
+        if (getDavRetryCount()+getDavHedgeCount()>0) {
+            summary.append(String.format(Locale.ROOT, "DAV requests: %d retries, %d failed, %d hedged, %d hedges won%n",
+                    getDavRetryCount(), getDavFailureCount(), getDavHedgeCount(), getDavHedgeWinCount()));
+        } // if
+        return summary.toString();
+    } // getSummary()
+
+
+    @Override
+    public long getDavRetryCount() {
+        return PooledSardine.getRetryCount();
+    }
+
+
+    @Override
+    public long getDavFailureCount() {
+        return PooledSardine.getFailureCount();
+    }
+
+
+    @Override
+    public long getDavHedgeCount() {
+        return PooledSardine.getHedgeCount();
+    }
+
+
+    @Override
+    public long getDavHedgeWinCount() {
+        return PooledSardine.getHedgeWinCount();
+    }
+
+
+    @Override
+    public void reset() {
+        for (JFSOperationMetrics[] schemeMetrics : metrics.values()) {
+            for (JFSOperationMetrics m : schemeMetrics) {
+                m.reset();
+            } // for
+        } // for
+    } // reset()
+
+} // JFSMetrics
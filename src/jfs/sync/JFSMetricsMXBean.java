@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync;
+
+/**
+ * Management interface of the overall backend metrics.
+ */
+public interface JFSMetricsMXBean {
+
+    /**
+     * Human readable table of all recorded operations.
+     *
+     * @return summary of the operation metrics
+     */
+    String getSummary();
+
+
+    long getDavRetryCount();
+
+
+    long getDavFailureCount();
+
+
+    long getDavHedgeCount();
+
+
+    long getDavHedgeWinCount();
+
+
+    /**
+     * Reset the metrics of all operations.
+     */
+    void reset();
+
+} // JFSMetricsMXBean
@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Detects files and directories which would be copied to one side and deleted at another path on the same side, so
+ * that they can be moved there instead.
+ *
+ * Files match if they have the same length, modification date and content hash. The hashes are computed during the
+ * comparison, so files with equal length and modification date but different contents are never moved.
+ * Directories match as a whole if all files and directories below them match by their names. A file or directory is
+ * only moved if there is exactly one match for it or exactly one match with the same name.
+ */
+final class JFSMoveDetection {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JFSMoveDetection.class);
+
+    /**
+     * Copy statements of elements existing on one side only by element.
+     */
+    private final Map<JFSElement, JFSCopyStatement> copies = new HashMap<>();
+
+    /**
+     * Delete statements of elements existing on one side only by element.
+     */
+    private final Map<JFSElement, JFSDeleteStatement> deletes = new HashMap<>();
+
+    /**
+     * Elements to delete by their key.
+     */
+    private final Map<String, List<JFSElement>> candidates = new HashMap<>();
+
+    /**
+     * Elements already covered by a move statement.
+     */
+    private final Set<JFSElement> consumed = new HashSet<>();
+
+
+    /**
+     * Takes note of all copy and delete statements of elements which exist on one side only and can be moved.
+     *
+     * @param copyStatements
+     * The copy statements of the synchronization.
+     * @param deleteStatements
+     * The delete statements of the synchronization.
+     */
+    JFSMoveDetection(List<JFSCopyStatement> copyStatements, List<JFSDeleteStatement> deleteStatements) {
+        for (JFSCopyStatement cs : copyStatements) {
+            JFSElement element = cs.getElement();
+            if ((element.getSrcFile()==null||element.getTgtFile()==null)&&cs.getTgt().getFileProducer().canMove()) {
+                copies.put(element, cs);
+            }
+        }
+        for (JFSDeleteStatement ds : deleteStatements) {
+            JFSElement element = ds.getElement();
+            if ((element.getSrcFile()==null||element.getTgtFile()==null)&&ds.getFile().getFileProducer().canMove()) {
+                deletes.put(element, ds);
+            }
+        }
+        for (JFSElement element : deletes.keySet()) {
+            String key = getKey(element, deletes.get(element).getFile().getFileProducer(), false);
+            if (key!=null) {
+                candidates.computeIfAbsent(key, k -> new ArrayList<>()).add(element);
+            }
+        }
+    }
+
+
+    /**
+     * Counts the files below an element and their total length.
+     *
+     * @return False if the element or an element below it cannot be moved.
+     */
+    private boolean count(JFSElement element, boolean added, long[] count) {
+        JFSFile file = getFile(element, added);
+        if (file==null) {
+            return false;
+        }
+        if (element.isDirectory()) {
+            for (JFSElement child : getChildren(element)) {
+                if (!count(child, added, count)) {
+                    return false;
+                }
+            }
+        } else {
+            count[0]++;
+            count[1] += file.getLength();
+        }
+        return true;
+    }
+
+
+    /**
+     * Computes the key for finding matching elements. The key consists of the producer on the side to move on, the
+     * type, and the number and total length of all files of an element.
+     *
+     * @return The key or null if the element cannot be moved or moving it would not save anything.
+     */
+    private String getKey(JFSElement element, JFSFileProducer producer, boolean added) {
+        long[] count = new long[2];
+        if (!count(element, added, count)||count[1]==0) {
+            return null;
+        }
+        return System.identityHashCode(producer)+(element.isDirectory() ? "/d" : "/f")+count[0]+"/"+count[1];
+    }
+
+
+    private JFSFile getFile(JFSElement element, boolean added) {
+        if (added) {
+            JFSCopyStatement cs = copies.get(element);
+            return cs==null ? null : cs.getSrc();
+        }
+        JFSDeleteStatement ds = deletes.get(element);
+        return ds==null ? null : ds.getFile();
+    }
+
+
+    private static List<JFSElement> getChildren(JFSElement element) {
+        List<JFSElement> children = element.getChildren();
+        return children==null ? Collections.emptyList() : children;
+    }
+
+
+    /**
+     * Returns the content hash computed for a file existing on one side only during the comparison. No files are read
+     * here, since the synchronization lists may be computed on the event dispatch thread.
+     */
+    private static String getHash(JFSElement element) {
+        return element.getContentHash(element.getSrcFile()!=null);
+    }
+
+
+    /**
+     * Checks whether an element to copy matches an element to delete and collects all pairs of matching elements.
+     *
+     * @return True if the elements and all elements below them match.
+     */
+    private boolean matches(JFSElement added, JFSElement removed, List<JFSElement[]> pairs) {
+        if (added.isDirectory()!=removed.isDirectory()||consumed.contains(added)||consumed.contains(removed)) {
+            return false;
+        }
+        JFSFile addedFile = getFile(added, true);
+        JFSFile removedFile = getFile(removed, false);
+        if (addedFile==null||removedFile==null) {
+            return false;
+        }
+        pairs.add(new JFSElement[]{added, removed});
+        if (!added.isDirectory()) {
+            if (addedFile.getLength()!=removedFile.getLength()
+                    ||JFSElement.compareToTime(addedFile.getLastModified(), removedFile.getLastModified())!=0) {
+                return false;
+            }
+            String hash = getHash(added);
+            return hash!=null&&hash.equals(getHash(removed));
+        }
+        List<JFSElement> addedChildren = getChildren(added);
+        List<JFSElement> removedChildren = getChildren(removed);
+        if (addedChildren.size()!=removedChildren.size()) {
+            return false;
+        }
+        Map<String, JFSElement> names = new HashMap<>();
+        for (JFSElement child : removedChildren) {
+            names.put(child.getName(), child);
+        }
+        for (JFSElement child : addedChildren) {
+            JFSElement other = names.get(child.getName());
+            if (other==null||!matches(child, other, pairs)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Computes the move statements. The copy statements are visited in the order of the comparison table, so
+     * directories are matched before the files and directories below them.
+     *
+     * @param copyStatements
+     * The copy statements of the synchronization.
+     * @return The move statements replacing copy and delete statements.
+     */
+    List<JFSMoveStatement> computeMoveStatements(List<JFSCopyStatement> copyStatements) {
+        List<JFSMoveStatement> moveStatements = new ArrayList<>();
+        for (JFSCopyStatement cs : copyStatements) {
+            JFSElement added = cs.getElement();
+            if (consumed.contains(added)||!copies.containsKey(added)) {
+                continue;
+            }
+            String key = getKey(added, cs.getTgt().getFileProducer(), true);
+            List<JFSElement> removedElements = key==null ? null : candidates.get(key);
+            if (removedElements==null) {
+                continue;
+            }
+
+            // Find all matches and prefer the one with the same name:
+            List<List<JFSElement[]>> matches = new ArrayList<>();
+            List<List<JFSElement[]>> namedMatches = new ArrayList<>();
+            for (JFSElement removed : removedElements) {
+                List<JFSElement[]> pairs = new ArrayList<>();
+                if (deletes.get(removed).getFile().getFileProducer()==cs.getTgt().getFileProducer()
+                        &&matches(added, removed, pairs)) {
+                    matches.add(pairs);
+                    if (added.getName().equals(removed.getName())) {
+                        namedMatches.add(pairs);
+                    }
+                }
+            }
+            List<JFSElement[]> pairs = null;
+            if (matches.size()==1) {
+                pairs = matches.get(0);
+            } else if (namedMatches.size()==1) {
+                pairs = namedMatches.get(0);
+            } else if (!matches.isEmpty()) {
+                LOG.info("computeMoveStatements() {} ambiguous matches for {}", matches.size(), added.getRelativePath());
+            }
+
+            if (pairs!=null) {
+                JFSElement removed = pairs.get(0)[1];
+                JFSMoveStatement ms = new JFSMoveStatement(cs, deletes.get(removed));
+                for (JFSElement[] pair : pairs) {
+                    ms.add(copies.get(pair[0]), deletes.get(pair[1]));
+                    consumed.add(pair[0]);
+                    consumed.add(pair[1]);
+                }
+                LOG.info("computeMoveStatements() {} -> {}", removed.getRelativePath(), added.getRelativePath());
+                moveStatements.add(ms);
+            }
+        }
+        return moveStatements;
+    }
+
+}
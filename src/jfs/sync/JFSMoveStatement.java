@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Represents a move statement; i.e., a file or directory that would be copied to one side and deleted at another path
+ * on the same side, so it can be moved there instead. The move statement combines the copy and delete statements it
+ * replaces - for directories including the statements of all files and directories below them. The replaced
+ * statements are marked successful if the move succeeds and are performed as usual otherwise.
+ */
+public class JFSMoveStatement {
+
+    /**
+     * The copy statement of the moved file or directory.
+     */
+    private final JFSCopyStatement copyStatement;
+
+    /**
+     * The delete statement of the moved file or directory.
+     */
+    private final JFSDeleteStatement deleteStatement;
+
+    /**
+     * All replaced copy statements.
+     */
+    private final List<JFSCopyStatement> copyStatements = new ArrayList<>();
+
+    /**
+     * All replaced delete statements.
+     */
+    private final List<JFSDeleteStatement> deleteStatements = new ArrayList<>();
+
+    /**
+     * This flag informs whether the move was successful or not. It is false by default.
+     */
+    private boolean success = false;
+
+
+    /**
+     * Creates a move statement for a copy and a delete statement.
+     *
+     * @param copyStatement
+     * The copy statement of the file or directory at its new path.
+     * @param deleteStatement
+     * The delete statement of the file or directory at its old path.
+     */
+    public JFSMoveStatement(JFSCopyStatement copyStatement, JFSDeleteStatement deleteStatement) {
+        this.copyStatement = copyStatement;
+        this.deleteStatement = deleteStatement;
+    }
+
+
+    /**
+     * Adds a pair of statements replaced by this move statement.
+     *
+     * @param cs
+     * The replaced copy statement.
+     * @param ds
+     * The replaced delete statement.
+     */
+    void add(JFSCopyStatement cs, JFSDeleteStatement ds) {
+        copyStatements.add(cs);
+        deleteStatements.add(ds);
+    }
+
+
+    /**
+     * Returns the copy statement of the moved file or directory.
+     *
+     * @return The copy statement.
+     */
+    public JFSCopyStatement getCopyStatement() {
+        return copyStatement;
+    }
+
+
+    /**
+     * Returns the delete statement of the moved file or directory.
+     *
+     * @return The delete statement.
+     */
+    public JFSDeleteStatement getDeleteStatement() {
+        return deleteStatement;
+    }
+
+
+    /**
+     * Returns all copy statements replaced by this move statement.
+     *
+     * @return The replaced copy statements.
+     */
+    public List<JFSCopyStatement> getCopyStatements() {
+        return copyStatements;
+    }
+
+
+    /**
+     * Returns all delete statements replaced by this move statement.
+     *
+     * @return The replaced delete statements.
+     */
+    public List<JFSDeleteStatement> getDeleteStatements() {
+        return deleteStatements;
+    }
+
+
+    /**
+     * Returns the file or directory to move.
+     *
+     * @return The file at the old path.
+     */
+    public JFSFile getFile() {
+        return deleteStatement.getFile();
+    }
+
+
+    /**
+     * Returns the relative path to move the file or directory to.
+     *
+     * @return The new relative path.
+     */
+    public String getRelativePath() {
+        return copyStatement.getSrc().getRelativePath();
+    }
+
+
+    /**
+     * Returns whether the move has to be performed. This is the case if all replaced statements have to be performed
+     * and none of them was performed yet.
+     *
+     * @return True if the move has to be performed.
+     */
+    public boolean isPending() {
+        if (success) {
+            return false;
+        }
+        for (JFSCopyStatement cs : copyStatements) {
+            if (!cs.getCopyFlag()||cs.getSuccess()) {
+                return false;
+            }
+        }
+        for (JFSDeleteStatement ds : deleteStatements) {
+            if (!ds.getDeleteFlag()||ds.getSuccess()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Returns the state of the success flag.
+     *
+     * @return The success flag.
+     */
+    public final boolean getSuccess() {
+        return success;
+    }
+
+
+    /**
+     * Sets the state of the success flag. If the boolean value is true the file or directory was successfully moved.
+     *
+     * @param success
+     * The success flag.
+     */
+    public final void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Counter, latency histogram, and transferred bytes of one operation of one scheme.
+ *
+ * The latencies are kept in buckets with exponentially growing limits, so percentiles are reported as the upper limit
+ * of the bucket they fall into.
+ */
+public class JFSOperationMetrics implements JFSOperationMetricsMXBean {
+
+    private static final int BUCKETS = 32;
+
+    private static final double NANOS_PER_MILLI = 1.0E6;
+
+    private final String scheme;
+
+    private final JFSMetrics.Operation operation;
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder nanos = new LongAdder();
+
+    private final LongAdder bytes = new LongAdder();
+
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+
+    JFSOperationMetrics(String scheme, JFSMetrics.Operation operation) {
+        this.scheme = scheme;
+        this.operation = operation;
+        for (int i = 0; i<BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        } // for
+    } // JFSOperationMetrics()
+
+
+    public String getScheme() {
+        return scheme;
+    }
+
+
+    public JFSMetrics.Operation getOperation() {
+        return operation;
+    }
+
+
+    /**
+     * Take note of one call of the operation.
+     *
+     * @param duration duration of the call in nanoseconds
+     */
+    public void record(long duration) {
+        count.increment();
+        nanos.add(duration);
+        max.accumulate(duration);
+        long micros = duration/1000;
+        buckets[Math.min(BUCKETS-1, 64-Long.numberOfLeadingZeros(micros))].increment();
+    } // record()
+
+
+    /**
+     * Take note of bytes transferred through the operation.
+     *
+     * @param transferred number of bytes
+     */
+    public void addBytes(long transferred) {
+        bytes.add(transferred);
+    } // addBytes()
+
+
+    /**
+     * Wrap the given stream to count the bytes read.
+     *
+     * @param input stream to wrap - may be null
+     * @return counting stream
+     */
+    public InputStream countBytes(InputStream input) {
+        if (input==null) {
+            return null;
+        } // if
+        return new FilterInputStream(input) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b>=0) {
+                    bytes.increment();
+                } // if
+                return b;
+            } // read()
+
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = in.read(b, off, len);
+                if (n>0) {
+                    bytes.add(n);
+                } // if
+                return n;
+            } // read()
+
+        };
+    } // countBytes()
+
+
+    /**
+     * Wrap the given stream to count the bytes written.
+     *
+     * @param output stream to wrap - may be null
+     * @return counting stream
+     */
+    public OutputStream countBytes(OutputStream output) {
+        if (output==null) {
+            return null;
+        } // if
+        return new FilterOutputStream(output) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                bytes.increment();
+            } // write()
+
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                bytes.add(len);
+            } // write()
+
+        };
+    } // countBytes()
+
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+
+    @Override
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+
+    @Override
+    public double getTotalMillis() {
+        return nanos.sum()/NANOS_PER_MILLI;
+    }
+
+
+    @Override
+    public double getMeanMillis() {
+        long calls = count.sum();
+        return calls==0 ? 0 : nanos.sum()/NANOS_PER_MILLI/calls;
+    } // getMeanMillis()
+
+
+    @Override
+    public double getMaxMillis() {
+        return max.get()/NANOS_PER_MILLI;
+    }
+
+
+    /**
+     * Upper limit of the bucket containing the given percentile of the calls.
+     *
+     * @param percentile percentile between 0 and 100
+     * @return latency in milliseconds
+     */
+    public double getPercentileMillis(double percentile) {
+        long[] histogram = getHistogram();
+        long calls = 0;
+        for (long c : histogram) {
+            calls += c;
+        } // for
+        long limit = (long) Math.ceil(calls*percentile/100.0);
+        long sum = 0;
+        for (int i = 0; i<histogram.length; i++) {
+            sum += histogram[i];
+            if ((sum>=limit)&&(sum>0)) {
+                return Math.min((1L<<i)/1000.0, getMaxMillis());
+            } // if
+        } // for
+        return 0;
+    } // getPercentileMillis()
+
+
+    @Override
+    public double getMedianMillis() {
+        return getPercentileMillis(50);
+    }
+
+
+    @Override
+    public double getPercentile90Millis() {
+        return getPercentileMillis(90);
+    }
+
+
+    @Override
+    public double getPercentile99Millis() {
+        return getPercentileMillis(99);
+    }
+
+
+    @Override
+    public long[] getHistogram() {
+        long[] histogram = new long[BUCKETS];
+        for (int i = 0; i<BUCKETS; i++) {
+            histogram[i] = buckets[i].sum();
+        } // for
+        return histogram;
+    } // getHistogram()
+
+
+    @Override
+    public void reset() {
+        count.reset();
+        nanos.reset();
+        bytes.reset();
+        max.reset();
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        } // for
+    } // reset()
+
+} // JFSOperationMetrics
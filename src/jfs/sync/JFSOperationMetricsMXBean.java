@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync;
+
+/**
+ * Management interface of the metrics of one operation of one scheme.
+ */
+public interface JFSOperationMetricsMXBean {
+
+    long getCount();
+
+
+    long getBytes();
+
+
+    double getTotalMillis();
+
+
+    double getMeanMillis();
+
+
+    double getMaxMillis();
+
+
+    double getMedianMillis();
+
+
+    double getPercentile90Millis();
+
+
+    double getPercentile99Millis();
+
+
+    /**
+     * Number of calls per latency bucket. Bucket i counts calls shorter than 2^i microseconds.
+     *
+     * @return histogram of the latencies
+     */
+    long[] getHistogram();
+
+
+    void reset();
+
+} // JFSOperationMetricsMXBean
@@ -18,23 +18,43 @@
  */
 package jfs.sync;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import jfs.JFileSync;
 import jfs.conf.JFSConst;
 import jfs.conf.JFSSettings;
 import jfs.conf.JFSText;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 /**
  * Visits selected steps of the file comparison and synchronization algorithm in order to compute the state of the
  * progression.
  *
+ * The algorithm only updates the counters of the monitors, which is cheap and safe from several threads. While an
+ * activity is performed, a single sampling thread notifies the observers at a fixed rate.
+ *
  * @author Jens Heidrich
  * @version $Id: JFSProgress.java,v 1.24 2007/07/20 12:27:52 heidrich Exp $
  */
 public final class JFSProgress {
 
+    private static final Logger LOG = LoggerFactory.getLogger(JFSProgress.class);
+
+    /**
+     * The thread notifying the observers while an activity is performed.
+     */
+    private static final ScheduledExecutorService SAMPLER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "JFS progress");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     /**
      * Stores the only instance of the class.
      *
@@ -50,37 +70,37 @@ public final class JFSProgress {
     /**
      * The current activity
      */
-    private ProgressActivity activity = ProgressActivity.INITIALIZATION;
+    private volatile ProgressActivity activity = ProgressActivity.INITIALIZATION;
 
     /**
      * The current state
      */
-    private ProgressState state = ProgressState.ACTIVE;
+    private volatile ProgressState state = ProgressState.ACTIVE;
 
     /**
      * Duration to compute the table.
      */
-    private long duration = 0;
+    private volatile long duration = 0;
 
     /**
      * Starting time.
      */
-    private long startTime = 0;
+    private volatile long startTime = 0;
 
     /**
      * Determines whether the algorithm is canceled or not.
      */
-    private boolean canceled = false;
+    private volatile boolean canceled = false;
 
     /**
      * Vector with all oberservers of the alogorithm's progress.
      */
-    private final List<JFSProgressObserver> observers = new ArrayList<>();
+    private final List<JFSProgressObserver> observers = new CopyOnWriteArrayList<>();
 
     /**
-     * The time when the observers were updated last.
+     * The periodic notification of the observers for the currently performed activity.
      */
-    private long updateTime = 0;
+    private ScheduledFuture<?> sampling = null;
 
 
     /**
@@ -143,10 +163,10 @@ public final class JFSProgress {
      * The type of activity to start.
      */
     void prepare(ProgressActivity activity) {
+        stopSampling();
         this.activity = activity;
         this.state = ProgressState.PREPARATION;
         canceled = false;
-        updateTime = 0;
         duration = 0;
         update();
     }
@@ -159,6 +179,8 @@ public final class JFSProgress {
         state = ProgressState.ACTIVE;
         startTime = System.currentTimeMillis();
         update();
+        sampling = SAMPLER.scheduleAtFixedRate(this::sample, JFSConst.PROGRESS_UPDATE, JFSConst.PROGRESS_UPDATE,
+                TimeUnit.MILLISECONDS);
     }
 
 
@@ -166,6 +188,7 @@ public final class JFSProgress {
      * Ends a progress computation.
      */
     void end() {
+        stopSampling();
         state = ProgressState.DONE;
         duration = System.currentTimeMillis()-startTime;
         update();
@@ -276,13 +299,28 @@ public final class JFSProgress {
 
 
     /**
-     * Sends a message to all existing observers that the algorithm's state was updated, if and only if a minimum time
-     * period between two subsequent updates is gone.
+     * Stops the periodic notification of the observers.
+     */
+    private void stopSampling() {
+        if (sampling!=null) {
+            sampling.cancel(false);
+            sampling = null;
+        }
+    }
+
+
+    /**
+     * Sends a message to all existing observers that the algorithm's state was updated while an activity is performed.
+     * Called periodically by the sampling thread.
      */
-    void fireUpdate() {
-        if ((System.currentTimeMillis()-updateTime)>=JFSConst.PROGRESS_UPDATE) {
-            updateTime = System.currentTimeMillis();
-            update();
+    private synchronized void sample() {
+        try {
+            if (state==ProgressState.ACTIVE) {
+                update();
+            }
+        } catch (RuntimeException e) {
+            // Keep sampling
+            LOG.error("sample()", e);
         }
     }
 
@@ -290,7 +328,7 @@ public final class JFSProgress {
     /**
      * Updates the current state of the algorithm for all existing observers.
      */
-    private void update() {
+    private synchronized void update() {
         // Wait if debugging is enabled and output progress information:
         if (JFSSettings.getInstance().isDebug()) {
             JFileSync.busyWait(1000);
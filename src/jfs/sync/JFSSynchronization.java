@@ -18,7 +18,9 @@
  */
 package jfs.sync;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import jfs.conf.JFSConfig;
 import jfs.conf.JFSHistoryManager;
 import jfs.conf.JFSSyncMode.SyncAction;
@@ -96,8 +98,10 @@ public final class JFSSynchronization {
         JFSTable table = JFSTable.getInstance();
         List<JFSCopyStatement> copyStatements = table.getCopyStatements();
         List<JFSDeleteStatement> deleteStatements = table.getDeleteStatements();
+        List<JFSMoveStatement> moveStatements = table.getMoveStatements();
         copyStatements.clear();
         deleteStatements.clear();
+        moveStatements.clear();
         boolean skipAll = false;
 
         // Go through table and compute actions:
@@ -154,6 +158,107 @@ public final class JFSSynchronization {
         // The list of delete statements has to be inverted, because the
         // directories must be empty before they can be deleted:
         invert(deleteStatements);
+
+        // Move files instead of copying and deleting them where possible:
+        if (JFSConfig.getInstance().isDetectMoves()) {
+            moveStatements.addAll(new JFSMoveDetection(copyStatements, deleteStatements).computeMoveStatements(copyStatements));
+        }
+    }
+
+
+    /**
+     * Updates the element of a successfully performed copy statement in the comparison table.
+     *
+     * @param cs
+     * The performed copy statement.
+     * @param file
+     * The new file on the side copied to or null if the files of the element are unchanged.
+     */
+    private static void updateCopiedElement(JFSCopyStatement cs, JFSFile file) {
+        JFSElement element = cs.getElement();
+        if (file!=null) {
+            if (cs.isCopyFromSource()) {
+                element.setTgtFile(file);
+            } else {
+                element.setSrcFile(file);
+            }
+        }
+
+        // Revalidate element, compute action and update view:
+        element.revalidate();
+        JFSSyncModes.getInstance().getCurrentMode().computeAction(element);
+        JFSTable.getInstance().updateElement(element);
+    }
+
+
+    /**
+     * Creates the missing parent directories of an element on the side copied to by performing their copy statements.
+     *
+     * @param element
+     * The element whose parent directories are needed.
+     * @param copyFromSource
+     * Determines whether the directories are needed on the target side (true) or the source side (false).
+     * @param directories
+     * The copy statements of directories by element.
+     * @return True if all parent directories exist.
+     */
+    private static boolean createParentDirectories(JFSElement element, boolean copyFromSource,
+            Map<JFSElement, JFSCopyStatement> directories) {
+        JFSElement parent = element.getParent();
+        if (parent==null||parent.isRoot()||(copyFromSource ? parent.getTgtFile() : parent.getSrcFile())!=null) {
+            return true;
+        }
+        JFSCopyStatement cs = directories.get(parent);
+        if (cs==null||cs.isCopyFromSource()!=copyFromSource||!cs.getCopyFlag()
+                ||!createParentDirectories(parent, copyFromSource, directories)) {
+            return false;
+        }
+        if (!cs.getSuccess()) {
+            cs.setSuccess(cs.getSrc().copy(cs.getTgt()));
+            if (cs.getSuccess()) {
+                updateCopiedElement(cs, cs.getTgt());
+            }
+        }
+        return cs.getSuccess();
+    }
+
+
+    /**
+     * Moves a file or directory and updates the elements of all replaced statements.
+     *
+     * @param ms
+     * The move statement to perform.
+     * @param directories
+     * The copy statements of directories by element.
+     * @return True if the file or directory was moved.
+     */
+    private static boolean move(JFSMoveStatement ms, Map<JFSElement, JFSCopyStatement> directories) {
+        JFSCopyStatement moved = ms.getCopyStatement();
+        if (!createParentDirectories(moved.getElement(), moved.isCopyFromSource(), directories)
+                ||!ms.getFile().renameTo(ms.getRelativePath())) {
+            return false;
+        }
+
+        JFSFileProducer producer = ms.getFile().getFileProducer();
+        for (JFSCopyStatement cs : ms.getCopyStatements()) {
+            JFSFile src = cs.getSrc();
+            JFSFile file = producer.getJfsFile(src.getRelativePath(), src.isDirectory());
+
+            // Moving might not keep the modification date, e.g. if contents
+            // have to be re-encrypted:
+            if (!file.isDirectory()&&JFSElement.compareToTime(src.getLastModified(), file.getLastModified())!=0) {
+                file.setLastModified(src.getLastModified());
+            }
+            cs.setSuccess(true);
+            updateCopiedElement(cs, file);
+        }
+        JFSTable table = JFSTable.getInstance();
+        for (JFSDeleteStatement ds : ms.getDeleteStatements()) {
+            ds.setSuccess(true);
+            ds.getElement().setAction(SyncAction.NOP);
+            table.removeElement(ds.getElement());
+        }
+        return true;
     }
 
 
@@ -167,6 +272,7 @@ public final class JFSSynchronization {
         JFSTable table = JFSTable.getInstance();
         List<JFSCopyStatement> copyStatements = table.getCopyStatements();
         List<JFSDeleteStatement> deleteStatements = table.getDeleteStatements();
+        List<JFSMoveStatement> moveStatements = table.getMoveStatements();
 
         // Handle all files to delete first:
         // (This is important for DOS and Windows Operating Systems.
@@ -188,6 +294,26 @@ public final class JFSSynchronization {
         boolean success;
         int i = 0;
 
+        // Move files before deleting, since the directories they are moved
+        // from might be deleted afterwards:
+        Map<JFSElement, JFSCopyStatement> directories = new HashMap<>();
+        if (!moveStatements.isEmpty()) {
+            for (JFSCopyStatement cs : copyStatements) {
+                if (cs.getSrc().isDirectory()) {
+                    directories.put(cs.getElement(), cs);
+                }
+            }
+        }
+        while (i<moveStatements.size()&&!progress.isCanceled()) {
+            JFSMoveStatement ms = moveStatements.get(i);
+            if (ms.isPending()) {
+                dm.setCurrentFile(ms.getFile());
+                ms.setSuccess(move(ms, directories));
+            }
+            i++;
+        }
+        i = 0;
+
         while (i<deleteStatements.size()&&!progress.isCanceled()) {
             JFSDeleteStatement ds = deleteStatements.get(i);
             dm.setCurrentFile(ds.getFile());
@@ -208,7 +334,6 @@ public final class JFSSynchronization {
 
             i++;
             dm.setFilesDeleted(i);
-            progress.fireUpdate();
         }
         progress.end();
 
@@ -225,36 +350,52 @@ public final class JFSSynchronization {
             JFSCopyStatement cs = copyStatements.get(i);
             cm.setCurrentSrc(cs.getSrc());
             cm.setCurrentTgt(cs.getTgt());
-            cm.setBytesTransferedCurrentFile(0);
+            cm.resetBytesTransferedCurrentFile();
 
             // Copy only if the copy flag is set and the success flag is false:
             if (cs.getCopyFlag()&&!cs.getSuccess()) {
-                cm.setBytesToTransferCurrentFile(cs.getSrc().getLength());
-                success = cs.getSrc().copy(cs.getTgt());
+                JFSElement element = cs.getElement();
+                boolean timestampOnly = cs.isTimestampOnly();
+
+                // Adjust only the modification date if the contents are
+                // known to be equal and fall back to copying if this fails:
+                if (timestampOnly) {
+                    JFSFile existing = cs.isCopyFromSource() ? element.getTgtFile() : element.getSrcFile();
+                    timestampOnly = existing.setLastModified(cs.getSrc().getLastModified());
+                    if (!timestampOnly) {
+                        cm.setBytesToTransfer(cm.getBytesToTransfer()+cs.getSrc().getLength());
+                    }
+                }
+                if (timestampOnly) {
+                    cm.setBytesToTransferCurrentFile(0);
+                    success = true;
+                } else {
+                    cm.setBytesToTransferCurrentFile(cs.getSrc().getLength());
+                    success = cs.getSrc().copy(cs.getTgt());
+                }
                 cs.setSuccess(success);
 
                 // Update table element if action was successfully performed:
                 if (success) {
-                    JFSElement element = cs.getElement();
-                    if (cs.isCopyFromSource()) {
-                        element.setTgtFile(cs.getTgt());
-                    } else {
-                        element.setSrcFile(cs.getTgt());
-                    }
-
-                    // Revalidate element, compute action and update view:
-                    element.revalidate();
-                    JFSSyncModes.getInstance().getCurrentMode().computeAction(element);
-                    table.updateElement(cs.getElement());
+                    updateCopiedElement(cs, timestampOnly ? null : cs.getTgt());
                 }
-                cm.setBytesTransfered(cm.getBytesTransfered()+cm.getBytesToTransferCurrentFile());
+                cm.resetBytesTransferedCurrentFile();
+                cm.addBytesTransfered(cm.getBytesToTransferCurrentFile());
             }
             i++;
-            cm.setFilesCopied(i);
-            progress.fireUpdate();
+            cm.incrementFilesCopied();
         }
         progress.end();
 
+        // Let producers keep state for the next run only after complete synchronizations:
+        if (!progress.isCanceled()) {
+            for (int r = 0; r<table.getRootsSize(); r++) {
+                JFSRootElement root = table.getRootElement(r);
+                root.getSrcProducer().synchronizationDone();
+                root.getTgtProducer().synchronizationDone();
+            }
+        }
+
         // Store the history, even if the synchronization process was
         // cancelled:
         if (config.isStoreHistory()) {
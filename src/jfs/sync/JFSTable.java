@@ -20,6 +20,7 @@ package jfs.sync;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import jfs.conf.JFSConfig;
 import jfs.conf.JFSConfigObserver;
 import jfs.conf.JFSSyncMode;
@@ -34,6 +35,9 @@ import jfs.conf.JFSViewModes;
  * comparison, the table is filled automatically. Before synchronization, the corresponding copy and delete statements
  * are computed. The class observes the configuration object. In case of changes, the object is updated accordingly.
  *
+ * All accessors are synchronized, so that the GUI can follow the view while the comparison fills it in another thread.
+ * The view version changes whenever the view is changed in other ways than appending elements.
+ *
  * @see jfs.conf.JFSConfig
  * @see jfs.sync.JFSComparison
  * @see jfs.sync.JFSSynchronization
@@ -69,6 +73,16 @@ public final class JFSTable implements JFSConfigObserver {
      */
     private final List<JFSElement> view = new ArrayList<>();
 
+    /**
+     * Version of the current view increased whenever elements are removed or the view is recomputed.
+     */
+    private int viewVersion = 0;
+
+    /**
+     * The observers of updates of single elements.
+     */
+    private final List<JFSTableObserver> observers = new CopyOnWriteArrayList<>();
+
     /**
      * The list of copy statements.
      */
@@ -79,6 +93,11 @@ public final class JFSTable implements JFSConfigObserver {
      */
     private final List<JFSDeleteStatement> deleteStatements = new ArrayList<>();
 
+    /**
+     * The list of move statements replacing copy and delete statements.
+     */
+    private final List<JFSMoveStatement> moveStatements = new ArrayList<>();
+
 
     /**
      * Creates a new table object.
@@ -102,12 +121,14 @@ public final class JFSTable implements JFSConfigObserver {
     /**
      * Restores the default values.
      */
-    public void clean() {
+    public synchronized void clean() {
         table.clear();
         view.clear();
+        viewVersion++;
 
         copyStatements.clear();
         deleteStatements.clear();
+        moveStatements.clear();
     }
 
 
@@ -118,7 +139,7 @@ public final class JFSTable implements JFSConfigObserver {
      * The index to return.
      * @return The element for the index.
      */
-    public JFSRootElement getRootElement(int index) {
+    public synchronized JFSRootElement getRootElement(int index) {
         return roots.get(index);
     }
 
@@ -130,7 +151,7 @@ public final class JFSTable implements JFSConfigObserver {
      * The index to return.
      * @return The element for the index.
      */
-    public JFSElement getTableElement(int index) {
+    public synchronized JFSElement getTableElement(int index) {
         return table.get(index);
     }
 
@@ -142,15 +163,35 @@ public final class JFSTable implements JFSConfigObserver {
      * The index to return.
      * @return The element for the index.
      */
-    public JFSElement getViewElement(int index) {
+    public synchronized JFSElement getViewElement(int index) {
         return view.get(index);
     }
 
 
+    /**
+     * Returns the elements of the current view starting at a given index.
+     *
+     * @param from
+     * The index of the first element to return.
+     * @return A copy of the elements of the view from the given index on.
+     */
+    public synchronized List<JFSElement> getViewElements(int from) {
+        return new ArrayList<>(view.subList(from, view.size()));
+    }
+
+
+    /**
+     * @return Returns the version of the current view.
+     */
+    public synchronized int getViewVersion() {
+        return viewVersion;
+    }
+
+
     /**
      * @return Returns the number of JFS root elements.
      */
-    public int getRootsSize() {
+    public synchronized int getRootsSize() {
         return roots.size();
     }
 
@@ -158,7 +199,7 @@ public final class JFSTable implements JFSConfigObserver {
     /**
      * @return Returns the size of the overall table.
      */
-    public int getTableSize() {
+    public synchronized int getTableSize() {
         return table.size();
     }
 
@@ -166,7 +207,7 @@ public final class JFSTable implements JFSConfigObserver {
     /**
      * @return Returns the size of the current view.
      */
-    public int getViewSize() {
+    public synchronized int getViewSize() {
         return view.size();
     }
 
@@ -205,7 +246,7 @@ public final class JFSTable implements JFSConfigObserver {
      * @param element
      * The element to add.
      */
-    public void addElement(JFSElement element) {
+    public synchronized void addElement(JFSElement element) {
         JFSSyncModes.getInstance().getCurrentMode().computeAction(element);
         table.add(element);
         addElementToView(element);
@@ -218,7 +259,7 @@ public final class JFSTable implements JFSConfigObserver {
      * @param element
      * The element to add.
      */
-    public void addRoot(JFSRootElement element) {
+    public synchronized void addRoot(JFSRootElement element) {
         roots.add(element);
         addElement(element);
         element.setViewed(true);
@@ -244,6 +285,7 @@ public final class JFSTable implements JFSConfigObserver {
                 }
             }
             view.remove(element);
+            viewVersion++;
             element.setViewed(false);
         }
 
@@ -261,7 +303,7 @@ public final class JFSTable implements JFSConfigObserver {
      * @param element
      * The element to remove.
      */
-    public void removeElement(JFSElement element) {
+    public synchronized void removeElement(JFSElement element) {
         table.remove(element);
         removeElementFromView(element);
     }
@@ -270,16 +312,42 @@ public final class JFSTable implements JFSConfigObserver {
     /**
      * Updates a certain JFS element and its parent in the current view. If the element was part of the current view and
      * should not be viewed any more, it is removed from the view. Note, that if it was not viewed before and should be
-     * viewed now, the view is not changed. You have to re-compute the whole view again in this case.
+     * viewed now, the view is not changed. You have to re-compute the whole view again in this case. The attached
+     * observers are informed about the update.
      *
      * @param element
      * The element to update.
      */
-    public void updateElement(JFSElement element) {
+    public synchronized void updateElement(JFSElement element) {
         JFSViewMode mode = JFSViewModes.getInstance().getCurrentMode();
         if (!mode.isViewed(element.getAction())) {
             removeElementFromView(element);
         }
+        for (JFSTableObserver observer : observers) {
+            observer.updateElement(element);
+        }
+    }
+
+
+    /**
+     * Attaches an observer of updates of single elements.
+     *
+     * @param observer
+     * The observer to attach.
+     */
+    public void attach(JFSTableObserver observer) {
+        observers.add(observer);
+    }
+
+
+    /**
+     * Detaches an observer of updates of single elements.
+     *
+     * @param observer
+     * The observer to detach.
+     */
+    public void detach(JFSTableObserver observer) {
+        observers.remove(observer);
     }
 
 
@@ -299,6 +367,14 @@ public final class JFSTable implements JFSConfigObserver {
     }
 
 
+    /**
+     * @return Returns all move statements.
+     */
+    public List<JFSMoveStatement> getMoveStatements() {
+        return moveStatements;
+    }
+
+
     /**
      * @return Returns all failed copy statements.
      */
@@ -334,8 +410,9 @@ public final class JFSTable implements JFSConfigObserver {
     /**
      * Re-computes the current view for all elements of the comparison table.
      */
-    public void recomputeView() {
+    public synchronized void recomputeView() {
         view.clear();
+        viewVersion++;
         for (JFSElement element : table) {
             element.setViewed(false);
             addElementToView(element);
@@ -346,8 +423,9 @@ public final class JFSTable implements JFSConfigObserver {
     /**
      * Re-computes all actions and the current view for all elements of the comparison table.
      */
-    public void recomputeActionsAndView() {
+    public synchronized void recomputeActionsAndView() {
         view.clear();
+        viewVersion++;
         JFSSyncMode mode = JFSSyncModes.getInstance().getCurrentMode();
         for (JFSElement element : table) {
             mode.computeAction(element);
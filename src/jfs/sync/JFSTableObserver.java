@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync;
+
+/**
+ * An interface for all observers of updates of single elements of the synchronization table.
+ */
+public interface JFSTableObserver {
+
+    /**
+     * This method is called when the files or the action of an element of the table were updated. It is called in the
+     * thread updating the table.
+     *
+     * @param element
+     * The updated element.
+     */
+    void updateElement(JFSElement element);
+
+}
@@ -19,9 +19,7 @@ package jfs.sync.dav;
 
 import com.github.sardine.DavResource;
 import com.github.sardine.Sardine;
-import com.github.sardine.SardineFactory;
 import com.github.sardine.impl.SardineException;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -36,7 +34,9 @@ import jfs.conf.JFSConfig;
 import jfs.sync.encryption.AbstractMetaStorageAccess;
 import jfs.sync.encryption.ExtendedFileInfo;
 import jfs.sync.encryption.StorageAccess;
+import jfs.sync.util.DavOutputStream;
 import jfs.sync.util.DavUtils;
+import jfs.sync.util.PooledSardine;
 import jfs.sync.util.WindowsProxySelector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -66,7 +66,7 @@ public class DavStorageAccess extends AbstractMetaStorageAccess implements Stora
         if (sardine==null) {
             String username = JFSConfig.getInstance().getServerUserName();
             String passphrase = JFSConfig.getInstance().getServerPassPhrase();
-            sardine = SardineFactory.begin(username, passphrase, WindowsProxySelector.getInstance());
+            sardine = new PooledSardine(username, passphrase, WindowsProxySelector.getInstance());
             LOG.debug("getSardine() webdav client {}", sardine);
         } // if
         return sardine;
@@ -288,7 +288,7 @@ public class DavStorageAccess extends AbstractMetaStorageAccess implements Stora
     @Override
     protected OutputStream getOutputStream(String rootPath, final String relativePath, final boolean forPayload) throws IOException {
         LOG.debug("getOutputStream() {}", relativePath);
-        final String url = getUrl(rootPath, relativePath);
+        String url = getUrl(rootPath, relativePath);
         String[] pathAndName = getPathAndName(relativePath);
         if (forPayload&&(!getSardine().exists(url))) {
             ExtendedFileInfo info = createFileInfo(rootPath, relativePath, pathAndName);
@@ -298,16 +298,7 @@ public class DavStorageAccess extends AbstractMetaStorageAccess implements Stora
             flushMetaData(rootPath, pathAndName, listing);
             LOG.debug("getOutputStream() getting output stream for {} {}", url, info);
         } // if
-        ByteArrayOutputStream result = new ByteArrayOutputStream() {
-            @Override
-            public void close() throws IOException {
-                super.close();
-                byte[] data = this.toByteArray();
-                LOG.debug("getOutputStream().close() {}", data.length);
-                getSardine().put(url, data);
-            }
-        };
-        return result;
+        return new DavOutputStream(getSardine(), url, DavOutputStream.UNKNOWN_LENGTH, JFSConfig.getInstance().getBufferSize());
     } // getOutputStream()
 
 } // DavStorageAccess
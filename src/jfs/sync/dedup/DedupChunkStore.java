@@ -0,0 +1,278 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync.dedup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import jfs.sync.util.SecurityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Content addressed store of encrypted chunks.
+ *
+ * Each chunk is identified by the keyed hash of its plain contents and encrypted with a key derived from that hash, so
+ * equal chunks are stored exactly once and anything already present is never written again. Chunks are compressed
+ * before encryption if this saves space, and their hash is verified when they are read back.
+ */
+public class DedupChunkStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DedupChunkStore.class);
+
+    private static final String HMAC = "HmacSHA256";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final byte STORED = 0;
+
+    private static final byte DEFLATED = 1;
+
+    private static final byte[] CHUNKER_SEED_INPUT = {'g', 'e', 'a', 'r'};
+
+    private final DedupStorageAccess storageAccess;
+
+    private final String rootPath;
+
+    private final String cipherSpec;
+
+    private final SecretKeySpec hashKey;
+
+    private long chunksStored;
+
+    private long chunksSkipped;
+
+    private long bytesStored;
+
+    private long bytesSkipped;
+
+
+    public DedupChunkStore(DedupStorageAccess storageAccess, String rootPath) {
+        this.storageAccess = storageAccess;
+        this.rootPath = rootPath;
+        this.cipherSpec = storageAccess.getCipherSpec();
+        this.hashKey = new SecretKeySpec(storageAccess.getChunkCredentials(), HMAC);
+    } // DedupChunkStore()
+
+
+    private Mac getMac() throws IOException {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(hashKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Cannot create keyed hash", e);
+        } // try/catch
+    } // getMac()
+
+
+    private static String toHex(byte[] bytes) {
+        char[] result = new char[bytes.length*2];
+        for (int i = 0; i<bytes.length; i++) {
+            result[2*i] = HEX[(bytes[i]>>4)&0x0f];
+            result[2*i+1] = HEX[bytes[i]&0x0f];
+        } // for
+        return new String(result);
+    } // toHex()
+
+
+    /**
+     * Derive the seed for the content defined chunk boundaries from the store credentials, so that the boundaries
+     * don't reveal anything about the contents.
+     *
+     * @return seed for the chunker
+     */
+    public long getChunkerSeed() throws IOException {
+        byte[] bytes = getMac().doFinal(CHUNKER_SEED_INPUT);
+        long seed = 0;
+        for (int i = 0; i<8; i++) {
+            seed = (seed<<8)|(bytes[i]&0xff);
+        } // for
+        return seed;
+    } // getChunkerSeed()
+
+
+    private Cipher getCipher(boolean decrypt, String id) throws IOException {
+        try {
+            // Chunk keys are derived from the keyed hash, so no key is used for different contents
+            Mac mac = getMac();
+            byte[] credentials = mac.doFinal(id.getBytes("UTF-8"));
+            return SecurityUtils.getCipher(cipherSpec, decrypt, credentials);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Cannot create cipher for chunk "+id, e);
+        } // try/catch
+    } // getCipher()
+
+
+    /**
+     * Store the given chunk unless it is already present.
+     *
+     * @param data buffer holding the chunk
+     * @param length length of the chunk in the buffer
+     * @return keyed hash of the chunk
+     * @throws IOException on write errors
+     */
+    public String put(byte[] data, int length) throws IOException {
+        Mac mac = getMac();
+        mac.update(data, 0, length);
+        String id = toHex(mac.doFinal());
+        if (storageAccess.hasChunk(rootPath, id)) {
+            chunksSkipped++;
+            bytesSkipped += length;
+            LOG.debug("put() skipping {} ({} bytes)", id, length);
+            return id;
+        } // if
+        byte[] plain = null;
+        if (length>1) {
+            Deflater deflater = new Deflater();
+            try {
+                deflater.setInput(data, 0, length);
+                deflater.finish();
+                byte[] compressed = new byte[length];
+                int compressedLength = deflater.deflate(compressed, 1, length-1);
+                if (deflater.finished()) {
+                    compressed[0] = DEFLATED;
+                    plain = compressed;
+                    length = compressedLength;
+                } // if
+            } finally {
+                deflater.end();
+            } // try/finally
+        } // if
+        if (plain==null) {
+            plain = new byte[length+1];
+            plain[0] = STORED;
+            System.arraycopy(data, 0, plain, 1, length);
+        } // if
+        try {
+            byte[] encrypted = getCipher(false, id).doFinal(plain, 0, length+1);
+            storageAccess.storeChunk(rootPath, id, encrypted);
+            chunksStored++;
+            bytesStored += encrypted.length;
+            LOG.debug("put() stored {} ({} bytes)", id, encrypted.length);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Cannot encrypt chunk "+id, e);
+        } // try/catch
+        return id;
+    } // put()
+
+
+    /**
+     * Read a chunk and verify its contents.
+     *
+     * @param id keyed hash of the chunk
+     * @param length plain length of the chunk
+     * @return plain contents of the chunk
+     * @throws IOException on read errors or if the chunk doesn't match its hash
+     */
+    public byte[] get(String id, int length) throws IOException {
+        byte[] encrypted;
+        try (InputStream is = storageAccess.getChunkInputStream(rootPath, id)) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(length+64);
+            byte[] bytes = new byte[8192];
+            int count;
+            while ((count = is.read(bytes))>=0) {
+                buffer.write(bytes, 0, count);
+            } // while
+            encrypted = buffer.toByteArray();
+        } // try
+        byte[] result = new byte[length];
+        try {
+            byte[] plain = getCipher(true, id).doFinal(encrypted);
+            if (plain.length>0&&plain[0]==DEFLATED) {
+                Inflater inflater = new Inflater();
+                try {
+                    inflater.setInput(plain, 1, plain.length-1);
+                    if ((inflater.inflate(result)!=length)||!inflater.finished()) {
+                        throw new IOException("Unexpected length of chunk "+id);
+                    } // if
+                } finally {
+                    inflater.end();
+                } // try/finally
+            } else if (plain.length==length+1) {
+                System.arraycopy(plain, 1, result, 0, length);
+            } else {
+                throw new IOException("Unexpected length of chunk "+id);
+            } // if
+        } catch (GeneralSecurityException|DataFormatException e) {
+            throw new IOException("Cannot decrypt chunk "+id, e);
+        } // try/catch
+        Mac mac = getMac();
+        if (!MessageDigest.isEqual(mac.doFinal(result), fromHex(id))) {
+            throw new IOException("Corrupt chunk "+id);
+        } // if
+        return result;
+    } // get()
+
+
+    private static byte[] fromHex(String id) {
+        byte[] result = new byte[id.length()/2];
+        for (int i = 0; i<result.length; i++) {
+            result[i] = (byte) Integer.parseInt(id.substring(2*i, 2*i+2), 16);
+        } // for
+        return result;
+    } // fromHex()
+
+
+    /**
+     * Remove all chunks not referenced anymore.
+     *
+     * @param referenced hashes of all chunks referenced by the manifests of the tree
+     * @return number of removed chunks
+     */
+    public int removeUnreferenced(Set<String> referenced) {
+        int count = 0;
+        for (String id : storageAccess.listChunks(rootPath)) {
+            if (!referenced.contains(id)&&storageAccess.deleteChunk(rootPath, id)) {
+                count++;
+            } // if
+        } // for
+        return count;
+    } // removeUnreferenced()
+
+
+    public long getChunksStored() {
+        return chunksStored;
+    }
+
+
+    public long getChunksSkipped() {
+        return chunksSkipped;
+    }
+
+
+    public long getBytesStored() {
+        return bytesStored;
+    }
+
+
+    public long getBytesSkipped() {
+        return bytesSkipped;
+    }
+
+} // DedupChunkStore
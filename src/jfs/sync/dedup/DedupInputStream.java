@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync.dedup;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+
+/**
+ * Input stream reading the chunks of a manifest from the chunk store one after the other.
+ */
+public class DedupInputStream extends InputStream {
+
+    private final DedupChunkStore store;
+
+    private final DedupManifest manifest;
+
+    private int index;
+
+    private byte[] chunk = new byte[0];
+
+    private int position;
+
+
+    public DedupInputStream(DedupChunkStore store, DedupManifest manifest) {
+        this.store = store;
+        this.manifest = manifest;
+    } // DedupInputStream()
+
+
+    /**
+     * Load the next chunk if the current one has been read completely.
+     *
+     * @return false at the end of the contents
+     */
+    private boolean fill() throws IOException {
+        while (position>=chunk.length) {
+            if (index>=manifest.size()) {
+                return false;
+            } // if
+            chunk = store.get(manifest.getId(index), manifest.getLength(index));
+            position = 0;
+            index++;
+        } // while
+        return true;
+    } // fill()
+
+
+    @Override
+    public int read() throws IOException {
+        return fill() ? chunk[position++]&0xff : -1;
+    } // read()
+
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len==0) {
+            return 0;
+        } // if
+        if (!fill()) {
+            return -1;
+        } // if
+        int count = Math.min(len, chunk.length-position);
+        System.arraycopy(chunk, position, b, off, count);
+        position += count;
+        return count;
+    } // read()
+
+
+    @Override
+    public int available() {
+        return chunk.length-position;
+    } // available()
+
+} // DedupInputStream
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync.dedup;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Manifest of a file in the chunk store listing the chunks its contents consist of in their order.
+ */
+public class DedupManifest {
+
+    private static final int MARKER = 0x4a46534d;
+
+    private static final int VERSION = 1;
+
+    private final List<String> ids = new ArrayList<>();
+
+    private final List<Integer> lengths = new ArrayList<>();
+
+    private long length;
+
+
+    public void add(String id, int chunkLength) {
+        ids.add(id);
+        lengths.add(chunkLength);
+        length += chunkLength;
+    } // add()
+
+
+    public int size() {
+        return ids.size();
+    }
+
+
+    public String getId(int index) {
+        return ids.get(index);
+    }
+
+
+    public int getLength(int index) {
+        return lengths.get(index);
+    }
+
+
+    /**
+     * @return plain length of the whole file
+     */
+    public long getLength() {
+        return length;
+    }
+
+
+    public List<String> getIds() {
+        return ids;
+    }
+
+
+    public void write(OutputStream os) throws IOException {
+        DataOutputStream dos = new DataOutputStream(os);
+        dos.writeInt(MARKER);
+        dos.writeInt(VERSION);
+        dos.writeLong(length);
+        dos.writeInt(ids.size());
+        for (int i = 0; i<ids.size(); i++) {
+            dos.writeUTF(ids.get(i));
+            dos.writeInt(lengths.get(i));
+        } // for
+        dos.flush();
+    } // write()
+
+
+    public static DedupManifest read(InputStream is) throws IOException {
+        DataInputStream dis = new DataInputStream(is);
+        if ((dis.readInt()!=MARKER)||(dis.readInt()!=VERSION)) {
+            throw new IOException("Not a chunk manifest");
+        } // if
+        long expectedLength = dis.readLong();
+        int count = dis.readInt();
+        DedupManifest result = new DedupManifest();
+        for (int i = 0; i<count; i++) {
+            result.add(dis.readUTF(), dis.readInt());
+        } // for
+        if (result.getLength()!=expectedLength) {
+            throw new IOException("Inconsistent chunk manifest");
+        } // if
+        return result;
+    } // read()
+
+} // DedupManifest
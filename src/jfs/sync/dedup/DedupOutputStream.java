@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync.dedup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+
+/**
+ * Output stream splitting its contents into content defined chunks which are put into the chunk store.
+ *
+ * Chunk boundaries are found with a gear hash over the last 64 bytes, so inserting or removing data only changes the
+ * chunks around the modification and all other chunks of a file are found in the store again. The manifest of the
+ * chunks is passed on when the stream is closed.
+ */
+public class DedupOutputStream extends OutputStream {
+
+    public static final int MIN_CHUNK_SIZE = 16384;
+
+    public static final int MAX_CHUNK_SIZE = 262144;
+
+    /**
+     * Sixteen of the high bits - which depend on all of the last 64 bytes - lead to an average of 64kB on top of the
+     * minimum size.
+     */
+    private static final long BOUNDARY_MASK = 0xffff000000000000L;
+
+    /**
+     * The gear hash doesn't depend on any earlier bytes, so the first ones of a chunk don't need to be hashed.
+     */
+    private static final int HASH_START = MIN_CHUNK_SIZE-64;
+
+    /**
+     * Receiver of the manifest when the stream is closed.
+     */
+    public interface ManifestHandler {
+
+        void store(DedupManifest manifest) throws IOException;
+
+    } // ManifestHandler
+
+    private final DedupChunkStore store;
+
+    private final ManifestHandler handler;
+
+    private final long[] gear = new long[256];
+
+    private final byte[] buffer = new byte[MAX_CHUNK_SIZE];
+
+    private final DedupManifest manifest = new DedupManifest();
+
+    private int position;
+
+    private long hash;
+
+    private boolean closed;
+
+
+    public DedupOutputStream(DedupChunkStore store, long seed, ManifestHandler handler) {
+        this.store = store;
+        this.handler = handler;
+        Random random = new Random(seed);
+        for (int i = 0; i<gear.length; i++) {
+            gear[i] = random.nextLong();
+        } // for
+    } // DedupOutputStream()
+
+
+    private void cut() throws IOException {
+        manifest.add(store.put(buffer, position), position);
+        position = 0;
+        hash = 0;
+    } // cut()
+
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    } // write()
+
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        } // if
+        int end = off+len;
+        while (off<end) {
+            if (position<HASH_START) {
+                int count = Math.min(HASH_START-position, end-off);
+                System.arraycopy(b, off, buffer, position, count);
+                position += count;
+                off += count;
+            } else {
+                byte value = b[off++];
+                buffer[position++] = value;
+                hash = (hash<<1)+gear[value&0xff];
+                if (((position>=MIN_CHUNK_SIZE)&&((hash&BOUNDARY_MASK)==0))||(position==MAX_CHUNK_SIZE)) {
+                    cut();
+                } // if
+            } // if
+        } // while
+    } // write()
+
+
+    /**
+     * Store the remaining chunk and pass on the manifest.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        } // if
+        closed = true;
+        if (position>0) {
+            cut();
+        } // if
+        handler.store(manifest);
+    } // close()
+
+} // DedupOutputStream
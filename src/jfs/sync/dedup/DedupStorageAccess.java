@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync.dedup;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Set;
+import jfs.sync.meta.MetaFileStorageAccess;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Storage access for the deduplicating chunk store.
+ *
+ * Names and meta data of the tree are handled like in the meta data storage, with each file holding a small manifest
+ * of its contents. The chunks referenced by the manifests are stored once in a separate folder beneath the root named
+ * after their keyed hash and fanned out by the first two characters of the hash.
+ */
+public class DedupStorageAccess extends MetaFileStorageAccess {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DedupStorageAccess.class);
+
+    /**
+     * Encrypted names are always longer, so the folder cannot collide with any element of the tree.
+     */
+    public static final String CHUNK_FOLDER = ".chunks";
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final String CHUNKSALT = "x7#Gq{2]Lm_9Tz~Rb4(Dk-0Wv)Hs8!Fn@3Yc5%Pj6&Ae1=Uo";
+
+
+    public DedupStorageAccess(String cipher, boolean shortenPaths) {
+        super(cipher, shortenPaths);
+    } // DedupStorageAccess()
+
+
+    /**
+     * Credentials for the keyed hashes of the chunks and their encryption keys. They only depend on the pass phrase,
+     * so equal contents result in equal chunks anywhere in the tree.
+     *
+     * @return credentials for the chunk store
+     */
+    public byte[] getChunkCredentials() {
+        return getCredentials("", CHUNKSALT);
+    } // getChunkCredentials()
+
+
+    private File getChunkFolder(String rootPath) {
+        return new File(rootPath+getSeparator()+CHUNK_FOLDER);
+    } // getChunkFolder()
+
+
+    private File getChunkFile(String rootPath, String id) {
+        return new File(getChunkFolder(rootPath), id.substring(0, 2)+getSeparator()+id);
+    } // getChunkFile()
+
+
+    public boolean hasChunk(String rootPath, String id) {
+        return getChunkFile(rootPath, id).isFile();
+    } // hasChunk()
+
+
+    public InputStream getChunkInputStream(String rootPath, String id) throws IOException {
+        return new FileInputStream(getChunkFile(rootPath, id));
+    } // getChunkInputStream()
+
+
+    /**
+     * Store the encrypted data of a chunk. The chunk only becomes visible when it is complete, so interrupted writes
+     * never leave chunks which would be skipped later on.
+     *
+     * @param rootPath root of the store
+     * @param id keyed hash of the plain chunk
+     * @param data encrypted chunk
+     * @throws IOException on write errors
+     */
+    public void storeChunk(String rootPath, String id, byte[] data) throws IOException {
+        File file = getChunkFile(rootPath, id);
+        File folder = file.getParentFile();
+        if (!folder.isDirectory()&&!folder.mkdirs()&&!folder.isDirectory()) {
+            throw new IOException("Cannot create chunk folder "+folder);
+        } // if
+        File temp = new File(folder, id+TEMP_SUFFIX);
+        try (OutputStream os = new FileOutputStream(temp)) {
+            os.write(data);
+        } // try
+        if (!temp.renameTo(file)&&!file.isFile()) {
+            temp.delete();
+            throw new IOException("Cannot store chunk "+file);
+        } // if
+        temp.delete();
+    } // storeChunk()
+
+
+    /**
+     * List the hashes of all stored chunks.
+     *
+     * @param rootPath root of the store
+     * @return set of chunk hashes
+     */
+    public Set<String> listChunks(String rootPath) {
+        Set<String> result = new HashSet<>();
+        File[] folders = getChunkFolder(rootPath).listFiles();
+        if (folders!=null) {
+            for (File folder : folders) {
+                String[] names = folder.list();
+                if (names!=null) {
+                    for (String name : names) {
+                        if (!name.endsWith(TEMP_SUFFIX)) {
+                            result.add(name);
+                        } // if
+                    } // for
+                } // if
+            } // for
+        } // if
+        return result;
+    } // listChunks()
+
+
+    public boolean deleteChunk(String rootPath, String id) {
+        File file = getChunkFile(rootPath, id);
+        boolean success = file.delete();
+        LOG.debug("deleteChunk() {}: {}", id, success);
+        return success;
+    } // deleteChunk()
+
+} // DedupStorageAccess
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync.dedup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import jfs.conf.JFSLog;
+import jfs.conf.JFSText;
+import jfs.sync.JFSFile;
+import jfs.sync.encryption.JFSEncryptedFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * File descriptor for files in the chunk store. Names and meta data are handled like for all encrypted files, while
+ * the contents are read from and written to the chunks listed in the file's manifest.
+ */
+public class JFSDedupFile extends JFSEncryptedFile {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JFSDedupFile.class);
+
+    private final JFSDedupFileProducer fileProducer;
+
+    /** The last input stream opened for this file. */
+    private InputStream in = null;
+
+    /** The last output stream opened for this file. */
+    private OutputStream out = null;
+
+
+    JFSDedupFile(JFSDedupFileProducer fileProducer, String relativePath) {
+        super(fileProducer, relativePath);
+        this.fileProducer = fileProducer;
+    } // JFSDedupFile()
+
+
+    /**
+     * @see JFSFile#getInputStream()
+     */
+    @Override
+    protected InputStream getInputStream() {
+        try {
+            in = fileProducer.getContentInputStream(getRelativePath());
+        } catch (IOException ioe) {
+            LOG.error("getInputStream("+getRelativePath()+") I/O Exception "+ioe.getLocalizedMessage());
+            in = null;
+        } // try/catch
+        return in;
+    } // getInputStream()
+
+
+    /**
+     * @see JFSFile#getOutputStream()
+     */
+    @Override
+    protected OutputStream getOutputStream() {
+        try {
+            out = fileProducer.getContentOutputStream(getRelativePath(), exists());
+        } catch (IOException ioe) {
+            LOG.error("getOutputStream()", ioe);
+            out = null;
+        } // try/catch
+        return out;
+    } // getOutputStream()
+
+
+    /**
+     * @see JFSFile#closeInputStream()
+     */
+    @Override
+    protected void closeInputStream() {
+        try {
+            if (in!=null) {
+                in.close();
+                in = null;
+            } // if
+        } catch (IOException e) {
+            JFSLog.getErr().getStream().println(JFSText.getInstance().get("error.io")+" "+e);
+        } // try/catch
+    } // closeInputStream()
+
+
+    /**
+     * @see JFSFile#closeOutputStream()
+     */
+    @Override
+    protected void closeOutputStream() {
+        try {
+            if (out!=null) {
+                LOG.debug("closeOutputStream() closing {}", getPath());
+                out.close();
+                out = null;
+            } // if
+        } catch (IOException e) {
+            LOG.error("closeOutputStream()", e);
+            JFSLog.getErr().getStream().println(JFSText.getInstance().get("error.io")+" "+e);
+        } // try/catch
+    } // closeOutputStream()
+
+} // JFSDedupFile
@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync.dedup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+import java.util.HashSet;
+import java.util.Set;
+import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
+import javax.crypto.CipherOutputStream;
+import jfs.sync.JFSFile;
+import jfs.sync.JFSFileProducer;
+import jfs.sync.encryption.AbstractFileProducer;
+import jfs.sync.encryption.ExtendedFileInfo;
+import jfs.sync.util.SecurityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * File producer storing file contents as encrypted chunks in a content addressed store.
+ *
+ * Each file of the tree only holds an encrypted manifest of its chunks. Chunks already present in the store are not
+ * written again, so duplicate files and moved trees hardly need any space or transfer. Chunks no longer referenced
+ * after files have been deleted or replaced are removed when the synchronization is done.
+ */
+public class JFSDedupFileProducer extends AbstractFileProducer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JFSDedupFileProducer.class);
+
+    private final DedupStorageAccess dedupStorageAccess;
+
+    private final DedupChunkStore chunkStore;
+
+    private long chunkerSeed;
+
+    /**
+     * Set when manifests have been deleted or replaced, so chunks may not be referenced anymore.
+     */
+    private boolean unreferencedChunks;
+
+
+    public JFSDedupFileProducer(DedupStorageAccess storageAccess, String scheme, String uri) {
+        super(storageAccess, scheme, uri);
+        this.dedupStorageAccess = storageAccess;
+        this.chunkStore = new DedupChunkStore(storageAccess, getRootPath());
+    } // JFSDedupFileProducer()
+
+
+    /**
+     * @see JFSFileProducer#getRootJfsFile()
+     */
+    @Override
+    public final JFSFile getRootJfsFile() {
+        return new JFSDedupFile(this, "");
+    }
+
+
+    /**
+     * @see JFSFileProducer#getJfsFile(String, boolean)
+     */
+    @Override
+    public final JFSFile getJfsFile(String path, boolean asFolder) {
+        return new JFSDedupFile(this, path);
+    }
+
+
+    @Override
+    public boolean hasExecutableFlag() {
+        return true;
+    }
+
+
+    private Cipher getManifestCipher(String relativePath, boolean decrypt) throws IOException {
+        try {
+            byte[] credentials = dedupStorageAccess.getFileCredentials(relativePath);
+            return SecurityUtils.getCipher(dedupStorageAccess.getCipherSpec(), decrypt, credentials);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Cannot create cipher for manifest "+relativePath, e);
+        } // try/catch
+    } // getManifestCipher()
+
+
+    /**
+     * Read the manifest of a file.
+     *
+     * @param relativePath path of the file
+     * @return manifest of the file's chunks
+     * @throws IOException if the manifest cannot be read
+     */
+    public DedupManifest getManifest(String relativePath) throws IOException {
+        try (InputStream is = new CipherInputStream(getInputStream(relativePath), getManifestCipher(relativePath, true))) {
+            return DedupManifest.read(is);
+        } // try
+    } // getManifest()
+
+
+    /**
+     * Open the contents of a file for reading.
+     *
+     * @param relativePath path of the file
+     * @return stream of the plain contents
+     * @throws IOException if the manifest cannot be read
+     */
+    public InputStream getContentInputStream(String relativePath) throws IOException {
+        return new DedupInputStream(chunkStore, getManifest(relativePath));
+    } // getContentInputStream()
+
+
+    /**
+     * Open a file for writing its contents. Only new chunks are written to the store while writing, the manifest of
+     * the file replaces the previous one when the stream is closed.
+     *
+     * @param relativePath path of the file
+     * @param replacing tell if the file already exists
+     * @return stream for the plain contents
+     * @throws IOException if the chunk store cannot be prepared
+     */
+    public OutputStream getContentOutputStream(final String relativePath, boolean replacing) throws IOException {
+        if (chunkerSeed==0) {
+            chunkerSeed = chunkStore.getChunkerSeed();
+        } // if
+        unreferencedChunks |= replacing;
+        return new DedupOutputStream(chunkStore, chunkerSeed, new DedupOutputStream.ManifestHandler() {
+
+            @Override
+            public void store(DedupManifest manifest) throws IOException {
+                try (OutputStream os = new CipherOutputStream(getOutputStream(relativePath), getManifestCipher(relativePath, false))) {
+                    manifest.write(os);
+                } // try
+                LOG.debug("store() {} chunks for {}", manifest.size(), relativePath);
+            } // store()
+
+        });
+    } // getContentOutputStream()
+
+
+    @Override
+    public boolean delete(String relativePath) {
+        unreferencedChunks = true;
+        return super.delete(relativePath);
+    } // delete()
+
+
+    /**
+     * Collect the chunks referenced by all manifests in and below the given directory.
+     *
+     * @return false if any manifest could not be read
+     */
+    private boolean collectReferences(String relativePath, Set<String> referenced) {
+        String[] names = list(relativePath);
+        if (names==null) {
+            return false;
+        } // if
+        for (String name : names) {
+            String path = relativePath+getSeparator()+name;
+            ExtendedFileInfo info = getFileInfo(path);
+            if (info.isDirectory()) {
+                if (!collectReferences(path, referenced)) {
+                    return false;
+                } // if
+            } else {
+                try {
+                    referenced.addAll(getManifest(path).getIds());
+                } catch (IOException ioe) {
+                    LOG.error("collectReferences() cannot read manifest of {}: {}", path, ioe.getMessage());
+                    return false;
+                } // try/catch
+            } // if
+        } // for
+        return true;
+    } // collectReferences()
+
+
+    /**
+     * Remove chunks not referenced anymore - but only if all manifests of the tree could be read.
+     *
+     * @see JFSFileProducer#synchronizationDone()
+     */
+    @Override
+    public void synchronizationDone() {
+        LOG.info("synchronizationDone() stored {} chunks with {} bytes, skipped {} chunks with {} bytes",
+                chunkStore.getChunksStored(), chunkStore.getBytesStored(), chunkStore.getChunksSkipped(),
+                chunkStore.getBytesSkipped());
+        if (unreferencedChunks) {
+            Set<String> referenced = new HashSet<>();
+            if (collectReferences("", referenced)) {
+                int count = chunkStore.removeUnreferenced(referenced);
+                LOG.info("synchronizationDone() removed {} unreferenced chunks", count);
+                unreferencedChunks = false;
+            } else {
+                LOG.warn("synchronizationDone() keeping unreferenced chunks");
+            } // if
+        } // if
+    } // synchronizationDone()
+
+} // JFSDedupFileProducer
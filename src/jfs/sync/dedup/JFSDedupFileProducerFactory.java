@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync.dedup;
+
+import jfs.conf.JFSConfig;
+import jfs.sync.JFSFileProducer;
+import jfs.sync.base.AbstractJFSFileProducerFactory;
+
+
+/**
+ * File producer factory creating producers for the deduplicating encrypted chunk store.
+ */
+public class JFSDedupFileProducerFactory extends AbstractJFSFileProducerFactory {
+
+    public static final String SCHEME_NAME = "dedup";
+
+    public static final String[] SCHEMES = { SCHEME_NAME };
+
+
+    @Override
+    public String[] getSchemes() {
+        return SCHEMES;
+    }
+
+
+    @Override
+    public JFSFileProducer createProducer(String uri) {
+        final JFSConfig config = JFSConfig.getInstance();
+        DedupStorageAccess storageAccess = new DedupStorageAccess(config.getEncryptionCipher(), config.isShortenPaths());
+        return new JFSDedupFileProducer(storageAccess, SCHEME_NAME, uri.substring(SCHEME_NAME.length()+3));
+    } // createProducer()
+
+} // JFSDedupFileProducerFactory
@@ -18,10 +18,7 @@
 package jfs.sync.encdav;
 
 import com.github.sardine.DavResource;
-import com.github.sardine.Sardine;
-import com.github.sardine.SardineFactory;
 import com.github.sardine.impl.SardineException;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -33,12 +30,16 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import jfs.conf.JFSConfig;
 import jfs.sync.base.AbstractJFSFileProducerFactory;
 import jfs.sync.encryption.AbstractEncryptedStorageAccess;
 import jfs.sync.encryption.ExtendedFileInfo;
 import jfs.sync.encryption.StorageAccess;
+import jfs.sync.util.DavOutputStream;
+import jfs.sync.util.DavTreeListing;
 import jfs.sync.util.DavUtils;
+import jfs.sync.util.PooledSardine;
 import jfs.sync.util.WindowsProxySelector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,9 +52,18 @@ public class EncDavStorageAccess extends AbstractEncryptedStorageAccess implemen
 
     private static final Logger LOG = LoggerFactory.getLogger(EncDavStorageAccess.class);
 
+    /**
+     * Listings fetched in bulk indexed by their decoded paths. Only filled if bulk listing is configured.
+     */
     private final Map<String, List<DavResource>> folderCache = new HashMap<>();
 
-    private Sardine sardine = null;
+    /**
+     * Folders with cached listings invalidated through modifications. They are listed again on their own instead of
+     * listing the whole sub tree below them in bulk.
+     */
+    private final Set<String> refreshFolders = new HashSet<>();
+
+    private PooledSardine sardine = null;
 
     private final String cipherspec;
 
@@ -64,11 +74,11 @@ public class EncDavStorageAccess extends AbstractEncryptedStorageAccess implemen
     } // EncDavStorageAccess()
 
 
-    private Sardine getSardine() {
+    private PooledSardine getSardine() {
         if (sardine==null) {
             String username = JFSConfig.getInstance().getServerUserName();
             String passphrase = JFSConfig.getInstance().getServerPassPhrase();
-            sardine = SardineFactory.begin(username, passphrase, WindowsProxySelector.getInstance());
+            sardine = new PooledSardine(username, passphrase, WindowsProxySelector.getInstance());
             LOG.debug("getSardine() webdav client {}", sardine);
         } // if
         return sardine;
@@ -101,12 +111,23 @@ public class EncDavStorageAccess extends AbstractEncryptedStorageAccess implemen
 
     protected List<DavResource> getListing(String rootPath, String relativePath) {
         String url = getUrl(rootPath, relativePath);
-        List<DavResource> listing = Collections.emptyList();
-        if (folderCache.containsKey(url)) {
-            listing = folderCache.get(url);
-        } else {
+        String key = DavTreeListing.getKey(url);
+        List<DavResource> listing = folderCache.get(key);
+        if (listing==null) {
+            listing = Collections.emptyList();
+            JFSConfig config = JFSConfig.getInstance();
+            int depth = config.getServerListingDepth();
+            boolean refresh = refreshFolders.remove(key);
             try {
-                listing = getSardine().list(url, 1, DavUtils.getCustomDavProperties());
+                if ((depth!=1)&&!refresh&&DavTreeListing.isWithin(key, DavTreeListing.getKey(rootPath))) {
+                    folderCache.putAll(DavTreeListing.list(getSardine(), url, depth, DavUtils.getCustomDavProperties(), config.getServerConnections()));
+                    listing = folderCache.getOrDefault(key, Collections.emptyList());
+                } else {
+                    listing = getSardine().list(url, 1, DavUtils.getCustomDavProperties());
+                    if (refresh) {
+                        folderCache.put(key, listing);
+                    } // if
+                } // if
             } catch (Exception e) {
                 LOG.error("getListing()", e);
             } // try/catch
@@ -116,6 +137,26 @@ public class EncDavStorageAccess extends AbstractEncryptedStorageAccess implemen
     } // getListing()
 
 
+    /**
+     * Drop cached listings affected by a modification of the given path. The folders are marked to be refreshed with a
+     * single folder listing, so a modification never leads to a listing of the whole sub tree.
+     */
+    private void invalidate(String rootPath, String relativePath) {
+        if (!folderCache.isEmpty()) {
+            String key = DavTreeListing.getKey(getUrl(rootPath, relativePath));
+            if (folderCache.remove(key)!=null) {
+                refreshFolders.add(key);
+            } // if
+            int idx = key.lastIndexOf('/');
+            if (idx>=0) {
+                String parent = key.substring(0, idx);
+                folderCache.remove(parent);
+                refreshFolders.add(parent);
+            } // if
+        } // if
+    } // invalidate()
+
+
     private String getEncryptedPathElement(DavResource item, int prefixLength) {
         String rPath = item.getPath().substring(prefixLength);
         if (rPath.endsWith("/")) {
@@ -228,6 +269,7 @@ public class EncDavStorageAccess extends AbstractEncryptedStorageAccess implemen
     public boolean createDirectory(String rootPath, String relativePath) {
         LOG.debug("createDirectory() {}", relativePath);
         String url = getUrl(rootPath, relativePath);
+        invalidate(rootPath, relativePath);
         try {
             getSardine().createDirectory(url);
         } catch (Exception e) {
@@ -249,6 +291,7 @@ public class EncDavStorageAccess extends AbstractEncryptedStorageAccess implemen
             DavResource resource = getFile(rootPath, relativePath);
             String url = getUrl(rootPath, relativePath)+(resource.isDirectory() ? "/" : "");
             success = DavUtils.setLastModified(sardine, url, modificationDate);
+            invalidate(rootPath, relativePath);
         } catch (Exception e) {
             LOG.error("setLastModified()", e);
         } // try/catch
@@ -273,6 +316,7 @@ public class EncDavStorageAccess extends AbstractEncryptedStorageAccess implemen
     public boolean delete(String rootPath, String relativePath) {
         try {
             DavResource resource = getFile(rootPath, relativePath);
+            invalidate(rootPath, relativePath);
             getSardine().delete(getUrl(rootPath, relativePath)+(resource.isDirectory() ? "/" : ""));
         } catch (Exception e) {
             LOG.warn("delete()", e);
@@ -292,17 +336,9 @@ public class EncDavStorageAccess extends AbstractEncryptedStorageAccess implemen
     @Override
     public OutputStream getOutputStream(String rootPath, final String relativePath) throws IOException {
         LOG.debug("getOutputStream() {}", relativePath);
-        final String url = getUrl(rootPath, relativePath);
-        ByteArrayOutputStream result = new ByteArrayOutputStream() {
-            @Override
-            public void close() throws IOException {
-                super.close();
-                byte[] data = this.toByteArray();
-                LOG.debug("getOutputStream().close() {}", data.length);
-                getSardine().put(url, data);
-            }
-        };
-        return result;
+        String url = getUrl(rootPath, relativePath);
+        invalidate(rootPath, relativePath);
+        return new DavOutputStream(getSardine(), url, DavOutputStream.UNKNOWN_LENGTH, JFSConfig.getInstance().getBufferSize());
     } // getOutputStream()
 
 
@@ -82,15 +82,7 @@ public class JFSEncfsFile extends JFSFile {
             info.setDirectory(isDirectory);
             try {
                 file = access.getFile(path.length()==0 ? "/" : path);
-                info.setCanRead(file.isReadable());
-                info.setCanWrite(file.isWritable());
-                info.setCanExecute(file.isExecutable());
-                info.setPath(file.getParentPath());
-                info.setName(path.length()==0 ? "" : file.getName());
-                info.setDirectory(file.isDirectory());
-                info.setExists(file.isReadable());
-                info.setModificationDate(file.getLastModified());
-                info.setSize(file.getLength());
+                setInfo(path.length()==0);
             } catch (IllegalArgumentException iae) {
                 LOG.warn("()", iae);
                 info.setExists(false);
@@ -106,6 +98,43 @@ public class JFSEncfsFile extends JFSFile {
     } // JFSEncfsFile()
 
 
+    /**
+     * Creates a new external file for an already retrieved EncFS file - e.g. from a directory listing.
+     *
+     * @param access       The server access object to use.
+     * @param fileProducer The assigned file producer.
+     * @param file         The EncFS file to represent.
+     */
+    JFSEncfsFile(EncFSVolume access, JFSFileProducer fileProducer, EncFSFile file) {
+        super(fileProducer, file.getPath());
+        this.access = access;
+        this.file = file;
+        info = new ExtendedFileInfo();
+        setInfo(false);
+        if (LOG.isInfoEnabled()) {
+            LOG.info("() "+(info.isDirectory() ? "d" : "-")+(info.isExists() ? "e" : "-")+" | "+info.getPath()+"/"+info.getName());
+        } // if
+    } // JFSEncfsFile()
+
+
+    /**
+     * Take over the file information from the EncFS file.
+     *
+     * @param root true for the root directory of the volume
+     */
+    private void setInfo(boolean root) {
+        info.setCanRead(file.isReadable());
+        info.setCanWrite(file.isWritable());
+        info.setCanExecute(file.isExecutable());
+        info.setPath(file.getParentPath());
+        info.setName(root ? "" : file.getName());
+        info.setDirectory(file.isDirectory());
+        info.setExists(file.isReadable());
+        info.setModificationDate(file.getLastModified());
+        info.setSize(file.getLength());
+    } // setInfo()
+
+
     /**
      * Creates a new external root file and reads the structure from server.
      *
@@ -234,10 +263,10 @@ public class JFSEncfsFile extends JFSFile {
 
 
     /**
-     * @see JFSFile#delete()
+     * @see JFSFile#internalDelete()
      */
     @Override
-    public boolean delete() {
+    protected boolean internalDelete() {
         LOG.debug("delete() deleting {}", file.getPath());
         boolean result = false;
         try {
@@ -249,6 +278,25 @@ public class JFSEncfsFile extends JFSFile {
     } // delete()
 
 
+    /**
+     * @see JFSFile#internalRenameTo(String)
+     */
+    @Override
+    protected boolean internalRenameTo(String relativePath) {
+        boolean result = false;
+        try {
+            String target = relativePath.replace(File.separatorChar, '/');
+            LOG.debug("renameTo() moving {} to {}", file.getPath(), target);
+            if (!access.pathExists(target)) {
+                result = access.movePath(file.getPath(), target);
+            } // if
+        } catch (Exception e) {
+            LOG.error("renameTo()", e);
+        } // try/catch
+        return result;
+    } // renameTo()
+
+
     /**
      * @see JFSFile#exists()
      */
@@ -277,10 +325,10 @@ public class JFSEncfsFile extends JFSFile {
 
 
     /**
-     * @see JFSFile#getList()
+     * @see JFSFile#internalGetList()
      */
     @Override
-    public JFSFile[] getList() {
+    protected JFSFile[] internalGetList() {
         LOG.debug("getList() listing {}", file.getPath());
         if (list==null) {
             list = new JFSEncfsFile[0];
@@ -293,7 +341,7 @@ public class JFSEncfsFile extends JFSFile {
                         if (LOG.isDebugEnabled()) {
                             LOG.debug("getList("+i+") listing "+f.getPath());
                         } // if
-                        list[i] = new JFSEncfsFile(access, fileProducer, f.getPath(), f.isDirectory());
+                        list[i] = new JFSEncfsFile(access, fileProducer, f);
                         i++;
                     } // for
                 } catch (Exception e) {
@@ -354,10 +402,10 @@ public class JFSEncfsFile extends JFSFile {
 
 
     /**
-     * @see JFSFile#setLastModified(long)
+     * @see JFSFile#internalSetLastModified(long)
      */
     @Override
-    public boolean setLastModified(long time) {
+    protected boolean internalSetLastModified(long time) {
         LOG.debug("setLastModified() {}/{}", info.getPath(), info.getName());
         boolean success = false;
 
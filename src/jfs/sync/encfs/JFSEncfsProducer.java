@@ -18,6 +18,8 @@
 package jfs.sync.encfs;
 
 import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import jfs.conf.JFSConfig;
 import jfs.sync.JFSFile;
 import jfs.sync.JFSFileProducer;
@@ -37,6 +39,17 @@ public class JFSEncfsProducer extends JFSFileProducer {
 
     private static final Logger LOG = LoggerFactory.getLogger(JFSEncfsProducer.class);
 
+    private static final int BLOCK_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Threads shared by all volumes to encrypt and decrypt the blocks of large files in parallel.
+     */
+    private static final ExecutorService BLOCK_EXECUTOR = Executors.newFixedThreadPool(BLOCK_PARALLELISM, r -> {
+        Thread thread = new Thread(r, "EncFS blocks");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private EncFSVolume volume;
 
 
@@ -51,6 +64,7 @@ public class JFSEncfsProducer extends JFSFileProducer {
             try {
                 LOG.info("({}) opening volume", uri);
                 volume = new EncFSVolumeBuilder().withRootPath(uri).withPassword(passphrase).buildVolume();
+                volume.setBlockExecutor(BLOCK_EXECUTOR, BLOCK_PARALLELISM);
             } catch (Exception e) {
                 LOG.error("()", e);
             } // try/catch
@@ -81,4 +95,10 @@ public class JFSEncfsProducer extends JFSFileProducer {
         return File.separatorChar == '/';
     }
 
+
+    @Override
+    public boolean canMove() {
+        return true;
+    }
+
 }
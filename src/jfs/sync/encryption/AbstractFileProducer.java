@@ -21,6 +21,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import jfs.sync.JFSFileProducer;
+import jfs.sync.JFSMetrics;
+import jfs.sync.JFSMetrics.Operation;
 
 
 /**
@@ -30,20 +32,32 @@ public abstract class AbstractFileProducer extends JFSFileProducer {
 
     protected StorageAccess storageAccess;
 
+    /**
+     * Name under which the storage access operations are recorded.
+     */
+    private final String metricsScheme;
+
 
     public AbstractFileProducer(StorageAccess storageAccess, String scheme, String uri) {
         super(scheme, uri);
         this.storageAccess = storageAccess;
+        this.metricsScheme = scheme+JFSMetrics.STORAGE_SUFFIX;
     }
 
 
     public ExtendedFileInfo getFileInfo(String relativePath) {
-        return storageAccess.getFileInfo(getRootPath(), relativePath);
+        long start = System.nanoTime();
+        ExtendedFileInfo info = storageAccess.getFileInfo(getRootPath(), relativePath);
+        JFSMetrics.getInstance().record(metricsScheme, Operation.FILE_INFO, start);
+        return info;
     }
 
 
     public String[] list(String relativePath) {
-        return storageAccess.list(getRootPath(), relativePath);
+        long start = System.nanoTime();
+        String[] list = storageAccess.list(getRootPath(), relativePath);
+        JFSMetrics.getInstance().record(metricsScheme, Operation.LIST, start);
+        return list;
     }
 
 
@@ -53,7 +67,10 @@ public abstract class AbstractFileProducer extends JFSFileProducer {
 
 
     public boolean setLastModified(String relativePath, long modificationTime) {
-        return storageAccess.setLastModified(getRootPath(), relativePath, modificationTime);
+        long start = System.nanoTime();
+        boolean success = storageAccess.setLastModified(getRootPath(), relativePath, modificationTime);
+        JFSMetrics.getInstance().record(metricsScheme, Operation.SET_LAST_MODIFIED, start);
+        return success;
     }
 
 
@@ -68,17 +85,26 @@ public abstract class AbstractFileProducer extends JFSFileProducer {
 
 
     public boolean delete(String relativePath) {
-        return storageAccess.delete(getRootPath(), relativePath);
+        long start = System.nanoTime();
+        boolean success = storageAccess.delete(getRootPath(), relativePath);
+        JFSMetrics.getInstance().record(metricsScheme, Operation.DELETE, start);
+        return success;
     }
 
 
     public InputStream getInputStream(String relativePath) throws IOException {
-        return storageAccess.getInputStream(getRootPath(), relativePath);
+        long start = System.nanoTime();
+        InputStream input = storageAccess.getInputStream(getRootPath(), relativePath);
+        JFSMetrics.getInstance().record(metricsScheme, Operation.INPUT_STREAM, start);
+        return JFSMetrics.getInstance().get(metricsScheme, Operation.INPUT_STREAM).countBytes(input);
     }
 
 
     public OutputStream getOutputStream(String relativePath) throws IOException {
-        return storageAccess.getOutputStream(getRootPath(), relativePath);
+        long start = System.nanoTime();
+        OutputStream output = storageAccess.getOutputStream(getRootPath(), relativePath);
+        JFSMetrics.getInstance().record(metricsScheme, Operation.OUTPUT_STREAM, start);
+        return JFSMetrics.getInstance().get(metricsScheme, Operation.OUTPUT_STREAM).countBytes(output);
     }
 
 
@@ -88,7 +114,9 @@ public abstract class AbstractFileProducer extends JFSFileProducer {
 
 
     public void flush(ExtendedFileInfo info) {
+        long start = System.nanoTime();
         storageAccess.flush(getRootPath(), info);
+        JFSMetrics.getInstance().record(metricsScheme, Operation.FLUSH, start);
     }
 
 }
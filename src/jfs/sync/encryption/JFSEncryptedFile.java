@@ -72,7 +72,7 @@ public class JFSEncryptedFile extends JFSFile {
      * @param cipherSpec JCE cipher specification.
      * @param relativePath The relative path of the JFS file starting from the root JFS file.
      */
-    JFSEncryptedFile(AbstractFileProducer fileProducer, String relativePath) {
+    protected JFSEncryptedFile(AbstractFileProducer fileProducer, String relativePath) {
         super(fileProducer, relativePath);
         // super has a somewhat buggy normalization of filename only dealing with local file separator definitions
         this.relativePath = this.relativePath.replace('\\', '/');
@@ -193,10 +193,10 @@ public class JFSEncryptedFile extends JFSFile {
 
 
     /**
-     * @see JFSFile#getList()
+     * @see JFSFile#internalGetList()
      */
     @Override
-    public final JFSFile[] getList() {
+    protected final JFSFile[] internalGetList() {
         if (list==null) {
             String[] files = fileProducer.list(getRelativePath());
             list = new JFSFile[0];
@@ -246,10 +246,10 @@ public class JFSEncryptedFile extends JFSFile {
 
 
     /**
-     * @see JFSFile#setLastModified(long)
+     * @see JFSFile#internalSetLastModified(long)
      */
     @Override
-    public final boolean setLastModified(long time) {
+    protected final boolean internalSetLastModified(long time) {
         boolean success = fileProducer.setLastModified(getRelativePath(), time);
         LOG.debug("setLastModified('{}') setting modification date: {}", getRelativePath(), success);
 
@@ -298,10 +298,10 @@ public class JFSEncryptedFile extends JFSFile {
 
 
     /**
-     * @see JFSFile#delete()
+     * @see JFSFile#internalDelete()
      */
     @Override
-    public final boolean delete() {
+    protected final boolean internalDelete() {
         return fileProducer.delete(getRelativePath());
     }
 
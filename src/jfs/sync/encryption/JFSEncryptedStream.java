@@ -19,11 +19,24 @@ package jfs.sync.encryption;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 import java.util.zip.Inflater;
@@ -31,6 +44,7 @@ import java.util.zip.InflaterInputStream;
 import javax.crypto.Cipher;
 import javax.crypto.CipherInputStream;
 import javax.crypto.CipherOutputStream;
+import jfs.conf.JFSConfig;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
 import org.slf4j.Logger;
@@ -63,14 +77,69 @@ public class JFSEncryptedStream extends OutputStream {
 
     public static final byte COMPRESSION_LZMA = 8;
 
+    public static final byte COMPRESSION_LZMA_BLOCKS = 16;
+
     public static final int COMPRESSION_BUFFER_SIZE = 10240;
 
     private static final byte[] NO_BYTES = new byte[0];
 
     private static final int SPACE_RESERVE = 3;
 
+    /*
+     * // "  -a{N}:  set compression mode - [0, 1], default: 1 (max)\n" +
+     * "  -d{N}:  set dictionary - [0,28], default: 23 (8MB)\n"
+     * +"  -fb{N}: set number of fast bytes - [5, 273], default: 128\n"
+     * +"  -lc{N}: set number of literal context bits - [0, 8], default: 3\n"
+     * +"  -lp{N}: set number of literal pos bits - [0, 4], default: 0\n"
+     * +"  -pb{N}: set number of pos bits - [0, 4], default: 2\n"
+     * +"  -mf{MF_ID}: set Match Finder: [bt2, bt4], default: bt4\n"+"  -eos:   write End Of Stream marker\n");
+     */
+    private static final int LZMA_DICTIONARY_SIZE = 1<<23;
+
+    // Smallest dictionary used for short input
+    private static final int LZMA_MIN_DICTIONARY_SIZE = 1<<16;
+
+    private static final int LZMA_LC = 3;
+
+    private static final int LZMA_LP = 0;
+
+    private static final int LZMA_PB = 2;
+
+    private static final int LZMA_FB = 128;
+
+    private static final int LZMA_ALGORITHM = 2;
+
+    private static final int LZMA_MATCH_FINDER = 1; // 0, 1, 2
+
+    // Size of the independently compressed blocks of large input
+    private static final int LZMA_BLOCK_SIZE = 1<<22;
+
+    // Upper bound for the expansion of incompressible blocks by LZMA
+    private static final int LZMA_MAX_EXPANSION = 1024;
+
+    private static final int LZMA_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    // LZMA properties preceding the compressed data
+    private static final int LZMA_PROPERTIES_SIZE = 5;
+
     private static final Logger LOG = LoggerFactory.getLogger(JFSEncryptedStream.class);
 
+    /**
+     * LZMA encoders available for reuse. The buffers of their match finders are only reallocated when a larger
+     * dictionary is needed. The encoders are softly referenced, so that idle ones don't hold memory the application
+     * needs.
+     */
+    private static final Queue<SoftReference<Encoder>> LZMA_ENCODERS = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Threads shared by all streams to compress the blocks of large input in parallel.
+     */
+    private static final ExecutorService LZMA_EXECUTOR = Executors.newFixedThreadPool(LZMA_PARALLELISM, r -> {
+        Thread thread = new Thread(r, "LZMA blocks");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final Cipher cipher;
 
     private ByteArrayOutputStream delegate;
@@ -109,6 +178,226 @@ public class JFSEncryptedStream extends OutputStream {
     } // createOutputStream
 
 
+    /**
+     * Get the dictionary size for LZMA compression of the given number of bytes. A dictionary larger than the input
+     * doesn't improve compression but costs match finder memory. The size is stored in the LZMA properties header, so
+     * the compressed bytes depend on it, while decompression takes it from there regardless of the writing code.
+     *
+     * @param length number of bytes to compress
+     * @return smallest power of two not below the length - within the dictionary size limits
+     */
+    static int getLzmaDictionarySize(int length) {
+        int dictionarySize = LZMA_MIN_DICTIONARY_SIZE;
+        while ((dictionarySize<length)&&(dictionarySize<LZMA_DICTIONARY_SIZE)) {
+            dictionarySize <<= 1;
+        } // while
+        return dictionarySize;
+    } // getLzmaDictionarySize()
+
+
+    /**
+     * Obtain a pooled or new LZMA encoder set up for the given number of bytes.
+     *
+     * @param length number of bytes to compress
+     * @return encoder to be given back with releaseLzmaEncoder() after use
+     */
+    private static Encoder getLzmaEncoder(int length) {
+        Encoder encoder = null;
+        SoftReference<Encoder> reference;
+        while ((encoder==null)&&((reference = LZMA_ENCODERS.poll())!=null)) {
+            encoder = reference.get();
+        } // while
+        if (encoder==null) {
+            encoder = new Encoder();
+            encoder.SetEndMarkerMode(false);
+            encoder.SetAlgorithm(LZMA_ALGORITHM); // Whatever that means
+            encoder.SetNumFastBytes(LZMA_FB);
+            encoder.SetMatchFinder(LZMA_MATCH_FINDER);
+            encoder.SetLcLpPb(LZMA_LC, LZMA_LP, LZMA_PB);
+        } // if
+        encoder.SetDictionarySize(getLzmaDictionarySize(length));
+        return encoder;
+    } // getLzmaEncoder()
+
+
+    private static void releaseLzmaEncoder(Encoder encoder) {
+        LZMA_ENCODERS.offer(new SoftReference<>(encoder));
+    } // releaseLzmaEncoder()
+
+
+    /**
+     * Compress a part of the input with LZMA.
+     *
+     * @return LZMA properties followed by the compressed data
+     */
+    private static byte[] compressLzma(byte[] input, int offset, int length) throws IOException {
+        Encoder encoder = getLzmaEncoder(length);
+        ByteArrayOutputStream lzmaStream = new ByteArrayOutputStream();
+        ByteArrayInputStream inStream = new ByteArrayInputStream(input, offset, length);
+
+        encoder.WriteCoderProperties(lzmaStream);
+        encoder.Code(inStream, lzmaStream, -1, -1, null);
+        releaseLzmaEncoder(encoder);
+        return lzmaStream.toByteArray();
+    } // compressLzma()
+
+
+    /**
+     * Compress the input as a sequence of independently LZMA compressed blocks in parallel. Each block is stored as its
+     * original length and its compressed length followed by the result of compressLzma() for the block.
+     *
+     * @param input bytes to compress
+     * @return block sequence
+     */
+    static byte[] compressLzmaBlocks(byte[] input) throws IOException {
+        List<Future<byte[]>> blocks = new ArrayList<>();
+        for (int offset = 0; offset<input.length; offset += LZMA_BLOCK_SIZE) {
+            final int blockOffset = offset;
+            final int blockLength = Math.min(LZMA_BLOCK_SIZE, input.length-offset);
+            blocks.add(LZMA_EXECUTOR.submit(() -> compressLzma(input, blockOffset, blockLength)));
+        } // for
+        ByteArrayOutputStream result = new ByteArrayOutputStream(input.length/2);
+        DataOutputStream output = new DataOutputStream(result);
+        try {
+            int offset = 0;
+            for (Future<byte[]> block : blocks) {
+                byte[] compressed = block.get();
+                output.writeInt(Math.min(LZMA_BLOCK_SIZE, input.length-offset));
+                output.writeInt(compressed.length);
+                output.write(compressed);
+                offset += LZMA_BLOCK_SIZE;
+            } // for
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("compressLzmaBlocks() interrupted");
+        } catch (ExecutionException ee) {
+            throw new IOException("compressLzmaBlocks() failed", ee.getCause());
+        } finally {
+            for (Future<byte[]> block : blocks) {
+                block.cancel(false);
+            } // for
+        } // try/catch/finally
+        output.flush();
+        return result.toByteArray();
+    } // compressLzmaBlocks()
+
+
+    /**
+     * Decompress a sequence of LZMA compressed blocks written by compressLzmaBlocks().
+     *
+     * The lengths of the blocks are checked against the overall length and the block size before any buffer is
+     * allocated, so corrupt data leads to an IOException instead of exhausting the memory.
+     *
+     * @param in stream of the block sequence
+     * @param length overall original length
+     * @return decompressed bytes
+     */
+    static byte[] decompressLzmaBlocks(InputStream in, long length) throws IOException {
+        DataInputStream input = new DataInputStream(in);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Decoder decoder = new Decoder();
+        long decoded = 0;
+        while (decoded<length) {
+            int blockLength = input.readInt();
+            int compressedLength = input.readInt();
+            if ((blockLength<=0)||(blockLength>LZMA_BLOCK_SIZE)||(decoded+blockLength>length)
+                    ||(compressedLength<LZMA_PROPERTIES_SIZE)
+                    ||(compressedLength>blockLength+blockLength/16+LZMA_MAX_EXPANSION)) {
+                throw new IOException("decompressLzmaBlocks() illegal block length at "+decoded);
+            } // if
+            byte[] block = new byte[compressedLength];
+            input.readFully(block);
+            if (!decoder.SetDecoderProperties(Arrays.copyOf(block, LZMA_PROPERTIES_SIZE))) {
+                throw new IOException("decompressLzmaBlocks() illegal block at "+decoded);
+            } // if
+            InputStream blockStream = new ByteArrayInputStream(block, LZMA_PROPERTIES_SIZE, block.length-LZMA_PROPERTIES_SIZE);
+            if (!decoder.Code(blockStream, outputStream, blockLength)) {
+                throw new IOException("decompressLzmaBlocks() corrupt block at "+decoded);
+            } // if
+            decoded += blockLength;
+        } // while
+        return outputStream.toByteArray();
+    } // decompressLzmaBlocks()
+
+
+    /**
+     * Compress the input with the given method.
+     *
+     * @param method one of the compression markers apart from COMPRESSION_NONE
+     * @param input bytes to compress
+     * @return compressed bytes as expected by decompress()
+     */
+    static byte[] compress(byte method, byte[] input) throws IOException {
+        switch (method) {
+            case COMPRESSION_DEFLATE:
+                ByteArrayOutputStream deflaterStream = new ByteArrayOutputStream();
+                Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+                OutputStream dos = new DeflaterOutputStream(deflaterStream, deflater, COMPRESSION_BUFFER_SIZE);
+                dos.write(input);
+                dos.close();
+                deflater.end();
+                return deflaterStream.toByteArray();
+            case COMPRESSION_BZIP2:
+                ByteArrayOutputStream bzipStream = new ByteArrayOutputStream();
+                OutputStream bos = new BZip2CompressorOutputStream(bzipStream);
+                bos.write(input);
+                bos.close();
+                return bzipStream.toByteArray();
+            case COMPRESSION_LZMA:
+                return compressLzma(input, 0, input.length);
+            case COMPRESSION_LZMA_BLOCKS:
+                return compressLzmaBlocks(input);
+            default:
+                throw new IllegalArgumentException("compress() unknown compression method "+method);
+        } // switch
+    } // compress()
+
+
+    /**
+     * Wrap a stream of compressed data with the decompression for the given method.
+     *
+     * @param method compression marker
+     * @param in stream of compressed data
+     * @param length length of the original data
+     * @return stream of decompressed data
+     */
+    static InputStream decompress(byte method, InputStream in, long length) throws IOException {
+        if (method==COMPRESSION_DEFLATE) {
+            Inflater inflater = new Inflater(true);
+            in = new InflaterInputStream(in, inflater, COMPRESSION_BUFFER_SIZE);
+        } // if
+        if (method==COMPRESSION_BZIP2) {
+            in = new BZip2CompressorInputStream(in);
+        } // if
+        if (method==COMPRESSION_LZMA) {
+            byte[] properties = new byte[LZMA_PROPERTIES_SIZE];
+            int readBytes = in.read(properties, 0, properties.length);
+            LOG.info("JFSEncryptedStream.decompress() readBytes={}", readBytes);
+            if (readBytes!=properties.length) {
+                LOG.warn("JFSEncryptedStream.decompress() short read for LZMA decoder parameters.");
+            }
+            Decoder decoder = new Decoder();
+            if (!decoder.SetDecoderProperties(properties)) {
+                LOG.warn("JFSEncryptedStream.decompress() could not set LZMA decoder parameters.");
+            }
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            decoder.Code(in, outputStream, length);
+            in.close();
+            outputStream.close();
+            LOG.debug("JFSEncryptedStream.decompress() {}", outputStream.size());
+            in = new ByteArrayInputStream(outputStream.toByteArray());
+        } // if
+        if (method==COMPRESSION_LZMA_BLOCKS) {
+            byte[] decompressed = decompressLzmaBlocks(in, length);
+            in.close();
+            LOG.debug("JFSEncryptedStream.decompress() {}", decompressed.length);
+            in = new ByteArrayInputStream(decompressed);
+        } // if
+        return in;
+    } // decompress()
+
+
     private JFSEncryptedStream(OutputStream baseOutputStream, Cipher cipher) {
         this.delegate = new ByteArrayOutputStream();
         this.baseOutputStream = baseOutputStream;
@@ -169,18 +458,17 @@ public class JFSEncryptedStream extends OutputStream {
 
         if (l>32) {
             LOG.info("internalClose() checking for compressions.");
+            // Large input is split into blocks to use all processors for the slow LZMA compression. Since older
+            // releases cannot read the result, this has to be enabled explicitly.
+            final boolean lzmaBlocks = JFSConfig.getInstance().isCompressionBlocks()&&(LZMA_PARALLELISM>1)
+                    &&(originalBytes.length>=2*LZMA_BLOCK_SIZE);
 
             CompressionThread dt = new CompressionThread(originalBytes) {
 
                 @Override
                 public void run() {
                     try {
-                        ByteArrayOutputStream deflaterStream = new ByteArrayOutputStream();
-                        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
-                        OutputStream dos = new DeflaterOutputStream(deflaterStream, deflater, COMPRESSION_BUFFER_SIZE);
-                        dos.write(originalBytes);
-                        dos.close();
-                        compressedValue = deflaterStream.toByteArray();
+                        compressedValue = compress(COMPRESSION_DEFLATE, originalBytes);
                     } catch (Throwable e) {
                         LOG.error("run()", e);
                     } // try/catch
@@ -194,11 +482,7 @@ public class JFSEncryptedStream extends OutputStream {
                 public void run() {
                     try {
                         if (originalBytes.length<BZIP_MAX_LENGTH) {
-                            ByteArrayOutputStream bzipStream = new ByteArrayOutputStream();
-                            OutputStream bos = new BZip2CompressorOutputStream(bzipStream);
-                            bos.write(originalBytes);
-                            bos.close();
-                            compressedValue = bzipStream.toByteArray();
+                            compressedValue = compress(COMPRESSION_BZIP2, originalBytes);
                         } // if
                     } catch (Throwable e) {
                         LOG.error("run()", e);
@@ -209,47 +493,10 @@ public class JFSEncryptedStream extends OutputStream {
 
             CompressionThread lt = new CompressionThread(originalBytes) {
 
-                /*
-             * // "  -a{N}:  set compression mode - [0, 1], default: 1 (max)\n" +
-             * "  -d{N}:  set dictionary - [0,28], default: 23 (8MB)\n"
-             * +"  -fb{N}: set number of fast bytes - [5, 273], default: 128\n"
-             * +"  -lc{N}: set number of literal context bits - [0, 8], default: 3\n"
-             * +"  -lp{N}: set number of literal pos bits - [0, 4], default: 0\n"
-             * +"  -pb{N}: set number of pos bits - [0, 4], default: 2\n"
-             * +"  -mf{MF_ID}: set Match Finder: [bt2, bt4], default: bt4\n"+"  -eos:   write End Of Stream marker\n");
-                 */
-                private static final int dictionarySize = 1<<23;
-
-                private static final int lc = 3;
-
-                private static final int lp = 0;
-
-                private static final int pb = 2;
-
-                private static final int fb = 128;
-
-                public int algorithm = 2;
-
-                public int matchFinderIndex = 1; // 0, 1, 2
-
-
                 @Override
                 public void run() {
                     try {
-                        Encoder encoder = new Encoder();
-                        encoder.SetEndMarkerMode(false);
-                        encoder.SetAlgorithm(algorithm); // Whatever that means
-                        encoder.SetDictionarySize(dictionarySize);
-                        encoder.SetNumFastBytes(fb);
-                        encoder.SetMatchFinder(matchFinderIndex);
-                        encoder.SetLcLpPb(lc, lp, pb);
-
-                        ByteArrayOutputStream lzmaStream = new ByteArrayOutputStream();
-                        ByteArrayInputStream inStream = new ByteArrayInputStream(originalBytes);
-
-                        encoder.WriteCoderProperties(lzmaStream);
-                        encoder.Code(inStream, lzmaStream, -1, -1, null);
-                        compressedValue = lzmaStream.toByteArray();
+                        compressedValue = compress(lzmaBlocks ? COMPRESSION_LZMA_BLOCKS : COMPRESSION_LZMA, originalBytes);
                     } catch (Throwable e) {
                         LOG.error("run()", e);
                     } // try/catch
@@ -278,7 +525,7 @@ public class JFSEncryptedStream extends OutputStream {
 
             compressedLength = lt.compressedValue.length;
             if ((compressedLength>5)&&(compressedLength<l)) {
-                marker = COMPRESSION_LZMA;
+                marker = lzmaBlocks ? COMPRESSION_LZMA_BLOCKS : COMPRESSION_LZMA;
                 bytes = lt.compressedValue;
                 l = bytes.length;
             } // if
@@ -297,6 +544,9 @@ public class JFSEncryptedStream extends OutputStream {
             if (marker==COMPRESSION_LZMA) {
                 LOG.info("internalClose() using lzma");
             } // if
+            if (marker==COMPRESSION_LZMA_BLOCKS) {
+                LOG.info("internalClose() using lzma blocks");
+            } // if
         } else {
             LOG.info("internalClose() not trying to compress size {}.", l);
         }
@@ -387,33 +637,7 @@ public class JFSEncryptedStream extends OutputStream {
             } else {
                 in = new ByteArrayInputStream(NO_BYTES);
             } // if
-            if (marker==COMPRESSION_DEFLATE) {
-                Inflater inflater = new Inflater(true);
-                in = new InflaterInputStream(in, inflater, COMPRESSION_BUFFER_SIZE);
-            } // if
-            if (marker==COMPRESSION_BZIP2) {
-                in = new BZip2CompressorInputStream(in);
-            } // if
-            if (marker==COMPRESSION_LZMA) {
-                byte[] properties = new byte[5];
-                int readBytes = in.read(properties, 0, properties.length);
-                LOG.info("JFSEncryptedStream.createInputStream() readBytes={}", readBytes);
-                if (readBytes!=properties.length) {
-                    LOG.warn("JFSEncryptedStream.createInputStream() short read for LZMA decoder parameters.");
-                }
-                Decoder decoder = new Decoder();
-                if (!decoder.SetDecoderProperties(properties)) {
-                    LOG.warn("JFSEncryptedStream.createInputStream() could not set LZMA decoder parameters.");
-                }
-
-                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-                decoder.Code(in, outputStream, l);
-                in.close();
-                outputStream.close();
-                LOG.debug("JFSEncryptedStream.createInputStream() {}", outputStream.size());
-                in = new ByteArrayInputStream(outputStream.toByteArray());
-            } // if
-            return in;
+            return decompress(marker, in, l);
         } catch (Error error) {
             throw new IOException("createInputStream() "+error.getLocalizedMessage(), error);
         } // try/catch
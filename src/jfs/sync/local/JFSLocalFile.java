@@ -25,11 +25,15 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.StandardOpenOption;
 import jfs.conf.JFSConfig;
 import jfs.conf.JFSLog;
 import jfs.conf.JFSText;
 import jfs.sync.JFSFile;
 import jfs.sync.JFSFileProducer;
+import jfs.sync.JFSFormatter;
 import jfs.sync.JFSProgress;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -223,10 +227,10 @@ public class JFSLocalFile extends JFSFile {
 
 
     /**
-     * @see JFSFile#getList()
+     * @see JFSFile#internalGetList()
      */
     @Override
-    public final JFSFile[] getList() {
+    protected final JFSFile[] internalGetList() {
         if (list==null) {
             String[] files = file.list();
 
@@ -272,10 +276,10 @@ public class JFSLocalFile extends JFSFile {
 
 
     /**
-     * @see JFSFile#setLastModified(long)
+     * @see JFSFile#internalSetLastModified(long)
      */
     @Override
-    public final boolean setLastModified(long time) {
+    protected final boolean internalSetLastModified(long time) {
         boolean success = file.setLastModified(time);
 
         if (success) {
@@ -335,14 +339,29 @@ public class JFSLocalFile extends JFSFile {
 
 
     /**
-     * @see JFSFile#delete()
+     * @see JFSFile#internalDelete()
      */
     @Override
-    public final boolean delete() {
+    protected final boolean internalDelete() {
         return file.delete();
     }
 
 
+    /**
+     * @see JFSFile#internalRenameTo(String)
+     */
+    @Override
+    protected final boolean internalRenameTo(String relativePath) {
+        File target = new File(fileProducer.getRootPath()+JFSFormatter.replaceSeparatorChar(relativePath));
+        if (target.exists()) {
+            return false;
+        }
+        boolean success = file.renameTo(target);
+        LOG.debug("renameTo() {} -> {}: {}", file, target, success);
+        return success;
+    }
+
+
     /**
      * @see JFSFile#getInputStream()
      */
@@ -373,6 +392,16 @@ public class JFSLocalFile extends JFSFile {
     }
 
 
+    /**
+     * @see JFSFile#getRandomAccessChannel()
+     */
+    @Override
+    protected SeekableByteChannel getRandomAccessChannel() throws IOException {
+        file.setWritable(true);
+        return FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+
     /**
      * @see JFSFile#closeInputStream()
      */
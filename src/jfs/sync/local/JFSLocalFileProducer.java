@@ -61,4 +61,16 @@ public class JFSLocalFileProducer extends JFSFileProducer {
         return File.separatorChar == '/';
     }
 
+
+    @Override
+    public boolean isConcurrentReading() {
+        return true;
+    }
+
+
+    @Override
+    public boolean canMove() {
+        return true;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,311 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync.util;
+
+import com.github.sardine.DavResource;
+import com.github.sardine.Sardine;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.xml.namespace.QName;
+import jfs.conf.JFSConst;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Snapshot of the folder listings of a WebDAV tree kept across runs.
+ *
+ * The listings obtained during a run are stored in the JFS configuration directory after synchronization - apart from
+ * the folders modified during the run. On the next run a stored listing is only used if the folder's current ETag, or
+ * its modification date if the server doesn't provide ETags for folders, matches the stored one. The current validator
+ * of a folder is taken from a fresh listing of its parent if available and fetched with a depth 0 request otherwise.
+ *
+ * RFC 4918 doesn't require the ETag of a collection to change with changes deeper in the tree - Apache's mod_dav e.g.
+ * derives it from the folder itself, so it only changes with its direct children. So every folder is validated on its
+ * own by default. Only for servers known to change the ETags of all folders above a change - like Nextcloud or
+ * ownCloud - a matching ETag may be configured to validate the whole sub tree, saving the requests for the folders
+ * below it.
+ */
+public class DavListingSnapshot {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DavListingSnapshot.class);
+
+    private static final String ETAG_PREFIX = "E";
+
+    private static final String MODIFIED_PREFIX = "M";
+
+    private final String rootUrl;
+
+    private final File file;
+
+    /**
+     * Tell if a matching folder ETag validates the whole sub tree below the folder.
+     */
+    private final boolean trustTrees;
+
+    /**
+     * Listings read from the snapshot file.
+     */
+    private Map<String, List<Entry>> stored = Collections.emptyMap();
+
+    /**
+     * Listings obtained in this run to be stored for the next one.
+     */
+    private final Map<String, List<DavResource>> listings = new HashMap<>();
+
+    /**
+     * Current validators of folders derived from fresh listings of their parents.
+     */
+    private final Map<String, String> validators = new HashMap<>();
+
+    /**
+     * Roots of sub trees validated through their ETag if sub trees are trusted.
+     */
+    private final Set<String> validTrees = new HashSet<>();
+
+    /**
+     * Folders changed in this run.
+     */
+    private final Set<String> modified = new HashSet<>();
+
+
+    /**
+     * Serializable form of a listed resource.
+     */
+    private static class Entry implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String href;
+
+        private boolean directory;
+
+        private String contentType;
+
+        private long contentLength;
+
+        private long creation;
+
+        private long modified;
+
+        private String etag;
+
+        private String displayName;
+
+        private HashMap<QName, String> customProps;
+
+
+        Entry(DavResource resource) {
+            href = resource.getHref().toString();
+            directory = resource.isDirectory();
+            contentType = resource.getContentType();
+            contentLength = resource.getContentLength();
+            creation = resource.getCreation()==null ? -1 : resource.getCreation().getTime();
+            modified = resource.getModified()==null ? -1 : resource.getModified().getTime();
+            etag = resource.getEtag();
+            displayName = resource.getDisplayName();
+            customProps = new HashMap<>(resource.getCustomPropsNS());
+        } // Entry()
+
+
+        DavResource toResource() throws URISyntaxException {
+            List<QName> types = directory ? Collections.singletonList(new QName(DavUtils.NS_DAV, "collection")) : Collections.emptyList();
+            return new StreamedDavResource(href, creation<0 ? null : new Date(creation), modified<0 ? null : new Date(modified),
+                    contentType, contentLength, etag, displayName, types, null, customProps);
+        } // toResource()
+
+    } // Entry
+
+
+    /**
+     * Create a snapshot for the tree starting at the given URL.
+     *
+     * @param rootUrl URL of the root folder of the tree
+     * @param trustTrees take a matching folder ETag as proof for the whole sub tree being unchanged - only for servers
+     * changing the ETag of a folder with any change below it
+     */
+    public DavListingSnapshot(String rootUrl, boolean trustTrees) {
+        this.trustTrees = trustTrees;
+        this.rootUrl = rootUrl.endsWith("/") ? rootUrl.substring(0, rootUrl.length()-1) : rootUrl;
+        file = new File(JFSConst.HOME_DIR+File.separatorChar+JFSConst.LISTING_FILE_PREFIX
+                +Integer.toHexString(this.rootUrl.hashCode())+".ser");
+    } // DavListingSnapshot()
+
+
+    private static String getValidator(DavResource resource) {
+        if (resource.getEtag()!=null) {
+            return ETAG_PREFIX+resource.getEtag();
+        } // if
+        return resource.getModified()==null ? null : MODIFIED_PREFIX+resource.getModified().getTime();
+    } // getValidator()
+
+
+    private boolean isInValidTree(String key) {
+        for (String tree : validTrees) {
+            if (DavTreeListing.isWithin(key, tree)) {
+                return true;
+            } // if
+        } // for
+        return false;
+    } // isInValidTree()
+
+
+    /**
+     * Read the snapshot of the last run if present.
+     */
+    @SuppressWarnings("unchecked")
+    public void load() {
+        if (!file.exists()) {
+            return;
+        } // if
+        try (InputStream is = new GZIPInputStream(new FileInputStream(file)); ObjectInputStream ois = new ObjectInputStream(is)) {
+            String url = (String) ois.readObject();
+            if (rootUrl.equals(url)) {
+                stored = (Map<String, List<Entry>>) ois.readObject();
+                LOG.info("load() {} folders for {}", stored.size(), rootUrl);
+            } // if
+        } catch (IOException|ClassNotFoundException|ClassCastException e) {
+            LOG.warn("load() ignoring snapshot {}: {}", file, e.getMessage());
+        } // try/catch
+    } // load()
+
+
+    /**
+     * Obtain the stored listing of a folder if the folder is unchanged since the last run.
+     *
+     * @param sardine WebDAV client to use for validation requests
+     * @param url URL of the folder
+     * @return stored listing or null if the folder has to be listed
+     */
+    public List<DavResource> getListing(Sardine sardine, String url) {
+        String key = DavTreeListing.getKey(url);
+        List<Entry> entries = stored.get(key);
+        if ((entries==null)||entries.isEmpty()) {
+            return null;
+        } // if
+        List<DavResource> listing = new ArrayList<>(entries.size());
+        try {
+            for (Entry entry : entries) {
+                listing.add(entry.toResource());
+            } // for
+            if (!(trustTrees&&isInValidTree(key))) {
+                String validator = validators.get(key);
+                if (validator==null) {
+                    List<DavResource> self = sardine.list(url, 0, DavUtils.getCustomDavProperties());
+                    validator = self.isEmpty() ? null : getValidator(self.get(0));
+                } // if
+                if ((validator==null)||!validator.equals(getValidator(listing.get(0)))) {
+                    LOG.debug("getListing() {} changed", key);
+                    return null;
+                } // if
+                if (trustTrees&&validator.startsWith(ETAG_PREFIX)) {
+                    validTrees.add(key);
+                } // if
+            } // if
+        } catch (IOException|URISyntaxException e) {
+            LOG.warn("getListing() cannot use snapshot for {}: {}", key, e.getMessage());
+            return null;
+        } // try/catch
+        LOG.debug("getListing() {} unchanged", key);
+        listings.put(key, listing);
+        return listing;
+    } // getListing()
+
+
+    /**
+     * Take note of a freshly obtained listing.
+     *
+     * @param url URL of the listed folder
+     * @param listing the folder itself followed by its direct children
+     */
+    public void put(String url, List<DavResource> listing) {
+        String key = DavTreeListing.getKey(url);
+        listings.put(key, listing);
+        for (DavResource resource : listing) {
+            String validator = getValidator(resource);
+            if (resource.isDirectory()&&(validator!=null)) {
+                validators.put(DavTreeListing.getKey(resource.getPath()), validator);
+            } // if
+        } // for
+    } // put()
+
+
+    /**
+     * Take note of a modification of a resource, so that the listings containing it are not stored.
+     *
+     * @param url URL of the modified resource
+     */
+    public void modified(String url) {
+        String key = DavTreeListing.getKey(url);
+        modified.add(key);
+        int idx = key.lastIndexOf('/');
+        if (idx>=0) {
+            modified.add(key.substring(0, idx));
+        } // if
+    } // modified()
+
+
+    /**
+     * Store the listings of this run apart from the modified ones.
+     */
+    public void store() {
+        HashMap<String, List<Entry>> snapshot = new HashMap<>(listings.size()*2);
+        for (Map.Entry<String, List<DavResource>> listing : listings.entrySet()) {
+            if (!modified.contains(listing.getKey())) {
+                List<Entry> entries = new ArrayList<>(listing.getValue().size());
+                for (DavResource resource : listing.getValue()) {
+                    entries.add(new Entry(resource));
+                } // for
+                snapshot.put(listing.getKey(), entries);
+            } // if
+        } // for
+        File temp = new File(file.getPath()+".tmp");
+        file.getParentFile().mkdirs();
+        try (OutputStream os = new GZIPOutputStream(new FileOutputStream(temp)); ObjectOutputStream oos = new ObjectOutputStream(os)) {
+            oos.writeObject(rootUrl);
+            oos.writeObject(snapshot);
+        } catch (IOException ioe) {
+            LOG.error("store() cannot write snapshot {}", file, ioe);
+            temp.delete();
+            return;
+        } // try/catch
+        if (!(temp.renameTo(file)||(file.delete()&&temp.renameTo(file)))) {
+            LOG.error("store() cannot replace snapshot {}", file);
+        } // if
+        LOG.info("store() {} folders for {}", snapshot.size(), rootUrl);
+    } // store()
+
+} // DavListingSnapshot
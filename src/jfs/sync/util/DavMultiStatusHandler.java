@@ -0,0 +1,298 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync.util;
+
+import com.github.sardine.DavResource;
+import com.github.sardine.impl.SardineException;
+import com.github.sardine.util.SardineUtil;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.StatusLine;
+import org.apache.http.client.ResponseHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Response handler parsing WebDAV multi status responses while they are being received.
+ *
+ * Unlike the Sardine default handling the response is not unmarshalled as a whole, so even listings of large trees
+ * only need memory for the resulting resources. Only properties with a successful status are taken into account.
+ *
+ * The resources are passed to the given consumer only after the whole response has been parsed. A response failing
+ * midway - e.g. on a socket timeout - thus leaves no partial results in the consumer, and the request may be retried
+ * with the same handler.
+ */
+public class DavMultiStatusHandler implements ResponseHandler<Integer> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DavMultiStatusHandler.class);
+
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newInstance();
+
+    private static final String ELEMENT_RESPONSE = "response";
+
+    private static final String ELEMENT_HREF = "href";
+
+    private static final String ELEMENT_PROPSTAT = "propstat";
+
+    private static final String ELEMENT_PROP = "prop";
+
+    private static final String ELEMENT_STATUS = "status";
+
+    private static final String PROP_RESOURCE_TYPE = "resourcetype";
+
+    private static final String PROP_CONTENT_LENGTH = "getcontentlength";
+
+    private static final String PROP_CONTENT_TYPE = "getcontenttype";
+
+    private static final String PROP_CONTENT_LANGUAGE = "getcontentlanguage";
+
+    private static final String PROP_CREATION_DATE = "creationdate";
+
+    private static final String PROP_DISPLAY_NAME = "displayname";
+
+    private static final String PROP_ETAG = "getetag";
+
+    private static final String COLLECTION = "collection";
+
+    private final Consumer<DavResource> consumer;
+
+
+    static {
+        FACTORY.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    }
+
+
+    /**
+     * Create a handler passing each parsed resource to the given consumer.
+     *
+     * @param consumer receiver of the parsed resources
+     */
+    public DavMultiStatusHandler(Consumer<DavResource> consumer) {
+        this.consumer = consumer;
+    } // DavMultiStatusHandler()
+
+
+    private static boolean isDav(XMLStreamReader reader, String localName) {
+        return DavUtils.NS_DAV.equals(reader.getNamespaceURI())&&localName.equals(reader.getLocalName());
+    } // isDav()
+
+
+    /**
+     * Read the complete text content of the current element including all nested elements.
+     *
+     * @return trimmed text content
+     */
+    private static String readText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder(64);
+        int level = 1;
+        while (level>0) {
+            int event = reader.next();
+            if (event==XMLStreamReader.START_ELEMENT) {
+                level++;
+            } else if (event==XMLStreamReader.END_ELEMENT) {
+                level--;
+            } else if ((event==XMLStreamReader.CHARACTERS)||(event==XMLStreamReader.CDATA)) {
+                text.append(reader.getText());
+            } // if
+        } // while
+        return text.toString().trim();
+    } // readText()
+
+
+    /**
+     * Read the names of all direct child elements of the current element.
+     */
+    private static List<QName> readTypes(XMLStreamReader reader) throws XMLStreamException {
+        List<QName> types = new ArrayList<>(1);
+        int level = 1;
+        while (level>0) {
+            int event = reader.next();
+            if (event==XMLStreamReader.START_ELEMENT) {
+                if (level==1) {
+                    types.add(reader.getName());
+                } // if
+                level++;
+            } else if (event==XMLStreamReader.END_ELEMENT) {
+                level--;
+            } // if
+        } // while
+        return types;
+    } // readTypes()
+
+
+    private static Date parseDate(String value) {
+        return value==null ? null : SardineUtil.parseDate(value);
+    } // parseDate()
+
+
+    private DavResource createResource(String href, Map<QName, String> properties, List<QName> resourceTypes) throws URISyntaxException {
+        Map<QName, String> customProps = new HashMap<>();
+        Map<String, String> davProps = new HashMap<>();
+        for (Map.Entry<QName, String> property : properties.entrySet()) {
+            QName name = property.getKey();
+            if (DavUtils.NS_DAV.equals(name.getNamespaceURI())&&!DavUtils.PROP_LAST_MODIFIED.equals(name.getLocalPart())) {
+                davProps.put(name.getLocalPart(), property.getValue());
+            } else {
+                customProps.put(name, property.getValue());
+            } // if
+        } // for
+        boolean collection = false;
+        for (QName type : resourceTypes) {
+            collection = collection||(DavUtils.NS_DAV.equals(type.getNamespaceURI())&&COLLECTION.equals(type.getLocalPart()));
+        } // for
+        String contentType = davProps.get(PROP_CONTENT_TYPE);
+        if (collection) {
+            contentType = DavResource.HTTPD_UNIX_DIRECTORY_CONTENT_TYPE;
+        } else if (contentType==null) {
+            contentType = DavResource.DEFAULT_CONTENT_TYPE;
+        } // if
+        Long contentLength = DavResource.DEFAULT_CONTENT_LENGTH;
+        String length = davProps.get(PROP_CONTENT_LENGTH);
+        if (length!=null) {
+            try {
+                contentLength = Long.valueOf(length);
+            } catch (NumberFormatException nfe) {
+                LOG.warn("createResource() illegal content length {} for {}", length, href);
+            } // try/catch
+        } // if
+        return new StreamedDavResource(href, parseDate(davProps.get(PROP_CREATION_DATE)),
+                parseDate(davProps.get(DavUtils.PROP_GET_LAST_MODIFIED)), contentType, contentLength,
+                davProps.get(PROP_ETAG), davProps.get(PROP_DISPLAY_NAME), resourceTypes,
+                davProps.get(PROP_CONTENT_LANGUAGE), customProps);
+    } // createResource()
+
+
+    /**
+     * Parse the multi status body and pass the resources to the consumer when the whole body has been read.
+     *
+     * @param input stream of the multi status XML document
+     * @return number of resources found
+     * @throws IOException on read or format errors
+     */
+    public int parse(InputStream input) throws IOException {
+        List<DavResource> resources = new ArrayList<>();
+        try {
+            XMLStreamReader reader = FACTORY.createXMLStreamReader(input);
+            try {
+                String href = null;
+                Map<QName, String> properties = new HashMap<>();
+                List<QName> resourceTypes = Collections.emptyList();
+                Map<QName, String> statProperties = new HashMap<>();
+                List<QName> statTypes = null;
+                String status = null;
+                boolean inPropstat = false;
+                boolean inProp = false;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event==XMLStreamReader.START_ELEMENT) {
+                        if (inProp) {
+                            if (isDav(reader, PROP_RESOURCE_TYPE)) {
+                                statTypes = readTypes(reader);
+                            } else {
+                                QName name = reader.getName();
+                                statProperties.put(name, readText(reader));
+                            } // if
+                        } else if (isDav(reader, ELEMENT_RESPONSE)) {
+                            href = null;
+                            properties = new HashMap<>();
+                            resourceTypes = Collections.emptyList();
+                        } else if (isDav(reader, ELEMENT_PROPSTAT)) {
+                            inPropstat = true;
+                            statProperties = new HashMap<>();
+                            statTypes = null;
+                            status = null;
+                        } else if (isDav(reader, ELEMENT_PROP)&&inPropstat) {
+                            inProp = true;
+                        } else if (isDav(reader, ELEMENT_STATUS)&&inPropstat) {
+                            status = readText(reader);
+                        } else if (isDav(reader, ELEMENT_HREF)&&!inPropstat) {
+                            href = readText(reader);
+                        } // if
+                    } else if (event==XMLStreamReader.END_ELEMENT) {
+                        if (isDav(reader, ELEMENT_PROP)) {
+                            inProp = false;
+                        } else if (isDav(reader, ELEMENT_PROPSTAT)) {
+                            inPropstat = false;
+                            // properties missing on the server are reported with status 404 and are ignored
+                            if ((status==null)||status.contains(" 200")) {
+                                properties.putAll(statProperties);
+                                if (statTypes!=null) {
+                                    resourceTypes = statTypes;
+                                } // if
+                            } // if
+                        } else if (isDav(reader, ELEMENT_RESPONSE)&&(href!=null)) {
+                            resources.add(createResource(href, properties, resourceTypes));
+                        } // if
+                    } // if
+                } // while
+            } finally {
+                reader.close();
+            } // try/finally
+        } catch (XMLStreamException|URISyntaxException e) {
+            throw new IOException("Unparseable multi status response", e);
+        } // try/catch
+        LOG.debug("parse() {} resources", resources.size());
+        for (DavResource resource : resources) {
+            consumer.accept(resource);
+        } // for
+        return resources.size();
+    } // parse()
+
+
+    /**
+     * Validate the status of the response and parse its body.
+     *
+     * @param response HTTP response of a PROPFIND request
+     * @return number of resources found
+     * @throws IOException on unexpected status codes, read errors, or format errors
+     */
+    @Override
+    public Integer handleResponse(HttpResponse response) throws IOException {
+        StatusLine statusLine = response.getStatusLine();
+        int statusCode = statusLine.getStatusCode();
+        if ((statusCode!=HttpStatus.SC_MULTI_STATUS)&&(statusCode!=HttpStatus.SC_OK)) {
+            throw new SardineException("Unexpected response", statusCode, statusLine.getReasonPhrase());
+        } // if
+        HttpEntity entity = response.getEntity();
+        if (entity==null) {
+            throw new SardineException("No entity found in response", statusCode, statusLine.getReasonPhrase());
+        } // if
+        try (InputStream input = entity.getContent()) {
+            return parse(input);
+        } // try
+    } // handleResponse()
+
+} // DavMultiStatusHandler
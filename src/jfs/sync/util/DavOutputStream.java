@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync.util;
+
+import com.github.sardine.Sardine;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Output stream streaming its contents to a WebDAV resource while it is being written.
+ *
+ * The written data is passed through a bounded pipe to a separate upload thread issuing the PUT request, so that
+ * reading, encryption, and upload overlap and no more than the pipe buffer is held in memory. If the length of the
+ * resulting resource is not known in advance, chunked transfer encoding is used.
+ */
+public class DavOutputStream extends OutputStream {
+
+    /**
+     * Marker for unknown content length resulting in chunked transfer encoding.
+     */
+    public static final long UNKNOWN_LENGTH = -1;
+
+    private static final Logger LOG = LoggerFactory.getLogger(DavOutputStream.class);
+
+    private static final int MIN_BUFFER_SIZE = 8192;
+
+    private final String url;
+
+    private final PipedOutputStream pipe;
+
+    private final Thread uploader;
+
+    private volatile IOException failure = null;
+
+    private boolean closed = false;
+
+
+    /**
+     * Start upload of a new resource.
+     *
+     * @param sardine WebDAV client instance to use
+     * @param url URL of the resource to write
+     * @param contentLength length of the resource if known - UNKNOWN_LENGTH otherwise
+     * @param bufferSize maximum number of bytes buffered between the writer and the upload
+     * @throws IOException pipe could not be set up
+     */
+    public DavOutputStream(final Sardine sardine, final String url, final long contentLength, int bufferSize) throws IOException {
+        this.url = url;
+        final PipedInputStream input = new PipedInputStream(Math.max(bufferSize, MIN_BUFFER_SIZE));
+        pipe = new PipedOutputStream(input);
+        uploader = new Thread("DAV PUT "+url) {
+
+            @Override
+            public void run() {
+                try {
+                    LOG.debug("run() starting upload of {} ({})", url, contentLength);
+                    sardine.put(url, input, null, true, contentLength<0 ? UNKNOWN_LENGTH : contentLength);
+                    LOG.debug("run() upload of {} done", url);
+                } catch (IOException ioe) {
+                    LOG.error("run() upload of {} failed", url, ioe);
+                    failure = ioe;
+                } catch (RuntimeException re) {
+                    LOG.error("run() upload of {} failed", url, re);
+                    failure = new IOException(re);
+                } finally {
+                    try {
+                        // Unblock a possibly waiting writer
+                        input.close();
+                    } catch (IOException ioe) {
+                        LOG.warn("run() closing pipe {}", ioe.getMessage());
+                    } // try/catch
+                } // try/finally
+            } // run()
+
+        };
+        uploader.setDaemon(true);
+        uploader.start();
+    } // DavOutputStream()
+
+
+    private void checkFailure() throws IOException {
+        if (failure!=null) {
+            throw new IOException("Upload failed for "+url, failure);
+        } // if
+    } // checkFailure()
+
+
+    @Override
+    public void write(int b) throws IOException {
+        checkFailure();
+        try {
+            pipe.write(b);
+        } catch (IOException ioe) {
+            checkFailure();
+            throw ioe;
+        } // try/catch
+    } // write()
+
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        checkFailure();
+        try {
+            pipe.write(b, off, len);
+        } catch (IOException ioe) {
+            checkFailure();
+            throw ioe;
+        } // try/catch
+    } // write()
+
+
+    @Override
+    public void flush() throws IOException {
+        checkFailure();
+        // Flushing the pipe only wakes up the reader - there is nothing to be forced to the server
+    } // flush()
+
+
+    /**
+     * Close the stream and wait for the upload to complete.
+     *
+     * Subsequent calls are ignored.
+     *
+     * @throws IOException upload failed
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        } // if
+        closed = true;
+        try {
+            pipe.close();
+        } catch (IOException ioe) {
+            LOG.debug("close() closing pipe {}", ioe.getMessage());
+        } // try/catch
+        try {
+            uploader.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for upload of "+url);
+        } // try/catch
+        LOG.debug("close() {}", url);
+        checkFailure();
+    } // close()
+
+} // DavOutputStream
@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync.util;
+
+import com.github.sardine.DavResource;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.xml.namespace.QName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Bulk listing of WebDAV folder trees.
+ *
+ * Instead of one round trip per folder, a whole sub tree is fetched with a single PROPFIND request with depth
+ * infinity. Since many servers refuse such requests, the listing falls back to issuing depth 1 requests for a bounded
+ * number of levels in parallel. The result maps the path of each listed folder to its listing in the form Sardine
+ * would have returned it: the folder itself first, followed by its direct children.
+ */
+public final class DavTreeListing {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DavTreeListing.class);
+
+    private static final String DEPTH_ONE = "1";
+
+
+    private DavTreeListing() {
+    }
+
+
+    /**
+     * Derive the key for the listing of a folder from its URL or path.
+     *
+     * The key is the decoded path without a trailing slash so that URLs built locally and paths reported by the server
+     * lead to the same key regardless of their encoding.
+     *
+     * @param url URL or path of the folder
+     * @return key for the folder in listing maps
+     */
+    public static String getKey(String url) {
+        String path = url;
+        try {
+            if (url.contains("://")) {
+                path = new URI(url).getPath();
+            } // if
+        } catch (URISyntaxException e) {
+            LOG.warn("getKey() {}", e.getMessage());
+        } // try/catch
+        if (path.endsWith("/")) {
+            path = path.substring(0, path.length()-1);
+        } // if
+        return path;
+    } // getKey()
+
+
+    /**
+     * Tell if a folder is the root folder or located somewhere below the root.
+     *
+     * @param key key of the folder in question
+     * @param rootKey key of the root folder
+     * @return true if the folder is part of the root's tree
+     */
+    public static boolean isWithin(String key, String rootKey) {
+        return key.equals(rootKey)||key.startsWith(rootKey+"/");
+    } // isWithin()
+
+
+    /**
+     * List the given folder with depth 1 moving the folder itself to the front of the listing.
+     */
+    private static List<DavResource> listFolder(PooledSardine sardine, String url, Set<QName> props) throws IOException {
+        final String key = getKey(url);
+        final List<DavResource> listing = new ArrayList<>();
+        sardine.propfind(url, DEPTH_ONE, props, new DavMultiStatusHandler(resource -> {
+            if (key.equals(getKey(resource.getPath()))) {
+                listing.add(0, resource);
+            } else {
+                listing.add(resource);
+            } // if
+        }));
+        return listing;
+    } // listFolder()
+
+
+    /**
+     * Fetch the whole tree with one request.
+     */
+    private static Map<String, List<DavResource>> listInfinity(PooledSardine sardine, String url, Set<QName> props) throws IOException {
+        final String rootKey = getKey(url);
+        final Map<String, DavResource> folders = new HashMap<>();
+        final Map<String, List<DavResource>> children = new HashMap<>();
+        sardine.propfind(url, PooledSardine.DEPTH_INFINITY, props, new DavMultiStatusHandler(resource -> {
+            String key = getKey(resource.getPath());
+            if (resource.isDirectory()) {
+                folders.put(key, resource);
+            } // if
+            int idx = key.lastIndexOf('/');
+            if ((idx>=0)&&!key.equals(rootKey)) {
+                children.computeIfAbsent(key.substring(0, idx), k -> new ArrayList<>()).add(resource);
+            } // if
+        }));
+        Map<String, List<DavResource>> result = new HashMap<>(folders.size()*2);
+        for (Map.Entry<String, DavResource> folder : folders.entrySet()) {
+            List<DavResource> folderChildren = children.getOrDefault(folder.getKey(), Collections.emptyList());
+            List<DavResource> listing = new ArrayList<>(folderChildren.size()+1);
+            listing.add(folder.getValue());
+            listing.addAll(folderChildren);
+            result.put(folder.getKey(), listing);
+        } // for
+        return result;
+    } // listInfinity()
+
+
+    /**
+     * Fetch the given number of levels of the tree level by level with parallel depth 1 requests.
+     */
+    private static Map<String, List<DavResource>> listLevels(final PooledSardine sardine, String url, int depth, final Set<QName> props, int parallel) throws IOException {
+        Map<String, List<DavResource>> result = new HashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallel), r -> {
+            Thread thread = new Thread(r, "DAV listing");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<String> level = Collections.singletonList(url);
+            int levels = 0;
+            while (!level.isEmpty()&&((depth<=0)||(levels<depth))) {
+                List<Future<List<DavResource>>> listings = new ArrayList<>(level.size());
+                for (final String folderUrl : level) {
+                    listings.add(executor.submit(() -> listFolder(sardine, folderUrl, props)));
+                } // for
+                List<String> nextLevel = new ArrayList<>();
+                for (int i = 0; i<level.size(); i++) {
+                    String folderUrl = level.get(i);
+                    String key = getKey(folderUrl);
+                    try {
+                        List<DavResource> listing = listings.get(i).get();
+                        result.put(key, listing);
+                        URI base = new URI(folderUrl);
+                        for (DavResource resource : listing) {
+                            if (resource.isDirectory()&&!key.equals(getKey(resource.getPath()))) {
+                                nextLevel.add(base.resolve(resource.getHref()).toString());
+                            } // if
+                        } // for
+                    } catch (ExecutionException|URISyntaxException e) {
+                        // The folder is listed again on its own when it is needed
+                        LOG.warn("listLevels() skipping {}: {}", folderUrl, e.getMessage());
+                    } // try/catch
+                } // for
+                LOG.debug("listLevels() level {}: {} folders", levels, level.size());
+                level = nextLevel;
+                levels++;
+            } // while
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while listing "+url);
+        } finally {
+            executor.shutdownNow();
+        } // try/finally
+        return result;
+    } // listLevels()
+
+
+    /**
+     * List the tree starting at the given folder URL.
+     *
+     * @param sardine WebDAV client to use
+     * @param url URL of the root folder of the tree to list
+     * @param depth number of levels to list - 0 or less for the whole tree
+     * @param props additional properties to request for each resource
+     * @param parallel maximum number of concurrent requests when listing level by level
+     * @return map from the keys of the listed folders to their listings
+     * @throws IOException if not even the root folder could be listed
+     */
+    public static Map<String, List<DavResource>> list(PooledSardine sardine, String url, int depth, Set<QName> props, int parallel) throws IOException {
+        long start = System.currentTimeMillis();
+        Map<String, List<DavResource>> result = null;
+        if (depth<=0) {
+            try {
+                result = listInfinity(sardine, url, props);
+            } catch (IOException ioe) {
+                LOG.info("list() depth infinity not available for {}: {}", url, ioe.getMessage());
+            } // try/catch
+        } // if
+        if (result==null) {
+            result = listLevels(sardine, url, depth, props, parallel);
+        } // if
+        if (!result.containsKey(getKey(url))) {
+            throw new IOException("Could not list "+url);
+        } // if
+        LOG.info("list() {} folders below {} in {}ms", result.size(), url, System.currentTimeMillis()-start);
+        return result;
+    } // list()
+
+} // DavTreeListing
@@ -0,0 +1,467 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync.util;
+
+import com.github.sardine.impl.SardineException;
+import com.github.sardine.impl.SardineImpl;
+import com.github.sardine.impl.handler.MultiStatusResponseHandler;
+import com.github.sardine.impl.methods.HttpPropFind;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ProxySelector;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.net.ssl.SSLException;
+import javax.xml.namespace.QName;
+import jfs.conf.JFSConfig;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.config.Registry;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.HttpHostConnectException;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Sardine WebDAV client sharing one tunable HTTP connection pool with all other instances.
+ *
+ * The default Sardine setup creates a separate pool for each client allowing only two concurrent connections per
+ * server. Clients created from this class instead share a pool, where the number of connections per server, socket
+ * and connect timeouts, keep alive, and TCP_NODELAY are taken from the profile's server settings. So all producers
+ * pointing to the same server draw from the same set of connections.
+ *
+ * Requests failing with transient errors are repeated with exponentially growing, randomized delays. Requests which
+ * may safely be applied more than once are repeated on any transient error, all others only if the connection could
+ * not be established. Optionally, slow listing requests are hedged by issuing them a second time after a delay and
+ * taking the first answer. Retries and hedged requests are counted for all instances.
+ */
+public class PooledSardine extends SardineImpl {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PooledSardine.class);
+
+    /**
+     * Number of servers the overall number of pooled connections is sized for.
+     */
+    private static final int SERVERS = 4;
+
+    /**
+     * Re-check connections idle for longer than this number of ms before re-using them.
+     */
+    private static final int VALIDATE_AFTER_INACTIVITY = 2000;
+
+    /**
+     * Value of the depth header to request the properties of a whole sub tree.
+     */
+    public static final String DEPTH_INFINITY = "infinity";
+
+    /**
+     * Standard WebDAV properties requested for listings - the same set Sardine uses.
+     */
+    private static final String[] LISTING_PROPERTIES = {
+        "resourcetype", "getcontentlength", "getlastmodified", "creationdate", "displayname", "getcontenttype", "getetag"
+    };
+
+    /**
+     * Delay in ms before the first retry - doubled with each further retry.
+     */
+    private static final long RETRY_BASE_DELAY = 250;
+
+    /**
+     * Upper limit in ms for the delay between retries.
+     */
+    private static final long RETRY_MAX_DELAY = 8000;
+
+    /**
+     * Methods which may be applied more than once with the same result.
+     */
+    private static final Set<String> IDEMPOTENT_METHODS = new HashSet<>(Arrays.asList(
+            "GET", "HEAD", "OPTIONS", "PROPFIND", "PROPPATCH", "PUT", "DELETE", "REPORT", "SEARCH"));
+
+    private static final LongAdder RETRIES = new LongAdder();
+
+    private static final LongAdder FAILURES = new LongAdder();
+
+    private static final LongAdder HEDGES = new LongAdder();
+
+    private static final LongAdder HEDGE_WINS = new LongAdder();
+
+    private static final ExecutorService HEDGE_EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "DAV hedge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static PoolingHttpClientConnectionManager connectionManager = null;
+
+
+    /**
+     * A single attempt to issue a request.
+     */
+    private interface Attempt<T> {
+
+        T run() throws IOException;
+
+    } // Attempt
+
+
+    /**
+     * Create a WebDAV client using the shared connection pool.
+     *
+     * @param username user name for server authentication
+     * @param password password for server authentication
+     * @param selector proxy selector to use for connection routing
+     */
+    public PooledSardine(String username, String password, ProxySelector selector) {
+        super(username, password, selector);
+        LOG.debug("() webdav client for {} on pool {}", username, connectionManager);
+    } // PooledSardine()
+
+
+    /**
+     * Obtain the shared connection manager and adapt it to the current profile's server settings.
+     *
+     * @param registry socket factory registry to use when the pool needs to be created
+     * @return shared connection pool
+     */
+    private static synchronized PoolingHttpClientConnectionManager getConnectionManager(Registry<ConnectionSocketFactory> registry) {
+        if (connectionManager==null) {
+            connectionManager = new PoolingHttpClientConnectionManager(registry);
+            connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY);
+        } // if
+        JFSConfig config = JFSConfig.getInstance();
+        int connections = config.getServerConnections();
+        connectionManager.setDefaultMaxPerRoute(connections);
+        connectionManager.setMaxTotal(connections*SERVERS);
+        connectionManager.setDefaultSocketConfig(SocketConfig.custom()
+                .setSoTimeout(config.getServerTimeout())
+                .setTcpNoDelay(config.isServerNoDelay())
+                .setSoKeepAlive(true)
+                .build());
+        LOG.info("getConnectionManager() {} connections per server with timeout {}ms", connections, config.getServerTimeout());
+        return connectionManager;
+    } // getConnectionManager()
+
+
+    /**
+     * Issue a PROPFIND request for the standard listing properties and the given custom properties, leaving the
+     * handling of the multi status response to the caller.
+     *
+     * This allows for depths other than 0 and 1 and for parsing the response while it is received.
+     *
+     * @param <T> result type of the response handler
+     * @param url URL of the resource or collection to list
+     * @param depth value for the depth header - "0", "1", or DEPTH_INFINITY
+     * @param props additional properties to request
+     * @param handler handler for the response
+     * @return result of the response handler
+     * @throws IOException on communication errors or unexpected responses
+     */
+    public <T> T propfind(String url, String depth, Set<QName> props, ResponseHandler<T> handler) throws IOException {
+        StringBuilder body = new StringBuilder(512);
+        body.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?><D:propfind xmlns:D=\"DAV:\"><D:prop>");
+        for (String property : LISTING_PROPERTIES) {
+            body.append("<D:").append(property).append("/>");
+        } // for
+        int i = 0;
+        for (QName prop : props) {
+            String prefix = "p"+(i++);
+            body.append('<').append(prefix).append(':').append(prop.getLocalPart()).append(" xmlns:").append(prefix);
+            body.append("=\"").append(prop.getNamespaceURI()).append("\"/>");
+        } // for
+        body.append("</D:prop></D:propfind>");
+        HttpPropFind request = new HttpPropFind(url);
+        request.setDepth(depth);
+        request.setEntity(new StringEntity(body.toString(), ContentType.create("text/xml", "UTF-8")));
+        LOG.debug("propfind() {} depth {}", url, depth);
+        return execute(request, handler);
+    } // propfind()
+
+
+    /**
+     * Number of retried requests of all instances.
+     *
+     * @return number of retries
+     */
+    public static long getRetryCount() {
+        return RETRIES.sum();
+    } // getRetryCount()
+
+
+    /**
+     * Number of requests which failed although they were retried.
+     *
+     * @return number of failed requests after retries
+     */
+    public static long getFailureCount() {
+        return FAILURES.sum();
+    } // getFailureCount()
+
+
+    /**
+     * Number of listing requests issued a second time since the first one was too slow.
+     *
+     * @return number of hedged requests
+     */
+    public static long getHedgeCount() {
+        return HEDGES.sum();
+    } // getHedgeCount()
+
+
+    /**
+     * Number of hedged requests where the second request answered first.
+     *
+     * @return number of hedged requests won by the second request
+     */
+    public static long getHedgeWinCount() {
+        return HEDGE_WINS.sum();
+    } // getHedgeWinCount()
+
+
+    /**
+     * Tell if the request may be issued again after it might already have reached the server.
+     */
+    private static boolean isIdempotent(HttpRequestBase request) {
+        if (!IDEMPOTENT_METHODS.contains(request.getMethod())) {
+            return false;
+        } // if
+        if (request instanceof HttpEntityEnclosingRequest) {
+            HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            // streamed contents cannot be sent a second time
+            return (entity==null)||entity.isRepeatable();
+        } // if
+        return true;
+    } // isIdempotent()
+
+
+    private static boolean isTransientStatus(int status) {
+        return (status==HttpStatus.SC_BAD_GATEWAY)||(status==HttpStatus.SC_SERVICE_UNAVAILABLE)
+                ||(status==HttpStatus.SC_GATEWAY_TIMEOUT)||(status==429);
+    } // isTransientStatus()
+
+
+    /**
+     * Tell if a failed request should be retried.
+     */
+    private static boolean isRetryable(IOException ioe, boolean idempotent) {
+        if ((ioe instanceof HttpHostConnectException)||(ioe instanceof ConnectTimeoutException)) {
+            // The request did not reach the server
+            return true;
+        } // if
+        if (!idempotent) {
+            return false;
+        } // if
+        if (ioe instanceof SardineException) {
+            return isTransientStatus(((SardineException) ioe).getStatusCode());
+        } // if
+        if ((ioe instanceof UnknownHostException)||(ioe instanceof SSLException)) {
+            return false;
+        } // if
+        // Interruptions of the thread in contrast to socket timeouts are no transient errors
+        return !(ioe instanceof InterruptedIOException)||(ioe instanceof SocketTimeoutException);
+    } // isRetryable()
+
+
+    /**
+     * Exponentially growing delay with jitter for the given retry.
+     */
+    private static long getBackoff(int retry) {
+        long delay = Math.min(RETRY_MAX_DELAY, RETRY_BASE_DELAY<<Math.min(retry-1, 16));
+        return delay/2+ThreadLocalRandom.current().nextLong(delay/2+1);
+    } // getBackoff()
+
+
+    /**
+     * Run the attempts to issue a request until one succeeds, the error is not transient, or the number of retries is
+     * exhausted.
+     *
+     * Response handlers are run again for each attempt, so they must not pass on any results of a failed attempt.
+     */
+    private <T> T withRetries(HttpRequestBase request, Attempt<T> attempt) throws IOException {
+        int retries = JFSConfig.getInstance().getServerRetries();
+        boolean idempotent = isIdempotent(request);
+        int retry = 0;
+        while (true) {
+            try {
+                return attempt.run();
+            } catch (IOException ioe) {
+                if ((retry>0)&&"DELETE".equals(request.getMethod())&&(ioe instanceof SardineException)
+                        &&(((SardineException) ioe).getStatusCode()==HttpStatus.SC_NOT_FOUND)) {
+                    // an earlier attempt already reached the server
+                    return null;
+                } // if
+                if ((retry>=retries)||!isRetryable(ioe, idempotent)) {
+                    if (retry>0) {
+                        FAILURES.increment();
+                    } // if
+                    throw ioe;
+                } // if
+                retry++;
+                RETRIES.increment();
+                long delay = getBackoff(retry);
+                LOG.warn("withRetries() {} {} failed ({}) - retry {} in {}ms", request.getMethod(), request.getURI(), ioe.getMessage(), retry, delay);
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting to retry "+request.getURI());
+                } // try/catch
+                request.reset();
+            } // try/catch
+        } // while
+    } // withRetries()
+
+
+    /**
+     * Issue the request and issue a copy of it, if no answer arrived after the given delay. The first answer is used.
+     */
+    private <T> T hedged(final HttpRequestBase request, final ResponseHandler<T> handler, long delay) throws IOException {
+        CompletionService<T> service = new ExecutorCompletionService<>(HEDGE_EXECUTOR);
+        Future<T> primary = service.submit(() -> super.execute(request, handler));
+        HttpRequestBase backup = null;
+        try {
+            Future<T> done = service.poll(delay, TimeUnit.MILLISECONDS);
+            int pending = 1;
+            if (done==null) {
+                final HttpRequestBase copy = (HttpRequestBase) request.clone();
+                backup = copy;
+                HEDGES.increment();
+                LOG.info("hedged() {} {} still waiting after {}ms", request.getMethod(), request.getURI(), delay);
+                service.submit(() -> super.execute(copy, handler));
+                pending++;
+            } // if
+            IOException failure = null;
+            while (pending>0) {
+                if (done==null) {
+                    done = service.take();
+                } // if
+                pending--;
+                try {
+                    T result = done.get();
+                    if (done!=primary) {
+                        HEDGE_WINS.increment();
+                    } // if
+                    return result;
+                } catch (ExecutionException ee) {
+                    Throwable cause = ee.getCause();
+                    failure = (cause instanceof IOException) ? (IOException) cause : new IOException(cause);
+                } // try/catch
+                done = null;
+            } // while
+            throw failure;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for "+request.getURI());
+        } catch (CloneNotSupportedException cnse) {
+            throw new IOException(cnse);
+        } finally {
+            // Release the connection of the slower request
+            request.abort();
+            if (backup!=null) {
+                backup.abort();
+            } // if
+        } // try/catch/finally
+    } // hedged()
+
+
+    @Override
+    protected <T> T execute(final HttpRequestBase request, final ResponseHandler<T> handler) throws IOException {
+        final int hedgeDelay = JFSConfig.getInstance().getServerHedgeDelay();
+        // Only the unmarshalling listing handler has no side effects and may run twice
+        final boolean hedge = (hedgeDelay>0)&&(handler instanceof MultiStatusResponseHandler);
+        return withRetries(request, () -> hedge ? hedged(request, handler, hedgeDelay) : super.execute(request, handler));
+    } // execute()
+
+
+    @Override
+    protected HttpResponse execute(final HttpRequestBase request) throws IOException {
+        final boolean idempotent = isIdempotent(request);
+        return withRetries(request, () -> {
+            HttpResponse response = super.execute(request);
+            int status = response.getStatusLine().getStatusCode();
+            if (idempotent&&isTransientStatus(status)) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                throw new SardineException("Transient server error", status, response.getStatusLine().getReasonPhrase());
+            } // if
+            return response;
+        });
+    } // execute()
+
+
+    @Override
+    protected HttpClientConnectionManager createDefaultConnectionManager(Registry<ConnectionSocketFactory> schemeRegistry) {
+        return getConnectionManager(schemeRegistry);
+    } // createDefaultConnectionManager()
+
+
+    @Override
+    protected HttpClientBuilder configure(ProxySelector selector, CredentialsProvider credentials) {
+        HttpClientBuilder builder = super.configure(selector, credentials);
+        JFSConfig config = JFSConfig.getInstance();
+        final long keepAlive = config.getServerKeepAlive();
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setExpectContinueEnabled(true)
+                .setConnectTimeout(config.getServerTimeout())
+                .setSocketTimeout(config.getServerTimeout())
+                .build();
+        ConnectionKeepAliveStrategy keepAliveStrategy = new ConnectionKeepAliveStrategy() {
+
+            @Override
+            public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+                long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                return (duration<0)||(duration>keepAlive) ? keepAlive : duration;
+            } // getKeepAliveDuration()
+
+        };
+        // The pool outlives the single client and must not be shut down with it
+        builder.setConnectionManagerShared(true);
+        builder.setDefaultRequestConfig(requestConfig);
+        builder.setKeepAliveStrategy(keepAliveStrategy);
+        return builder;
+    } // configure()
+
+} // PooledSardine
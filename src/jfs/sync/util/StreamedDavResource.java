@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync.util;
+
+import com.github.sardine.DavResource;
+import java.net.URISyntaxException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import javax.xml.namespace.QName;
+
+
+/**
+ * DAV resource created from properties not obtained through the Sardine unmarshalling.
+ */
+class StreamedDavResource extends DavResource {
+
+    StreamedDavResource(String href, Date creation, Date modified, String contentType, Long contentLength,
+            String etag, String displayName, List<QName> resourceTypes, String contentLanguage,
+            Map<QName, String> customProps) throws URISyntaxException {
+        super(href, creation, modified, contentType, contentLength, etag, displayName, null, resourceTypes,
+                contentLanguage, Collections.emptyList(), customProps);
+    } // StreamedDavResource()
+
+} // StreamedDavResource
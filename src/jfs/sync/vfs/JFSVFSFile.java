@@ -24,6 +24,7 @@ import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URLEncoder;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
@@ -31,11 +32,11 @@ import jfs.sync.JFSFile;
 import jfs.sync.JFSFileProducer;
 import jfs.sync.JFSUserAuthentication;
 import jfs.sync.JFSUserAuthenticationInterface;
+import org.apache.commons.vfs2.FileContent;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
 import org.apache.commons.vfs2.FileSystemOptions;
 import org.apache.commons.vfs2.FileType;
-import org.apache.commons.vfs2.VFS;
 import org.apache.commons.vfs2.auth.StaticUserAuthenticator;
 import org.apache.commons.vfs2.impl.DefaultFileSystemConfigBuilder;
 import org.apache.commons.vfs2.provider.sftp.SftpFileSystemConfigBuilder;
@@ -61,6 +62,10 @@ public class JFSVFSFile extends JFSFile {
 
     private Boolean directory = null;
 
+    private Boolean readable = null;
+
+    private Boolean writable = null;
+
     private String name = null;
 
     private String path = null;
@@ -100,7 +105,7 @@ public class JFSVFSFile extends JFSFile {
                 LOG.error("()", e);
             }
 
-            file = VFS.getManager().resolveFile(fileProducer.getUri(), opts);
+            file = fileProducer.getManager().resolveFile(fileProducer.getUri(), opts);
         } catch (FileSystemException e) {
             LOG.error("()", e);
         }
@@ -119,7 +124,8 @@ public class JFSVFSFile extends JFSFile {
     public JFSVFSFile(JFSVFSFileProducer fileProducer, String path) {
         super(fileProducer, path);
         try {
-            file = VFS.getManager().resolveFile(fileProducer.getBaseFile(), fileProducer.getBaseFile().getURL()+path);
+            FileObject baseFile = fileProducer.getBaseFile();
+            file = fileProducer.getManager().resolveFile(baseFile, baseFile.getURL()+path);
         } catch (FileSystemException e) {
             LOG.error("()", e);
         }
@@ -143,6 +149,41 @@ public class JFSVFSFile extends JFSFile {
     }
 
 
+    /**
+     * Read all attributes at once while they are available from the listing of the parent folder - like the results
+     * of an SFTP ls - instead of fetching them one by one when they are needed.
+     */
+    private void fetchAttributes() {
+        try {
+            directory = file.getType().equals(FileType.FOLDER);
+            if (directory) {
+                lastModified = 0;
+                length = 0;
+            } else {
+                FileContent content = file.getContent();
+                lastModified = content.getLastModifiedTime();
+                length = content.getSize();
+            }
+            readable = file.isReadable();
+            writable = file.isWriteable();
+        } catch (FileSystemException e) {
+            LOG.warn("fetchAttributes() {}: {}", getRelativePath(), e.getMessage());
+        }
+    }
+
+
+    /**
+     * Forget the attributes read so far after changes of the file.
+     */
+    private void resetAttributes() {
+        lastModified = -1;
+        length = -1;
+        directory = null;
+        readable = null;
+        writable = null;
+    }
+
+
     /**
      * @return Returns the file object.
      */
@@ -186,6 +227,18 @@ public class JFSVFSFile extends JFSFile {
     }
 
 
+    /**
+     * @see JFSFile#getRandomAccessChannel()
+     */
+    @Override
+    protected SeekableByteChannel getRandomAccessChannel() throws IOException {
+        if (file==null) {
+            return null;
+        }
+        return JFSVFSRandomAccessChannel.open(file);
+    }
+
+
     /**
      * @see JFSFile#closeInputStream()
      */
@@ -223,6 +276,7 @@ public class JFSVFSFile extends JFSFile {
         if (file==null) {
             return false;
         }
+        writable = null;
         try {
             return file.setWritable(true, false);
         } catch (FileSystemException e) {
@@ -233,9 +287,9 @@ public class JFSVFSFile extends JFSFile {
 
 
     /**
-     * @see JFSFile#delete()
+     * @see JFSFile#internalDelete()
      */
-    public boolean delete() {
+    protected boolean internalDelete() {
         if (file==null) {
             return false;
         }
@@ -248,6 +302,31 @@ public class JFSVFSFile extends JFSFile {
     }
 
 
+    /**
+     * @see JFSFile#internalRenameTo(String)
+     */
+    @Override
+    protected boolean internalRenameTo(String relativePath) {
+        if (file==null) {
+            return false;
+        }
+        try {
+            JFSVFSFileProducer producer = (JFSVFSFileProducer) getFileProducer();
+            FileObject baseFile = producer.getBaseFile();
+            FileObject target = producer.getManager().resolveFile(baseFile, baseFile.getURL()+relativePath);
+            // Only real renames avoid transferring the contents again:
+            if (target.exists()||!file.canRenameTo(target)) {
+                return false;
+            }
+            file.moveTo(target);
+            return true;
+        } catch (FileSystemException e) {
+            LOG.error("renameTo()", e);
+            return false;
+        }
+    }
+
+
     /**
      * @see JFSFile#exists()
      */
@@ -359,6 +438,7 @@ public class JFSVFSFile extends JFSFile {
         try {
             file.createFolder();
             file.refresh();
+            resetAttributes();
             return true;
         } catch (FileSystemException e) {
             LOG.error("mkdir()", e);
@@ -368,9 +448,9 @@ public class JFSVFSFile extends JFSFile {
 
 
     /**
-     * @see JFSFile#setLastModified(long)
+     * @see JFSFile#internalSetLastModified(long)
      */
-    public boolean setLastModified(long time) {
+    protected boolean internalSetLastModified(long time) {
         if (file==null) {
             return false;
         }
@@ -410,6 +490,7 @@ public class JFSVFSFile extends JFSFile {
                 file.getContent().setLastModifiedTime(srcFile.getLastModified());
             }
             file.refresh();
+            resetAttributes();
             return true;
         } catch (FileSystemException e) {
             LOG.error("preCopyTgt()", e);
@@ -432,12 +513,15 @@ public class JFSVFSFile extends JFSFile {
         if (file==null) {
             return false;
         }
-        try {
-            return file.isReadable();
-        } catch (FileSystemException e) {
-            LOG.error("canRead()", e);
-            return false;
+        if (readable==null) {
+            try {
+                readable = file.isReadable();
+            } catch (FileSystemException e) {
+                LOG.error("canRead()", e);
+                return false;
+            }
         }
+        return readable;
     }
 
 
@@ -449,12 +533,15 @@ public class JFSVFSFile extends JFSFile {
         if (file==null) {
             return false;
         }
-        try {
-            return file.isWriteable();
-        } catch (FileSystemException e) {
-            LOG.error("canWrite()", e);
-            return false;
+        if (writable==null) {
+            try {
+                writable = file.isWriteable();
+            } catch (FileSystemException e) {
+                LOG.error("canWrite()", e);
+                return false;
+            }
         }
+        return writable;
     }
 
 
@@ -466,6 +553,7 @@ public class JFSVFSFile extends JFSFile {
 
     @Override
     public boolean setReadOnly() {
+        writable = null;
         try {
             file.setWritable(false, true);
             file.setWritable(false, false);
@@ -507,7 +595,9 @@ public class JFSVFSFile extends JFSFile {
                         } else {
                             LOG.debug("fillFileList({})   {}", getRelativePath(), fo.getName());
                             String p = getRelativePath()+"/"+fo.getName().getBaseName();
-                            list.add(new JFSVFSFile(fileProducer, fo, p));
+                            JFSVFSFile child = new JFSVFSFile(fileProducer, fo, p);
+                            child.fetchAttributes();
+                            list.add(child);
                         }
                     }
                     LOG.debug("fillFileList({}).", file.getName());
@@ -520,7 +610,7 @@ public class JFSVFSFile extends JFSFile {
 
 
     @Override
-    public JFSFile[] getList() {
+    protected JFSFile[] internalGetList() {
         JFSFile[] template = new JFSFile[0];
         List<JFSFile> fileList = new ArrayList<>();
         fillFileList(fileList);
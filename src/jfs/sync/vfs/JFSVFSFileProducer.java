@@ -22,8 +22,8 @@ import jfs.sync.JFSFile;
 import jfs.sync.JFSFileProducer;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.FileSystemException;
-import org.apache.commons.vfs2.VFS;
-import org.apache.commons.vfs2.impl.DefaultFileSystemManager;
+import org.apache.commons.vfs2.FileSystemManager;
+import org.apache.commons.vfs2.impl.StandardFileSystemManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +39,11 @@ public class JFSVFSFileProducer extends JFSFileProducer {
 
     private JFSVFSFile rootFile = null;
 
+    /**
+     * File system manager of this producer holding its connections - like the SFTP session - and cached file objects.
+     */
+    private StandardFileSystemManager manager = null;
+
 
     /**
      * @see JFSFileProducer#JFSFileProducer(String, String)
@@ -49,15 +54,32 @@ public class JFSVFSFileProducer extends JFSFileProducer {
 
 
     /**
-     * Resets the file system manager.
+     * Returns the file system manager of this producer. Since every producer has its own manager, resetting one
+     * producer doesn't affect the connections of other directory pairs.
+     *
+     * @return file system manager - created on first use
+     * @throws FileSystemException if the manager cannot be initialized
      */
-    public void reset() {
-        try {
-            ((DefaultFileSystemManager) VFS.getManager()).close();
-            ((DefaultFileSystemManager) VFS.getManager()).init();
-        } catch (FileSystemException e) {
-            LOG.error("reset()", e);
+    public synchronized FileSystemManager getManager() throws FileSystemException {
+        if (manager==null) {
+            StandardFileSystemManager m = new StandardFileSystemManager();
+            m.init();
+            manager = m;
         }
+        return manager;
+    }
+
+
+    /**
+     * Resets the file system manager of this producer closing all its connections.
+     */
+    public synchronized void reset() {
+        if (manager!=null) {
+            LOG.debug("reset() closing file systems for {}", getUri());
+            manager.close();
+            manager = null;
+        }
+        rootFile = null;
     }
 
 
@@ -94,4 +116,10 @@ public class JFSVFSFileProducer extends JFSFileProducer {
         return false;
     }
 
+
+    @Override
+    public boolean canMove() {
+        return true;
+    }
+
 }
@@ -71,7 +71,7 @@ public class JFSVFSFileProducerFactory implements JFSFileProducerFactory {
     /**
      * @see JFSFileProducerFactory#resetProducers()
      */
-    public final void resetProducers() {
+    public final synchronized void resetProducers() {
         // Reset previous producers before clearing the list:
         for (JFSVFSFileProducer p : producers.values()) {
             p.reset();
@@ -81,11 +81,17 @@ public class JFSVFSFileProducerFactory implements JFSFileProducerFactory {
 
 
     /**
+     * The producer of a URI is reused until the producers are reset, so that its file system manager and connections
+     * - like an SFTP session - are closed with the reset.
+     *
      * @see JFSFileProducerFactory#createProducer(String)
      */
-    public final JFSFileProducer createProducer(String uri) {
-        JFSVFSFileProducer p = new JFSVFSFileProducer(uri);
-        producers.put(uri, p);
+    public final synchronized JFSFileProducer createProducer(String uri) {
+        JFSVFSFileProducer p = producers.get(uri);
+        if (p==null) {
+            p = new JFSVFSFileProducer(uri);
+            producers.put(uri, p);
+        }
         return p;
     }
 
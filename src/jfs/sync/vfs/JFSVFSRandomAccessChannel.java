@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync.vfs;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SeekableByteChannel;
+import org.apache.commons.vfs2.Capability;
+import org.apache.commons.vfs2.FileContent;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileSystem;
+import org.apache.commons.vfs2.RandomAccessContent;
+import org.apache.commons.vfs2.util.RandomAccessMode;
+
+
+/**
+ * Channel for random access to the contents of a VFS file.
+ *
+ * Reading requires random read access of the file system. File systems not allowing random writes - like SFTP - may
+ * still be written to at the end of the file by appending to it. Writes at other positions fail in this case before
+ * anything is written.
+ */
+class JFSVFSRandomAccessChannel implements SeekableByteChannel {
+
+    private final FileContent content;
+
+    private final RandomAccessContent access;
+
+    private final boolean appendOnly;
+
+    /**
+     * The length of the file when it was opened, since appended data cannot be read.
+     */
+    private final long length;
+
+    private OutputStream append;
+
+    private long position;
+
+    private long pointer;
+
+    private long size;
+
+    private boolean open = true;
+
+
+    private JFSVFSRandomAccessChannel(FileContent content, boolean appendOnly) throws IOException {
+        this.content = content;
+        this.appendOnly = appendOnly;
+        access = content.getRandomAccessContent(appendOnly ? RandomAccessMode.READ : RandomAccessMode.READWRITE);
+        length = access.length();
+        size = length;
+    }
+
+
+    /**
+     * Opens a channel for a file if the capabilities of its file system allow it.
+     *
+     * @param file
+     * The existing file to open.
+     * @return The channel or null if random access is not supported for the file.
+     * @throws IOException
+     * If the file cannot be opened.
+     */
+    static SeekableByteChannel open(FileObject file) throws IOException {
+        FileSystem fileSystem = file.getFileSystem();
+        if (!fileSystem.hasCapability(Capability.RANDOM_ACCESS_READ)) {
+            return null;
+        }
+        if (fileSystem.hasCapability(Capability.RANDOM_ACCESS_WRITE)&&fileSystem.hasCapability(Capability.RANDOM_ACCESS_SET_LENGTH)) {
+            return new JFSVFSRandomAccessChannel(file.getContent(), false);
+        }
+        if (fileSystem.hasCapability(Capability.APPEND_CONTENT)) {
+            return new JFSVFSRandomAccessChannel(file.getContent(), true);
+        }
+        return null;
+    }
+
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+
+
+    private void seek(long offset) throws IOException {
+        if (offset!=pointer) {
+            access.seek(offset);
+            pointer = offset;
+        }
+    }
+
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (position>=size) {
+            return -1;
+        }
+        int len = (int) Math.min(dst.remaining(), size-position);
+        if (appendOnly&&position+len>length) {
+            throw new IOException("Cannot read appended data");
+        }
+        byte[] b = new byte[len];
+        seek(position);
+        access.readFully(b);
+        dst.put(b);
+        pointer += len;
+        position += len;
+        return len;
+    }
+
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        ensureOpen();
+        int len = src.remaining();
+        byte[] b = new byte[len];
+        if (appendOnly) {
+            if (position!=size) {
+                throw new IOException("Cannot write at "+position+" but only append at "+size);
+            }
+            if (append==null) {
+                append = content.getOutputStream(true);
+            }
+            src.get(b);
+            append.write(b);
+        } else {
+            seek(position);
+            src.get(b);
+            access.write(b);
+            pointer += len;
+        }
+        position += len;
+        size = Math.max(size, position);
+        return len;
+    }
+
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        position = newPosition;
+        return this;
+    }
+
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return size;
+    }
+
+
+    @Override
+    public SeekableByteChannel truncate(long newSize) throws IOException {
+        ensureOpen();
+        if (newSize<size) {
+            if (appendOnly) {
+                throw new IOException("Cannot truncate to "+newSize);
+            }
+            access.setLength(newSize);
+            size = newSize;
+        }
+        position = Math.min(position, newSize);
+        return this;
+    }
+
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        if (open) {
+            open = false;
+            try {
+                if (append!=null) {
+                    append.close();
+                }
+            } finally {
+                access.close();
+            }
+        }
+    }
+
+}
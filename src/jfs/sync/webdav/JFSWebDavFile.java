@@ -19,7 +19,6 @@ package jfs.sync.webdav;
 
 import com.github.sardine.DavResource;
 import com.github.sardine.Sardine;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -34,6 +33,7 @@ import jfs.sync.JFSFile;
 import jfs.sync.JFSFileProducer;
 import jfs.sync.base.AbstractJFSFileProducerFactory;
 import jfs.sync.encryption.ExtendedFileInfo;
+import jfs.sync.util.DavOutputStream;
 import jfs.sync.util.DavUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -201,26 +201,24 @@ public class JFSWebDavFile extends JFSFile {
     } // getAccess()
 
 
+    private JFSWebDavFileProducer getWebDavFileProducer() {
+        return (JFSWebDavFileProducer)getFileProducer();
+    } // getWebDavFileProducer()
+
+
     /**
      * @see JFSFile#getOutputStream()
      */
     @Override
     protected OutputStream getOutputStream() {
         LOG.debug("getOutputStream()");
-        final String url = getUrl(info.getPath()+"/"+info.getName());
+        String url = getUrl(info.getPath()+"/"+info.getName());
 
         try {
-            ByteArrayOutputStream result = new ByteArrayOutputStream() {
-                @Override
-                public void close() throws IOException {
-                    super.close();
-                    byte[] data = this.toByteArray();
-                    LOG.debug("getOutputStream().close() {}", data.length);
-                    getAccess().put(url, data);
-                }
-            };
-            output = result;
-            return result;
+            // The length of the source has been taken over in preCopyTgt()
+            output = new DavOutputStream(getAccess(), url, info.getSize(), JFSConfig.getInstance().getBufferSize());
+            getWebDavFileProducer().modified(url);
+            return output;
         } catch (Exception e) {
             throw new RuntimeException(e);
         } // try/catch
@@ -272,14 +270,15 @@ public class JFSWebDavFile extends JFSFile {
 
 
     /**
-     * @see JFSFile#delete()
+     * @see JFSFile#internalDelete()
      */
     @Override
-    public boolean delete() {
+    protected boolean internalDelete() {
         boolean result = false;
         try {
             String url = getUrl(info.getPath()+"/"+getName());
             LOG.debug("delete() deleting {}", url);
+            getWebDavFileProducer().modified(url);
             access.delete(url+(info.isDirectory() ? "/" : ""));
             result = true;
         } catch (IOException e) {
@@ -289,6 +288,27 @@ public class JFSWebDavFile extends JFSFile {
     } // delete()
 
 
+    /**
+     * @see JFSFile#internalRenameTo(String)
+     */
+    @Override
+    protected boolean internalRenameTo(String relativePath) {
+        boolean result = false;
+        try {
+            String suffix = info.isDirectory() ? "/" : "";
+            String url = getUrl(info.getPath()+"/"+getName())+suffix;
+            String target = getUrl((getFileProducer().getRootPath()+relativePath).replace('\\', '/'))+suffix;
+            LOG.debug("renameTo() moving {} to {}", url, target);
+            getWebDavFileProducer().moved(url, target);
+            access.move(url, target, false);
+            result = true;
+        } catch (IOException e) {
+            LOG.error("renameTo()", e);
+        } // try/catch
+        return result;
+    } // renameTo()
+
+
     /**
      * @see JFSFile#exists()
      */
@@ -317,10 +337,10 @@ public class JFSWebDavFile extends JFSFile {
 
 
     /**
-     * @see JFSFile#getList()
+     * @see JFSFile#internalGetList()
      */
     @Override
-    public JFSFile[] getList() {
+    protected JFSFile[] internalGetList() {
         if (list==null) {
             list = new JFSWebDavFile[0];
             if (isDirectory()) {
@@ -394,6 +414,7 @@ public class JFSWebDavFile extends JFSFile {
         try {
             String url = getUrl(info.getPath()+"/"+info.getName());
             LOG.debug("mkdir() creating {}", url);
+            getWebDavFileProducer().modified(url);
             access.createDirectory(url);
             result = true;
         } catch (IOException e) {
@@ -404,13 +425,14 @@ public class JFSWebDavFile extends JFSFile {
 
 
     /**
-     * @see JFSFile#setLastModified(long)
+     * @see JFSFile#internalSetLastModified(long)
      */
     @Override
-    public boolean setLastModified(long time) {
+    protected boolean internalSetLastModified(long time) {
         info.setModificationDate(time);
 
         String url = getUrl(info.getPath()+"/"+info.getName())+(isDirectory() ? "/" : "");
+        getWebDavFileProducer().modified(url);
         return DavUtils.setLastModified(access, url, time);
     } // setLastModified()
 
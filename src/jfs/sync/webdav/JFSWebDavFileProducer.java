@@ -18,8 +18,6 @@
 package jfs.sync.webdav;
 
 import com.github.sardine.DavResource;
-import com.github.sardine.Sardine;
-import com.github.sardine.SardineFactory;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
@@ -27,7 +25,10 @@ import java.util.Map;
 import jfs.conf.JFSConfig;
 import jfs.sync.JFSFile;
 import jfs.sync.JFSFileProducer;
+import jfs.sync.util.DavListingSnapshot;
+import jfs.sync.util.DavTreeListing;
 import jfs.sync.util.DavUtils;
+import jfs.sync.util.PooledSardine;
 import jfs.sync.util.WindowsProxySelector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,10 +44,48 @@ public class JFSWebDavFileProducer extends JFSFileProducer {
 
     private static final Logger LOG = LoggerFactory.getLogger(JFSWebDavFileProducer.class);
 
-    private Sardine sardine;
+    private PooledSardine sardine;
 
     private final Map<String, List<DavResource>> directoryCache = new HashMap<>(256);
 
+    /**
+     * Listings fetched in bulk and not yet asked for, indexed by their decoded paths.
+     */
+    private final Map<String, List<DavResource>> bulkCache = new HashMap<>(256);
+
+    /**
+     * Listings of the last run if configured.
+     */
+    private DavListingSnapshot snapshot = null;
+
+
+    /**
+     * Obtain the listing of the given folder from a bulk listing of its sub tree if configured.
+     *
+     * Only folders within the root of this producer are listed in bulk, to avoid fetching the whole tree above it.
+     *
+     * @param url URL of the folder to list
+     * @return listing or null if not available through bulk listing
+     */
+    private List<DavResource> getBulkListing(String url) {
+        JFSConfig config = JFSConfig.getInstance();
+        int depth = config.getServerListingDepth();
+        if (depth==1) {
+            return null;
+        } // if
+        String key = DavTreeListing.getKey(url);
+        List<DavResource> listing = bulkCache.remove(key);
+        if ((listing==null)&&DavTreeListing.isWithin(key, DavTreeListing.getKey(getRootPath()))) {
+            try {
+                bulkCache.putAll(DavTreeListing.list(sardine, url, depth, DavUtils.getCustomDavProperties(), config.getServerConnections()));
+                listing = bulkCache.remove(key);
+            } catch (IOException ioe) {
+                LOG.warn("getBulkListing() falling back to single folder listing for {}: {}", url, ioe.getMessage());
+            } // try/catch
+        } // if
+        return listing;
+    } // getBulkListing()
+
 
     /**
      * Obtain a WebDAV listing and use internal cache.
@@ -60,13 +99,52 @@ public class JFSWebDavFileProducer extends JFSFileProducer {
             return directoryCache.get(url);
         } // if
         LOG.debug("getListing() listing {}", url);
-        List<DavResource> listing = sardine.list(url, 1, DavUtils.getCustomDavProperties());
+        List<DavResource> listing = (snapshot==null) ? null : snapshot.getListing(sardine, url);
+        if (listing==null) {
+            listing = getBulkListing(url);
+            if (listing==null) {
+                listing = sardine.list(url, 1, DavUtils.getCustomDavProperties());
+            } // if
+            if (snapshot!=null) {
+                snapshot.put(url, listing);
+            } // if
+        } // if
         LOG.info("getListing({}) listing {}", listing.size(), url);
         directoryCache.put(url, listing);
         return listing;
     } // getListing()
 
 
+    /**
+     * Take note of a modification of the resource with the given URL.
+     *
+     * @param url URL of the created, modified, or deleted resource
+     */
+    public void modified(String url) {
+        if (snapshot!=null) {
+            snapshot.modified(url);
+        } // if
+    } // modified()
+
+
+    /**
+     * Take note of a resource moved to another URL. The cached listings of both parent folders are dropped, so that
+     * they are listed again when asked for.
+     *
+     * @param url URL of the moved resource
+     * @param target URL the resource is moved to
+     */
+    public void moved(String url, String target) {
+        for (String resource : new String[]{url, target}) {
+            modified(resource);
+            String folder = resource.endsWith("/") ? resource.substring(0, resource.length()-1) : resource;
+            folder = folder.substring(0, folder.lastIndexOf('/')+1);
+            directoryCache.remove(folder);
+            bulkCache.remove(DavTreeListing.getKey(folder));
+        } // for
+    } // moved()
+
+
     /**
      * @see JFSFileProducer#JFSFileProducer(String, String)
      */
@@ -76,9 +154,13 @@ public class JFSWebDavFileProducer extends JFSFileProducer {
         if (sardine==null) {
             String username = JFSConfig.getInstance().getServerUserName();
             String passphrase = JFSConfig.getInstance().getServerPassPhrase();
-            sardine = SardineFactory.begin(username, passphrase, WindowsProxySelector.getInstance());
+            sardine = new PooledSardine(username, passphrase, WindowsProxySelector.getInstance());
             LOG.debug("() webdav client {}", sardine);
         } // if
+        if (JFSConfig.getInstance().isServerListingSnapshot()) {
+            snapshot = new DavListingSnapshot(getRootPath(), JFSConfig.getInstance().isServerListingSnapshotTrees());
+            snapshot.load();
+        } // if
         try {
             Thread.sleep(500);
         } catch (InterruptedException ie) {
@@ -110,4 +192,23 @@ public class JFSWebDavFileProducer extends JFSFileProducer {
         return false;
     }
 
+
+    @Override
+    public boolean canMove() {
+        return true;
+    }
+
+
+    /**
+     * Store the listings of this run for the next one if configured.
+     *
+     * @see JFSFileProducer#synchronizationDone()
+     */
+    @Override
+    public void synchronizationDone() {
+        if (snapshot!=null) {
+            snapshot.store();
+        } // if
+    } // synchronizationDone()
+
 } // JFSWebDavFileProducer
@@ -17,6 +17,7 @@ package org.mrpdaemon.sec.encfs;
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.ShortBufferException;
 import java.security.InvalidAlgorithmParameterException;
 
 // Static methods for block cryptography
@@ -36,6 +37,22 @@ class BlockCrypto {
 		return cipher.doFinal(data);
 	}
 
+	// Common method to perform a block operation with the given context
+	private static int blockOperation(EncFSVolume volume,
+			EncFSCryptoContext context, long ivSeed, byte[] data, int offset,
+			int len, byte[] output, int outputOffset, int opMode)
+			throws InvalidAlgorithmParameterException,
+			IllegalBlockSizeException, BadPaddingException {
+		Cipher cipher = context.getBlockCipher();
+		EncFSCrypto.cipherInit(volume.getKey(), context, opMode, cipher,
+				volume.getIV(), ivSeed);
+		try {
+			return cipher.doFinal(data, offset, len, output, outputOffset);
+		} catch (ShortBufferException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
 	// Perform block encryption
 	protected static byte[] blockDecrypt(EncFSVolume volume, byte[] ivSeed,
 			byte[] data) throws InvalidAlgorithmParameterException,
@@ -49,4 +66,24 @@ class BlockCrypto {
 			InvalidAlgorithmParameterException, BadPaddingException {
 		return blockOperation(volume, ivSeed, data, Cipher.ENCRYPT_MODE);
 	}
+
+	// Perform block decryption into the given output buffer
+	protected static int blockDecrypt(EncFSVolume volume,
+			EncFSCryptoContext context, long ivSeed, byte[] data, int offset,
+			int len, byte[] output, int outputOffset)
+			throws InvalidAlgorithmParameterException,
+			IllegalBlockSizeException, BadPaddingException {
+		return blockOperation(volume, context, ivSeed, data, offset, len,
+				output, outputOffset, Cipher.DECRYPT_MODE);
+	}
+
+	// Perform block encryption into the given output buffer
+	protected static int blockEncrypt(EncFSVolume volume,
+			EncFSCryptoContext context, long ivSeed, byte[] data, int offset,
+			int len, byte[] output, int outputOffset)
+			throws IllegalBlockSizeException,
+			InvalidAlgorithmParameterException, BadPaddingException {
+		return blockOperation(volume, context, ivSeed, data, offset, len,
+				output, outputOffset, Cipher.ENCRYPT_MODE);
+	}
 }
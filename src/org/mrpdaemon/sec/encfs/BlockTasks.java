@@ -0,0 +1,97 @@
+/*
+ * EncFS Java Library
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ */
+
+package org.mrpdaemon.sec.encfs;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+// Static methods for processing batches of blocks in parallel
+final class BlockTasks {
+
+	// Number of blocks each task of a batch processes
+	static final int BLOCKS_PER_TASK = 16;
+
+	// Operation on a range of blocks of a batch
+	interface Operation {
+		void process(int task, int fromBlock, int toBlock) throws Exception;
+	}
+
+	private BlockTasks() {
+	}
+
+	/*
+	 * Split the given number of blocks into consecutive ranges, one per task,
+	 * and run the operation for each range. Without an executor or with a
+	 * single task the operation runs on the calling thread.
+	 */
+	static CompletableFuture<Void> run(Executor executor, int tasks,
+			int blocks, final Operation operation) {
+		if ((executor == null) || (tasks <= 1) || (blocks <= 1)) {
+			try {
+				operation.process(0, 0, blocks);
+				return CompletableFuture.completedFuture(null);
+			} catch (Exception e) {
+				CompletableFuture<Void> failed = new CompletableFuture<Void>();
+				failed.completeExceptionally(e);
+				return failed;
+			}
+		}
+		int blocksPerTask = (blocks + tasks - 1) / tasks;
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[tasks];
+		int count = 0;
+		for (int from = 0; from < blocks; from += blocksPerTask) {
+			final int task = count;
+			final int fromBlock = from;
+			final int toBlock = Math.min(blocks, from + blocksPerTask);
+			futures[count++] = CompletableFuture.runAsync(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						operation.process(task, fromBlock, toBlock);
+					} catch (Exception e) {
+						throw new CompletionException(e);
+					}
+				}
+			}, executor);
+		}
+		return CompletableFuture.allOf(Arrays.copyOf(futures, count));
+	}
+
+	// Wait for the given batch to complete reporting failures as IOException
+	static void await(CompletableFuture<Void> batch) throws IOException {
+		try {
+			batch.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted during block processing");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			while ((cause instanceof CompletionException)
+					&& (cause.getCause() != null)) {
+				cause = cause.getCause();
+			}
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+}
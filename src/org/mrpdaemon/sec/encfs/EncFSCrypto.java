@@ -23,6 +23,7 @@ import java.security.InvalidKeyException;
 import java.security.Key;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.Map;
 
 /**
  * Class containing static methods implementing crypto functionality for the
@@ -103,6 +104,31 @@ public final class EncFSCrypto {
 		}
 	}
 
+	// Initialize the given cipher using the scratch space of the context
+	static void cipherInit(Key key, EncFSCryptoContext context, int opMode,
+			Cipher cipher, byte[] iv, long ivSeed)
+			throws InvalidAlgorithmParameterException {
+		// Same layout as newIvSpec() for an 8 byte seed without allocations
+		byte[] ivData = context.getIvData();
+		System.arraycopy(iv, 0, ivData, 0, EncFSVolume.IV_LENGTH_IN_BYTES);
+		for (int i = 0; i < 8; i++) {
+			ivData[EncFSVolume.IV_LENGTH_IN_BYTES + i] = (byte) (ivSeed >>> (8 * i));
+		}
+		Mac mac = context.getMac();
+		byte[] macResult = context.getMacResult();
+		try {
+			mac.update(ivData);
+			mac.doFinal(macResult, 0);
+			cipher.init(opMode, key, new IvParameterSpec(macResult, 0,
+					EncFSVolume.IV_LENGTH_IN_BYTES));
+		} catch (ShortBufferException e) {
+			throw new IllegalStateException(e);
+		} catch (InvalidKeyException e) {
+			// The volume key has been accepted before, so the cipher is broken
+			throw new IllegalStateException(e);
+		}
+	}
+
 	// Initialize the given cipher for a volume with the given parameters
 	static void cipherInit(EncFSVolume volume, int opMode, Cipher cipher,
 			byte[] ivSeed) throws InvalidAlgorithmParameterException {
@@ -246,7 +272,31 @@ public final class EncFSCrypto {
 			result += EncFSVolume.PATH_SEPARATOR;
 		}
 
-		for (String pathPart : pathParts) {
+		/*
+		 * Absolute paths continue from the longest already encoded directory
+		 * prefix, so usually only the last path part needs to be encrypted.
+		 * Only the directory prefixes are cached since file names are rarely
+		 * encoded twice while their directories are shared.
+		 */
+		Map<String, String> encodedPaths = null;
+		int firstPart = 0;
+		if (EncFSVolume.ROOT_PATH.equals(volumePath)
+				&& pathName.startsWith(EncFSVolume.PATH_SEPARATOR)) {
+			encodedPaths = volume.getEncodedPaths();
+			for (int i = pathParts.length - 1; i > 0; i--) {
+				String prefix = joinPath(pathParts, i);
+				String encodedPrefix = encodedPaths.get(prefix);
+				if (encodedPrefix != null) {
+					result = encodedPrefix;
+					tmpVolumePath = prefix;
+					firstPart = i;
+					break;
+				}
+			}
+		}
+
+		for (int i = firstPart; i < pathParts.length; i++) {
+			String pathPart = pathParts[i];
 			// Check that we have a valid pathPart (to handle cases of // in the
 			// path)
 			if (pathPart.length() > 0) {
@@ -264,12 +314,27 @@ public final class EncFSCrypto {
 					tmpVolumePath += EncFSVolume.PATH_SEPARATOR;
 				}
 				tmpVolumePath += pathPart;
+
+				if ((encodedPaths != null) && (i < pathParts.length - 1)) {
+					encodedPaths.put(tmpVolumePath, result);
+				}
 			}
 		}
 
 		return result;
 	}
 
+	// Absolute volume path made up of the given number of leading path parts
+	private static String joinPath(String[] pathParts, int count) {
+		StringBuilder path = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			if (pathParts[i].length() > 0) {
+				path.append(EncFSVolume.PATH_SEPARATOR).append(pathParts[i]);
+			}
+		}
+		return (path.length() == 0) ? EncFSVolume.ROOT_PATH : path.toString();
+	}
+
 	// Compute 64-bit MAC over the given input bytes
 	static byte[] mac64(Mac mac, byte[] input, int inputOffset) {
 		return mac64(mac, input, inputOffset, input.length - inputOffset);
@@ -288,6 +353,27 @@ public final class EncFSCrypto {
 		return mac64;
 	}
 
+	// Compute 64-bit MAC into the scratch space of the context
+	static byte[] mac64(EncFSCryptoContext context, byte[] input,
+			int inputOffset, int inputLen) {
+		Mac mac = context.getMac();
+		byte[] macResult = context.getMacResult();
+		mac.reset();
+		mac.update(input, inputOffset, inputLen);
+		try {
+			mac.doFinal(macResult, 0);
+		} catch (ShortBufferException e) {
+			throw new IllegalStateException(e);
+		}
+		byte[] mac64 = context.getMac64();
+		Arrays.fill(mac64, (byte) 0);
+		for (int i = 0; i < 19; i++)
+			// Note the 19 not 20
+			mac64[i % 8] ^= macResult[i];
+
+		return mac64;
+	}
+
 	// Compute 64-bit MAC
 	private static byte[] mac64(Mac mac, byte[] input) {
 
@@ -367,7 +453,12 @@ public final class EncFSCrypto {
 
 	// Reverse the "shuffle bytes" transformation
 	static void unshuffleBytes(byte[] input) {
-		for (int i = (input.length - 1); i > 0; i--) {
+		unshuffleBytes(input, 0, input.length);
+	}
+
+	// Reverse the "shuffle bytes" transformation on len bytes from offset
+	static void unshuffleBytes(byte[] input, int offset, int len) {
+		for (int i = offset + len - 1; i > offset; i--) {
 			// Note size - 1
 			input[i] ^= input[i - 1];
 		}
@@ -375,8 +466,12 @@ public final class EncFSCrypto {
 
 	// Apply the "shuffle bytes" transformation
 	static void shuffleBytes(byte[] buf) {
-		int size = buf.length;
-		for (int i = 0; i < size - 1; ++i) {
+		shuffleBytes(buf, 0, buf.length);
+	}
+
+	// Apply the "shuffle bytes" transformation on size bytes from offset
+	static void shuffleBytes(byte[] buf, int offset, int size) {
+		for (int i = offset; i < offset + size - 1; ++i) {
 			buf[i + 1] ^= buf[i];
 		}
 	}
@@ -384,22 +479,26 @@ public final class EncFSCrypto {
 	// Flip the given byte input stream
 	static byte[] flipBytes(byte[] input) {
 		byte[] result = new byte[input.length];
+		flipBytes(input, result, 0, input.length);
+		return result;
+	}
 
+	// Flip the first len bytes of input into result starting at resultOffset
+	static void flipBytes(byte[] input, byte[] result, int resultOffset,
+			int len) {
 		int offset = 0;
-		int bytesLeft = input.length;
+		int bytesLeft = len;
 
 		while (bytesLeft > 0) {
 			// TODO: 64 should be defined?
 			int toFlip = Math.min(64, bytesLeft);
 
 			for (int i = 0; i < toFlip; i++)
-				result[offset + i] = input[offset + toFlip - i - 1];
+				result[resultOffset + offset + i] = input[offset + toFlip - i - 1];
 
 			bytesLeft -= toFlip;
 			offset += toFlip;
 		}
-
-		return result;
 	}
 
 	// Increment the given IV seed by one
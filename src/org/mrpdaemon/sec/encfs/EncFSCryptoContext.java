@@ -0,0 +1,109 @@
+/*
+ * EncFS Java Library
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ */
+
+package org.mrpdaemon.sec.encfs;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import java.security.InvalidKeyException;
+
+/**
+ * Set of cipher and MAC instances for the cryptographic operations on a volume.
+ * <p/>
+ * Cipher and MAC objects keep state between their initialization and the final
+ * operation and thus must not be used by more than one thread at a time. Each
+ * stream owns a context of its own, while operations directly on the volume use
+ * a context bound to the calling thread.
+ */
+class EncFSCryptoContext {
+
+	private final Mac mac;
+	private final Cipher streamCipher;
+	private final Cipher blockCipher;
+
+	// Scratch space for IV computation and MAC results
+	private final byte[] ivData = new byte[EncFSVolume.IV_LENGTH_IN_BYTES + 8];
+	private final byte[] macResult;
+	private final byte[] mac64 = new byte[8];
+
+	// Scratch space for intermediate results of stream operations
+	private byte[] buffer = new byte[0];
+
+	// Scratch space for whole blocks used by the streams
+	private byte[] blockBuffer = new byte[0];
+
+	/**
+	 * Create a new set of cipher and MAC instances for the given volume
+	 * 
+	 * @param volume
+	 *            Volume to create the context for
+	 */
+	EncFSCryptoContext(EncFSVolume volume) throws EncFSUnsupportedException {
+		try {
+			this.mac = EncFSCrypto.newMac(volume.getKey());
+		} catch (InvalidKeyException e) {
+			throw new EncFSUnsupportedException(e);
+		}
+		this.streamCipher = StreamCrypto.newStreamCipher();
+		this.blockCipher = BlockCrypto.newBlockCipher();
+		this.macResult = new byte[mac.getMacLength()];
+	}
+
+	// MAC object used for checksums and IV generation
+	Mac getMac() {
+		return mac;
+	}
+
+	// Cipher instance for stream encryption/decryption
+	Cipher getStreamCipher() {
+		return streamCipher;
+	}
+
+	// Cipher instance for block encryption/decryption
+	Cipher getBlockCipher() {
+		return blockCipher;
+	}
+
+	// Input data for IV computation
+	byte[] getIvData() {
+		return ivData;
+	}
+
+	// Full length result of the last MAC computation
+	byte[] getMacResult() {
+		return macResult;
+	}
+
+	// Folded 64-bit result of the last MAC computation
+	byte[] getMac64() {
+		return mac64;
+	}
+
+	// Scratch buffer of at least the given size, valid until the next call
+	byte[] getBuffer(int size) {
+		if (buffer.length < size) {
+			buffer = new byte[size];
+		}
+		return buffer;
+	}
+
+	// Scratch buffer of at least the given size for block data of a stream
+	byte[] getBlockBuffer(int size) {
+		if (blockBuffer.length < size) {
+			blockBuffer = new byte[size];
+		}
+		return blockBuffer;
+	}
+}
@@ -263,7 +263,21 @@ public class EncFSFile {
 	public EncFSInputStream openInputStream() throws EncFSCorruptDataException,
 			EncFSUnsupportedException, IOException {
 		return new EncFSInputStream(volume, volume.getFileProvider()
-				.openInputStream(getEncryptedPath()), getPath());
+				.openInputStream(getEncryptedPath()), getPath(),
+				cipherFileInfo.getSize());
+	}
+
+	/**
+	 * Opens the file as an EncFSSeekableByteChannel that allows random access
+	 * to the decoded file contents. Requires a file provider supporting
+	 * random access.
+	 * 
+	 * @return EncFSSeekableByteChannel that decodes file contents
+	 */
+	public EncFSSeekableByteChannel openChannel()
+			throws EncFSUnsupportedException, IOException {
+		return new EncFSSeekableByteChannel(volume, volume.getFileProvider()
+				.openReadChannel(getEncryptedPath()), getPath());
 	}
 
 	/**
@@ -18,6 +18,7 @@ package org.mrpdaemon.sec.encfs;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.SeekableByteChannel;
 import java.util.List;
 
 /**
@@ -191,4 +192,25 @@ public interface EncFSFileProvider {
 	 */
 	OutputStream openOutputStream(String dstFilePath, long outputLength)
 			throws IOException;
+
+	/**
+	 * Open a read only channel with random access to the given file. File
+	 * providers not able to position within a file don't need to implement
+	 * this method.
+	 * 
+	 * @param srcFilePath
+	 *            Path to the source file
+	 * 
+	 * @return SeekableByteChannel to read from the file
+	 * 
+	 * @throws IOException
+	 *             Source file doesn't exist or misc. I/O error
+	 * @throws UnsupportedOperationException
+	 *             The file provider doesn't support random access
+	 */
+	default SeekableByteChannel openReadChannel(String srcFilePath)
+			throws IOException {
+		throw new UnsupportedOperationException(
+				"Random access not supported by " + getClass().getName());
+	}
 }
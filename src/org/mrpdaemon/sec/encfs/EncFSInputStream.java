@@ -21,6 +21,9 @@ import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.InvalidAlgorithmParameterException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * FilterInputStream extension that allows decrypted data to be read from a file
@@ -31,6 +34,9 @@ public class EncFSInputStream extends FilterInputStream {
 	// Volume that underlying file belongs to
 	private final EncFSVolume volume;
 
+	// Ciphers and MAC used exclusively by this stream
+	private final EncFSCryptoContext context;
+
 	// Volume configuration for this file
 	private final EncFSConfig config;
 
@@ -43,18 +49,58 @@ public class EncFSInputStream extends FilterInputStream {
 	// Size of the block header for each block
 	private final int blockHeaderSize;
 
-	// Current block number for generating block IV
-	private int blockNum;
+	// Size of the file header
+	private final int fileHeaderSize;
+
+	// Length of the raw (encrypted) file, -1 if unknown
+	private final long rawLength;
+
+	// Number of the next block to be read from the underlying stream
+	private long blockNum;
+
+	// Number of blocks read and decrypted as one batch
+	private final int batchBlocks;
+
+	// Executor for decrypting batches, null to decrypt on the calling thread
+	private final Executor executor;
+
+	// Ciphers and MAC for each task of a batch
+	private final EncFSCryptoContext[] taskContexts;
 
-	// Buffer containing decrypted data from the current block
-	private byte[] blockBuf;
+	// Batch containing the decrypted data currently consumed
+	private Batch current;
 
-	// Cursor into blockBuf denoting current stream position
+	// Batch being decrypted ahead of consumption
+	private Batch ahead;
+
+	// Spare batch to read ahead into
+	private Batch spare;
+
+	// Cursor into the current batch denoting current stream position
 	private int bufCursor;
 
+	// Set when the underlying stream has been read completely
+	private boolean endOfInput;
+
+	// Buffer for single byte reads
+	private final byte[] oneByte = new byte[1];
+
 	// File IV computed from the first 8 bytes of the file
 	private byte[] fileIv;
 
+	// File IV as a number for block IV computation
+	private long fileIvLong;
+
+	// Raw and decrypted data of a number of consecutive blocks
+	private class Batch {
+		private final byte[] cipherBuf = new byte[batchBlocks * blockSize];
+		private final byte[] blockBuf = new byte[batchBlocks
+				* Math.max(blockSize - blockHeaderSize, 0)];
+		private int cipherLen;
+		private int blockLen;
+		private CompletableFuture<Void> decrypted;
+	}
+
 	/**
 	 * Create a new EncFSInputStream for reading decrypted data off a file on an
 	 * EncFS volume
@@ -70,16 +116,53 @@ public class EncFSInputStream extends FilterInputStream {
 	public EncFSInputStream(EncFSVolume volume, InputStream in,
 			String volumePath) throws EncFSCorruptDataException,
 			EncFSUnsupportedException {
+		this(volume, in, volumePath, -1);
+	}
+
+	/**
+	 * Create a new EncFSInputStream for reading decrypted data off a file on an
+	 * EncFS volume with a known length
+	 * 
+	 * @param volume
+	 *            Volume hosting the file to read
+	 * @param in
+	 *            Input stream to access the raw (encrypted) file contents
+	 * @param volumePath
+	 *            Volume path of the file being decrypted (needed for
+	 *            externalIVChaining)
+	 * @param rawLength
+	 *            Length of the raw (encrypted) file, -1 if unknown. Only with
+	 *            a known length skip() passes whole blocks on to the
+	 *            underlying stream.
+	 */
+	public EncFSInputStream(EncFSVolume volume, InputStream in,
+			String volumePath, long rawLength)
+			throws EncFSCorruptDataException, EncFSUnsupportedException {
 		super(in);
+		this.rawLength = rawLength;
 		this.volume = volume;
+		this.context = volume.newCryptoContext();
 		this.config = volume.getConfig();
 		this.blockSize = config.getEncryptedFileBlockSizeInBytes();
 		this.numMACBytes = config.getNumberOfMACBytesForEachFileBlock();
 		int numRandBytes = config.getNumberOfRandomBytesInEachMACHeader();
 		this.blockHeaderSize = this.numMACBytes + numRandBytes;
-		this.blockBuf = null;
-		this.bufCursor = 0;
+		this.fileHeaderSize = config.isUseUniqueIV() ? EncFSFile.HEADER_SIZE
+				: 0;
 		this.blockNum = 0;
+		this.executor = volume.getBlockExecutor();
+		int parallelism = volume.getBlockParallelism();
+		this.batchBlocks = (executor == null) ? 1 : parallelism
+				* BlockTasks.BLOCKS_PER_TASK;
+		this.taskContexts = new EncFSCryptoContext[parallelism];
+		this.taskContexts[0] = context;
+		for (int i = 1; i < parallelism; i++) {
+			taskContexts[i] = volume.newCryptoContext();
+		}
+		this.current = new Batch();
+		this.spare = (executor == null) ? null : new Batch();
+		this.bufCursor = 0;
+		this.endOfInput = false;
 
 		if (config.isUseUniqueIV()) {
 			// Compute file IV
@@ -89,33 +172,42 @@ public class EncFSInputStream extends FilterInputStream {
 			} catch (IOException e) {
 				throw new EncFSCorruptDataException("Could't read file IV");
 			}
-
-			byte[] initIv;
-			if (config.isSupportedExternalIVChaining()) {
-				/*
-				 * When using external IV chaining we compute initIv based on
-				 * the file path.
-				 */
-				initIv = StreamCrypto.computeChainIv(volume, volumePath);
-			} else {
-				// When not using external IV chaining initIv is just zero's.
-				initIv = new byte[8];
-			}
-
-			try {
-				this.fileIv = StreamCrypto.streamDecrypt(volume, initIv,
-						fileHeader);
-			} catch (InvalidAlgorithmParameterException e) {
-				e.printStackTrace();
-			} catch (IllegalBlockSizeException e) {
-				throw new EncFSCorruptDataException(e);
-			} catch (BadPaddingException e) {
-				throw new EncFSCorruptDataException(e);
-			}
+			this.fileIv = decryptFileIv(volume, context, fileHeader,
+					volumePath);
 		} else {
 			// No unique IV per file, just use 0
 			this.fileIv = new byte[EncFSFile.HEADER_SIZE];
 		}
+		this.fileIvLong = EncFSUtil.convertByteArrayToLong(fileIv);
+	}
+
+	// Compute the file IV from the encrypted file header
+	static byte[] decryptFileIv(EncFSVolume volume, EncFSCryptoContext context,
+			byte[] fileHeader, String volumePath)
+			throws EncFSCorruptDataException, EncFSUnsupportedException {
+		byte[] initIv;
+		if (volume.getConfig().isSupportedExternalIVChaining()) {
+			/*
+			 * When using external IV chaining we compute initIv based on the
+			 * file path.
+			 */
+			initIv = StreamCrypto.computeChainIv(volume, volumePath);
+		} else {
+			// When not using external IV chaining initIv is just zero's.
+			initIv = new byte[8];
+		}
+
+		try {
+			return StreamCrypto.streamDecrypt(volume, context, initIv,
+					fileHeader, 0, fileHeader.length);
+		} catch (InvalidAlgorithmParameterException e) {
+			e.printStackTrace();
+			return null;
+		} catch (IllegalBlockSizeException e) {
+			throw new EncFSCorruptDataException(e);
+		} catch (BadPaddingException e) {
+			throw new EncFSCorruptDataException(e);
+		}
 	}
 
 	/*
@@ -125,7 +217,9 @@ public class EncFSInputStream extends FilterInputStream {
 	 */
 	@Override
 	public int read() throws IOException {
-		byte[] oneByte = new byte[1];
+		if (bufCursor < current.blockLen) {
+			return current.blockBuf[bufCursor++] & 0xFF;
+		}
 		int ret = this.read(oneByte, 0, 1);
 		if (ret == 1) {
 			return oneByte[0] & 0xFF;
@@ -153,32 +247,24 @@ public class EncFSInputStream extends FilterInputStream {
 		int bytesRead = 0;
 		int destOffset = offset;
 		int bytesToCopy;
-		int ret;
 
 		while (bytesRead < size) {
 
 			// Read more data if the data buffer is out
-			if ((blockBuf == null) || (bufCursor == (blockBuf.length))) {
-				try {
-					ret = readBlock();
-				} catch (EncFSCorruptDataException e) {
-					throw new IOException(e);
-				} catch (EncFSUnsupportedException e) {
-					throw new IOException(e);
-				}
-
-				if (ret < 0) {
+			if (bufCursor == current.blockLen) {
+				if (!nextBatch()) {
 					if (bytesRead == 0) {
 						return -1;
 					} else {
 						return bytesRead;
 					}
 				}
+				continue;
 			}
 
-			bytesToCopy = Math.min(blockBuf.length - bufCursor, size
+			bytesToCopy = Math.min(current.blockLen - bufCursor, size
 					- bytesRead);
-			System.arraycopy(blockBuf, bufCursor, output, destOffset,
+			System.arraycopy(current.blockBuf, bufCursor, output, destOffset,
 					bytesToCopy);
 
 			bufCursor += bytesToCopy;
@@ -198,35 +284,88 @@ public class EncFSInputStream extends FilterInputStream {
 	public long skip(long n) throws IOException {
 		long bytesSkipped = 0;
 		int toSkip;
-		int bytesRead;
-
-		byte[] skipBuf = new byte[config.getEncryptedFileBlockSizeInBytes()];
 
 		if (n < 0) {
 			throw new IOException("Negative skip count");
 		}
 
-		long quickSkip = (n / this.blockSize - Math.min(n % this.blockSize, 1)) * this.blockSize;
-		if (quickSkip > 0) {
-			bytesSkipped += this.in.skip(quickSkip);
-			blockNum += bytesSkipped / this.blockSize;
-        }
+		// Skip whole blocks without decrypting them if nothing is buffered
+		int payloadSize = blockSize - blockHeaderSize;
+		if ((bufCursor == current.blockLen) && (ahead == null)
+				&& !endOfInput && (payloadSize > 0)) {
+			// Leave the last block to the regular reading to detect EOF
+			long quickBlocks = n / payloadSize - 1;
+			if (rawLength >= 0) {
+				// Never pass the end of the file known to the caller
+				long rawPosition = fileHeaderSize + blockNum * blockSize;
+				quickBlocks = Math.min(quickBlocks, (rawLength - rawPosition)
+						/ blockSize);
+			}
+			if (quickBlocks > 0) {
+				long rawSkipped = skipRaw(quickBlocks * blockSize);
+				long skippedBlocks = rawSkipped / blockSize;
+				blockNum += skippedBlocks;
+				bytesSkipped += skippedBlocks * payloadSize;
+				if (rawSkipped % blockSize != 0) {
+					// Hit the partial last block - it has been skipped, too
+					bytesSkipped += Math.max(rawSkipped % blockSize
+							- blockHeaderSize, 0);
+					endOfInput = true;
+					return bytesSkipped;
+				}
+			}
+		}
 
 		while (bytesSkipped < n) {
-			toSkip = (int) Math.min(n - bytesSkipped,
-					config.getEncryptedFileBlockSizeInBytes());
-			bytesRead = this.read(skipBuf, 0, toSkip);
-			bytesSkipped += bytesRead;
-			if (bytesRead == -1) {
-				return -1; // Already at EOF
-			} else if (bytesRead < toSkip) {
-				return bytesSkipped; // Hit EOF now
+			if (bufCursor == current.blockLen) {
+				if (!nextBatch()) {
+					// Already at EOF
+					return (bytesSkipped == 0) ? -1 : bytesSkipped;
+				}
+				continue;
 			}
+			toSkip = (int) Math.min(n - bytesSkipped, current.blockLen
+					- bufCursor);
+			bufCursor += toSkip;
+			bytesSkipped += toSkip;
 		}
 
 		return bytesSkipped;
 	}
 
+	/*
+	 * Skip the given number of bytes of the underlying stream and return the
+	 * number of bytes actually skipped. Streams like FileInputStream skip
+	 * beyond their end without notice, so the underlying stream only skips
+	 * when the length of the file is known, and the last byte is always read
+	 * to confirm the position.
+	 */
+	private long skipRaw(long count) throws IOException {
+		long skipped = 0;
+		if (rawLength >= 0) {
+			long lastSkipped;
+			while (skipped < count - 1) {
+				lastSkipped = in.skip(count - 1 - skipped);
+				if (lastSkipped <= 0) {
+					break;
+				}
+				skipped += lastSkipped;
+			}
+		}
+		// Nothing is buffered, so the current batch serves as scratch space
+		byte[] discard = current.cipherBuf;
+		int bytesRead;
+		while (skipped < count) {
+			bytesRead = in.read(discard, 0,
+					(int) Math.min(discard.length, count - skipped));
+			if (bytesRead < 0) {
+				break;
+			}
+			skipped += bytesRead;
+		}
+		return skipped;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -238,94 +377,154 @@ public class EncFSInputStream extends FilterInputStream {
 		return false;
 	}
 
-	// Return the block IV for the current block
-	private byte[] getBlockIV() {
-		long fileIvLong = EncFSUtil.convertByteArrayToLong(fileIv);
-		return EncFSUtil.convertLongToByteArrayBigEndian(blockNum ^ fileIvLong);
+	/*
+	 * Make the next batch of decrypted data the current one. Returns false if
+	 * the end of the stream has been reached.
+	 */
+	private boolean nextBatch() throws IOException {
+		Batch batch = ahead;
+		if (batch == null) {
+			batch = current;
+			if (!startBatch(batch)) {
+				return false;
+			}
+		}
+		BlockTasks.await(batch.decrypted);
+		if (batch != current) {
+			spare = current;
+			current = batch;
+		}
+		ahead = null;
+		bufCursor = 0;
+
+		// Read ahead while the current batch is consumed
+		if ((executor != null) && !endOfInput && startBatch(spare)) {
+			ahead = spare;
+			spare = null;
+		}
+		return true;
 	}
 
 	/*
-	 * Read one block (blockSize bytes) of data from the underlying
-	 * FileInputStream, decrypt it and store it in blockBuf for consumption via
-	 * read() methods
+	 * Read the next batch of blocks from the underlying stream and start its
+	 * decryption. Returns false if there is no more data.
 	 */
-	private int readBlock() throws IOException, EncFSCorruptDataException,
-			EncFSUnsupportedException {
-		byte[] cipherBuf = new byte[blockSize];
-		boolean zeroBlock = false;
-
+	private boolean startBatch(final Batch batch) throws IOException {
+		if (endOfInput) {
+			return false;
+		}
+		int capacity = batch.cipherBuf.length;
 		int bytesRead = 0;
 		int lastBytesRead;
 
-		// Read until we read a whole block or we reach the end of the input
-		while (bytesRead < blockSize) {
-			lastBytesRead = in
-					.read(cipherBuf, bytesRead, blockSize - bytesRead);
+		// Read until the batch is full or we reach the end of the input
+		while (bytesRead < capacity) {
+			lastBytesRead = in.read(batch.cipherBuf, bytesRead, capacity
+					- bytesRead);
 			if (lastBytesRead > 0) {
 				bytesRead += lastBytesRead;
 			} else if (lastBytesRead < 0) {
-				/*
-				 * If we read some bytes return that, if not then we're at the
-				 * end of the stream
-				 */
-				if (bytesRead == 0) {
-					bytesRead = -1;
-				}
+				endOfInput = true;
 				break;
 			}
 		}
+		if (bytesRead == 0) {
+			return false;
+		}
+
+		final int blocks = (bytesRead + blockSize - 1) / blockSize;
+		final long firstBlockNum = blockNum;
+		blockNum += blocks;
+		batch.cipherLen = bytesRead;
+
+		// Only full batches are worth the hand over to other threads
+		batch.decrypted = BlockTasks.run((blocks == batchBlocks) ? executor
+				: null, taskContexts.length, blocks, new BlockTasks.Operation() {
+			@Override
+			public void process(int task, int fromBlock, int toBlock)
+					throws Exception {
+				for (int i = fromBlock; i < toBlock; i++) {
+					decryptBlock(taskContexts[task], firstBlockNum + i, batch,
+							i);
+				}
+			}
+		});
+		batch.blockLen = bytesRead - blocks * blockHeaderSize;
+		return true;
+	}
+
+	/*
+	 * Decrypt one block of the batch using the given context and store its
+	 * data without the block header in the batch's data buffer
+	 */
+	private void decryptBlock(EncFSCryptoContext taskContext, long block,
+			Batch batch, int index) throws EncFSCorruptDataException {
+		int cipherOffset = index * blockSize;
+		decryptBlock(volume, taskContext, block ^ fileIvLong, batch.cipherBuf,
+				cipherOffset, Math.min(blockSize, batch.cipherLen
+						- cipherOffset), batch.blockBuf, index
+						* (blockSize - blockHeaderSize));
+	}
 
-		if (bytesRead == blockSize) { // block decode
+	/*
+	 * Decrypt one raw block of a file and store its data without the block
+	 * header in the output buffer. Returns the number of data bytes.
+	 */
+	static int decryptBlock(EncFSVolume volume, EncFSCryptoContext context,
+			long blockIv, byte[] cipherBuf, int cipherOffset, int cipherLen,
+			byte[] output, int outputOffset) throws EncFSCorruptDataException {
+		EncFSConfig config = volume.getConfig();
+		int blockSize = config.getEncryptedFileBlockSizeInBytes();
+		int numMACBytes = config.getNumberOfMACBytesForEachFileBlock();
+		int blockHeaderSize = numMACBytes
+				+ config.getNumberOfRandomBytesInEachMACHeader();
+		if (cipherLen < blockHeaderSize) {
+			throw new EncFSCorruptDataException("Block too short");
+		}
+
+		if (cipherLen == blockSize) { // block decode
 			/*
 			 * If file holes are allowed then we need to test whether the whole
 			 * block is made up of 0's. If not (which is going to be the case
 			 * for MAC header by default), we will do block decryption.
 			 */
 			if (config.isHolesAllowedInFiles()) {
-				zeroBlock = true;
-				for (byte aCipherBuf : cipherBuf)
-					if (aCipherBuf != 0) {
+				boolean zeroBlock = true;
+				for (int i = cipherOffset; i < cipherOffset + blockSize; i++) {
+					if (cipherBuf[i] != 0) {
 						zeroBlock = false;
 						break;
 					}
-			}
-
-			try {
+				}
 				if (zeroBlock) {
-					blockBuf = cipherBuf;
-				} else {
-					blockBuf = BlockCrypto.blockDecrypt(volume, getBlockIV(),
-							cipherBuf);
+					Arrays.fill(output, outputOffset, outputOffset + blockSize
+							- blockHeaderSize, (byte) 0);
+					return blockSize - blockHeaderSize;
 				}
-			} catch (InvalidAlgorithmParameterException e) {
-				e.printStackTrace();
-			} catch (IllegalBlockSizeException e) {
-				throw new EncFSCorruptDataException(e);
-			} catch (BadPaddingException e) {
-				throw new EncFSCorruptDataException(e);
 			}
+		}
 
-			bufCursor = blockHeaderSize;
-			blockNum++;
-		} else if (bytesRead > 0) { // stream decode
-			try {
-				blockBuf = StreamCrypto.streamDecrypt(volume, getBlockIV(),
-						cipherBuf, 0, bytesRead);
-			} catch (InvalidAlgorithmParameterException e) {
-				e.printStackTrace();
-			} catch (IllegalBlockSizeException e) {
-				throw new EncFSCorruptDataException(e);
-			} catch (BadPaddingException e) {
-				throw new EncFSCorruptDataException(e);
+		byte[] blockBuf = context.getBlockBuffer(blockSize);
+		try {
+			if (cipherLen == blockSize) {
+				BlockCrypto.blockDecrypt(volume, context, blockIv, cipherBuf,
+						cipherOffset, cipherLen, blockBuf, 0);
+			} else { // stream decode
+				StreamCrypto.streamDecrypt(volume, context, blockIv,
+						cipherBuf, cipherOffset, cipherLen, blockBuf, 0);
 			}
-			bufCursor = blockHeaderSize;
-			blockNum++;
+		} catch (InvalidAlgorithmParameterException e) {
+			throw new EncFSCorruptDataException(e);
+		} catch (IllegalBlockSizeException e) {
+			throw new EncFSCorruptDataException(e);
+		} catch (BadPaddingException e) {
+			throw new EncFSCorruptDataException(e);
 		}
 
 		// Verify the block header
-		if ((bytesRead > 0) && (blockHeaderSize > 0) && (!zeroBlock)) {
-			byte mac[] = EncFSCrypto.mac64(volume.getMAC(), blockBuf,
-					numMACBytes);
+		if (blockHeaderSize > 0) {
+			byte mac[] = EncFSCrypto.mac64(context, blockBuf, numMACBytes,
+					cipherLen - numMACBytes);
 			for (int i = 0; i < numMACBytes; i++) {
 				if (mac[7 - i] != blockBuf[i]) {
 					throw new EncFSCorruptDataException("Block MAC mismatch");
@@ -333,6 +532,8 @@ public class EncFSInputStream extends FilterInputStream {
 			}
 		}
 
-		return bytesRead;
+		System.arraycopy(blockBuf, blockHeaderSize, output, outputOffset,
+				cipherLen - blockHeaderSize);
+		return cipherLen - blockHeaderSize;
 	}
 }
@@ -17,6 +17,8 @@ package org.mrpdaemon.sec.encfs;
 
 import java.io.*;
 import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -288,6 +290,19 @@ public class EncFSLocalFileProvider implements EncFSFileProvider {
 		return new FileInputStream(srcF);
 	}
 
+	/**
+	 * Open a read only channel with random access to the given file
+	 * 
+	 * @param srcFilePath
+	 *            Path to the source file
+	 * @return SeekableByteChannel to read from the file
+	 */
+	public SeekableByteChannel openReadChannel(String srcFilePath)
+			throws IOException {
+		File srcF = new File(rootPath.getAbsoluteFile(), srcFilePath);
+		return Files.newByteChannel(srcF.toPath());
+	}
+
 	/**
 	 * Open an OutputStream to the given file
 	 * 
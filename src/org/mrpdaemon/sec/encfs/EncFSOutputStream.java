@@ -24,6 +24,8 @@ import java.io.OutputStream;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.SecureRandom;
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * FilterOutputStream extension that allows encrypted data to be written to a
@@ -37,21 +39,30 @@ public class EncFSOutputStream extends FilterOutputStream {
 	// Underlying volume
 	private final EncFSVolume volume;
 
+	// Ciphers and MAC used exclusively by this stream
+	private final EncFSCryptoContext context;
+
 	// Volume configuration
 	private final EncFSConfig config;
 
 	// IV used for this file
 	private byte[] fileIv;
 
+	// File IV as a number for block IV computation
+	private long fileIvLong;
+
 	// Buffer to hold file header contents (uniqueIV)
 	private byte[] fileHeader;
 
-	// Buffer to hold the currently cached data contents to be written
-	private final byte dataBuf[];
+	// Size of the blocks of this file
+	private final int blockSize;
 
-	// Count of the cached data bytes about to be written
+	// Count of the cached data bytes of the current block about to be written
 	private int dataBytes;
 
+	// Index of the current block in the batch being filled
+	private int batchBlock;
+
 	// Size of the block header for this file
 	private int blockHeaderSize;
 
@@ -61,8 +72,35 @@ public class EncFSOutputStream extends FilterOutputStream {
 	// Number of MAC bytes per block header
 	private int blockMACLen;
 
-	// Index of the current block to be written
-	private int curBlockIndex;
+	// Index of the next block to be encrypted
+	private long curBlockIndex;
+
+	// Number of blocks encrypted and written as one batch
+	private final int batchBlocks;
+
+	// Executor for encrypting batches, null to encrypt on the calling thread
+	private final Executor executor;
+
+	// Ciphers and MAC for each task of a batch
+	private final EncFSCryptoContext[] taskContexts;
+
+	// Batch being filled with data to be written
+	private Batch filling;
+
+	// Batch being encrypted behind the writer
+	private Batch writing;
+
+	// Spare batch to continue filling while the first batch is encrypted
+	private Batch spare;
+
+	// Plain and encrypted data of a number of consecutive blocks
+	private class Batch {
+		private final byte[] dataBuf = new byte[batchBlocks * blockSize];
+		private final byte[] encBuf = new byte[batchBlocks * blockSize];
+		private int dataLen;
+		private long firstBlock;
+		private CompletableFuture<Void> encrypted;
+	}
 
 	/**
 	 * Create a new EncFSOutputStream for writing encrypted data to a file on an
@@ -86,8 +124,9 @@ public class EncFSOutputStream extends FilterOutputStream {
 			EncFSCorruptDataException {
 		super(out);
 		this.volume = volume;
+		this.context = volume.newCryptoContext();
 		this.config = volume.getConfig();
-		int blockSize = config.getEncryptedFileBlockSizeInBytes();
+		this.blockSize = config.getEncryptedFileBlockSizeInBytes();
 		this.blockHeaderSize = config.getNumberOfMACBytesForEachFileBlock()
 				+ config.getNumberOfRandomBytesInEachMACHeader();
 		this.dataBytes = this.blockHeaderSize;
@@ -113,8 +152,9 @@ public class EncFSOutputStream extends FilterOutputStream {
 			}
 
 			try {
-				this.fileIv = StreamCrypto.streamDecrypt(volume, initIv,
-						Arrays.copyOf(fileHeader, fileHeader.length));
+				this.fileIv = StreamCrypto.streamDecrypt(volume, context,
+						initIv, Arrays.copyOf(fileHeader, fileHeader.length), 0,
+						fileHeader.length);
 			} catch (InvalidAlgorithmParameterException e) {
 				e.printStackTrace();
 			} catch (IllegalBlockSizeException e) {
@@ -127,58 +167,68 @@ public class EncFSOutputStream extends FilterOutputStream {
 			this.fileIv = new byte[8];
 		}
 
-		Cipher blockCipher = BlockCrypto.newBlockCipher();
 		try {
-			EncFSCrypto.cipherInit(volume, Cipher.ENCRYPT_MODE, blockCipher,
-					fileIv);
+			EncFSCrypto.cipherInit(volume.getKey(), context.getMac(),
+					Cipher.ENCRYPT_MODE, context.getBlockCipher(),
+					volume.getIV(), fileIv);
 		} catch (InvalidAlgorithmParameterException e) {
 			throw new EncFSCorruptDataException(e);
 		}
-		Cipher streamCipher = StreamCrypto.newStreamCipher();
 		try {
-			EncFSCrypto.cipherInit(volume, Cipher.ENCRYPT_MODE, streamCipher,
-					fileIv);
+			EncFSCrypto.cipherInit(volume.getKey(), context.getMac(),
+					Cipher.ENCRYPT_MODE, context.getStreamCipher(),
+					volume.getIV(), fileIv);
 		} catch (InvalidAlgorithmParameterException e) {
 			throw new EncFSCorruptDataException(e);
 		}
 
-		// blockSize = blockHeaderSize + blockDataLen
-		dataBuf = new byte[blockSize];
-	}
-
-	// Flush the internal buffer
-	private void writeBuffer(boolean isFinal) throws IOException {
+		fileIvLong = EncFSUtil.convertByteArrayToLong(fileIv);
 
-		if (!isFinal && dataBytes != dataBuf.length) {
-			throw new IllegalStateException("Buffer not full");
+		this.executor = volume.getBlockExecutor();
+		int parallelism = volume.getBlockParallelism();
+		this.batchBlocks = (executor == null) ? 1 : parallelism
+				* BlockTasks.BLOCKS_PER_TASK;
+		this.taskContexts = new EncFSCryptoContext[parallelism];
+		this.taskContexts[0] = context;
+		for (int i = 1; i < parallelism; i++) {
+			taskContexts[i] = volume.newCryptoContext();
 		}
+		this.filling = new Batch();
+		this.spare = (executor == null) ? null : new Batch();
+	}
 
-		if (curBlockIndex == 0 && config.isUseUniqueIV()) {
-			out.write(this.fileHeader);
-		}
+	/*
+	 * Encrypt one block of the batch using the given context. The block header
+	 * is filled in before encryption.
+	 */
+	private void encryptBlock(EncFSCryptoContext taskContext, long block,
+			Batch batch, int index) throws IOException {
+		int offset = index * blockSize;
+		int len = Math.min(blockSize, batch.dataLen - offset);
 
 		// Fill in the block header
 		if (blockHeaderSize > 0) {
 
 			// Add random bytes to the buffer
 			if (blockMACRandLen > 0) {
-				byte randomBytes[] = new byte[blockMACRandLen];
+				byte randomBytes[] = taskContext
+						.getBlockBuffer(blockMACRandLen);
 				secureRandom.nextBytes(randomBytes);
-				System.arraycopy(randomBytes, 0, dataBuf, blockMACLen,
-						blockMACRandLen);
+				System.arraycopy(randomBytes, 0, batch.dataBuf, offset
+						+ blockMACLen, blockMACRandLen);
 			}
 
 			// Compute MAC bytes and add them to the buffer
-			byte mac[] = EncFSCrypto.mac64(volume.getMAC(), dataBuf,
-					blockMACLen, dataBytes - blockMACLen);
+			byte mac[] = EncFSCrypto.mac64(taskContext, batch.dataBuf, offset
+					+ blockMACLen, len - blockMACLen);
 			for (int i = 0; i < blockMACLen; i++) {
-				dataBuf[i] = mac[7 - i];
+				batch.dataBuf[offset + i] = mac[7 - i];
 			}
 		}
 
-		byte[] encBuffer;
+		long blockIv = block ^ fileIvLong;
 		try {
-			if (dataBytes == dataBuf.length) {
+			if (len == blockSize) {
 				/*
 				 * If allowHoles is configured, we scan the buffer to determine
 				 * whether we should pass this block through as a zero block.
@@ -188,8 +238,8 @@ public class EncFSOutputStream extends FilterOutputStream {
 				boolean zeroBlock = false;
 				if (config.isHolesAllowedInFiles()) {
 					zeroBlock = true;
-					for (byte aDataBuf : dataBuf) {
-						if (aDataBuf != 0) {
+					for (int i = offset; i < offset + len; i++) {
+						if (batch.dataBuf[i] != 0) {
 							zeroBlock = false;
 							break;
 						}
@@ -197,14 +247,15 @@ public class EncFSOutputStream extends FilterOutputStream {
 				}
 
 				if (zeroBlock) {
-					encBuffer = dataBuf;
+					System.arraycopy(batch.dataBuf, offset, batch.encBuf,
+							offset, len);
 				} else {
-					encBuffer = BlockCrypto.blockEncrypt(volume,
-							getBlockIV(), dataBuf);
+					BlockCrypto.blockEncrypt(volume, taskContext, blockIv,
+							batch.dataBuf, offset, len, batch.encBuf, offset);
 				}
 			} else {
-				encBuffer = StreamCrypto.streamEncrypt(volume,
-						getBlockIV(), dataBuf, 0, dataBytes);
+				StreamCrypto.streamEncrypt(volume, taskContext, blockIv,
+						batch.dataBuf, offset, len, batch.encBuf, offset);
 			}
 		} catch (IllegalBlockSizeException e) {
 			throw new IOException(e);
@@ -212,25 +263,67 @@ public class EncFSOutputStream extends FilterOutputStream {
 			throw new IOException(e);
 		} catch (InvalidAlgorithmParameterException e) {
 			throw new IOException(e);
-		} catch (EncFSUnsupportedException e) {
-			throw new IOException(e);
 		}
+	}
 
-		out.write(encBuffer);
+	/*
+	 * Start encryption of the given number of blocks of the batch being
+	 * filled. All blocks but the last one are full.
+	 */
+	private void submitBatch(int blocks, int dataLen) throws IOException {
+		// Batches are written in the order they were filled and the task
+		// contexts can only be used by one batch at a time
+		Batch previous = writing;
+		writing = null;
+		if (previous != null) {
+			writeBatch(previous);
+		}
+
+		final Batch batch = filling;
+		batch.dataLen = dataLen;
+		batch.firstBlock = curBlockIndex;
+		curBlockIndex += blocks;
+
+		// Only full batches are worth the hand over to other threads
+		batch.encrypted = BlockTasks.run((blocks == batchBlocks) ? executor
+				: null, taskContexts.length, blocks, new BlockTasks.Operation() {
+			@Override
+			public void process(int task, int fromBlock, int toBlock)
+					throws Exception {
+				for (int i = fromBlock; i < toBlock; i++) {
+					encryptBlock(taskContexts[task], batch.firstBlock + i,
+							batch, i);
+				}
+			}
+		});
+
+		if (executor == null) {
+			writeBatch(batch);
+		} else {
+			writing = batch;
+			filling = (previous != null) ? previous : spare;
+			spare = null;
+		}
+		batchBlock = 0;
 		dataBytes = blockHeaderSize;
-		curBlockIndex++;
 	}
 
-	// Return the block IV for the current block
-	private byte[] getBlockIV() {
-		long fileIvLong = EncFSUtil.convertByteArrayToLong(fileIv);
-		return EncFSUtil.convertLongToByteArrayBigEndian(curBlockIndex
-				^ fileIvLong);
+	// Wait for the encryption of the batch and write it out
+	private void writeBatch(Batch batch) throws IOException {
+		BlockTasks.await(batch.encrypted);
+		if (batch.firstBlock == 0 && config.isUseUniqueIV()) {
+			out.write(this.fileHeader);
+		}
+		out.write(batch.encBuf, 0, batch.dataLen);
 	}
 
-	// Flush the internal buffer
-	private void writeBuffer() throws IOException {
-		writeBuffer(false);
+	// Continue with the next block when the current one is full
+	private void nextBlock() throws IOException {
+		batchBlock++;
+		dataBytes = blockHeaderSize;
+		if (batchBlock == batchBlocks) {
+			submitBatch(batchBlocks, batchBlocks * blockSize);
+		}
 	}
 
 	/*
@@ -240,10 +333,10 @@ public class EncFSOutputStream extends FilterOutputStream {
 	 */
 	@Override
 	public synchronized void write(int b) throws IOException {
-		dataBuf[dataBytes++] = (byte) b;
+		filling.dataBuf[batchBlock * blockSize + dataBytes++] = (byte) b;
 
-		if (dataBytes == dataBuf.length) {
-			writeBuffer();
+		if (dataBytes == blockSize) {
+			nextBlock();
 		}
 	}
 
@@ -255,23 +348,18 @@ public class EncFSOutputStream extends FilterOutputStream {
 	@Override
 	public synchronized void write(byte b[], int off, int len)
 			throws IOException {
-		if (dataBytes + len <= dataBuf.length) {
-			System.arraycopy(b, off, dataBuf, dataBytes, len);
-			dataBytes += len;
-
-			if (dataBytes == dataBuf.length) {
-				writeBuffer();
-			}
-		} else {
-			int tmpOff = off;
-			int remaining = len;
-			while (remaining > 0) {
-				int chunk = Math.min(remaining, dataBuf.length - dataBytes);
-
-				write(b, tmpOff, chunk);
-
-				remaining -= chunk;
-				tmpOff += chunk;
+		int tmpOff = off;
+		int remaining = len;
+		while (remaining > 0) {
+			int chunk = Math.min(remaining, blockSize - dataBytes);
+			System.arraycopy(b, tmpOff, filling.dataBuf, batchBlock
+					* blockSize + dataBytes, chunk);
+			dataBytes += chunk;
+			remaining -= chunk;
+			tmpOff += chunk;
+
+			if (dataBytes == blockSize) {
+				nextBlock();
 			}
 		}
 	}
@@ -283,7 +371,13 @@ public class EncFSOutputStream extends FilterOutputStream {
 	 */
 	@Override
 	public void close() throws IOException {
-		writeBuffer(true);
+		// The final block is always written - even if it only has a header
+		submitBatch(batchBlock + 1, batchBlock * blockSize + dataBytes);
+		if (writing != null) {
+			Batch last = writing;
+			writing = null;
+			writeBatch(last);
+		}
 		super.close();
 	}
 }
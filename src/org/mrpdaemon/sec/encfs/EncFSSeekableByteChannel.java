@@ -0,0 +1,277 @@
+/*
+ * EncFS Java Library
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ */
+
+package org.mrpdaemon.sec.encfs;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Read only SeekableByteChannel allowing random access to the decrypted data
+ * of a file on an EncFS volume.
+ * 
+ * Since the IV of each block only depends on the file IV and the block number,
+ * positioning within the file just moves to the respective block of the
+ * underlying channel. Only the block containing the current position is read
+ * and decrypted.
+ */
+public class EncFSSeekableByteChannel implements SeekableByteChannel {
+
+	// Volume that underlying file belongs to
+	private final EncFSVolume volume;
+
+	// Ciphers and MAC used exclusively by this channel
+	private final EncFSCryptoContext context;
+
+	// Channel to access the raw (encrypted) file contents
+	private final SeekableByteChannel channel;
+
+	// Volume path of the file being decrypted
+	private final String volumePath;
+
+	// Cached block size for this volume
+	private final int blockSize;
+
+	// Size of the data part of each block
+	private final int payloadSize;
+
+	// Size of the file header
+	private final int fileHeaderSize;
+
+	// Raw data of the current block
+	private final ByteBuffer cipherBuf;
+
+	// Decrypted data of the current block
+	private final byte[] blockBuf;
+
+	// Number of the block in blockBuf, -1 if none
+	private long bufBlockNum;
+
+	// Number of valid bytes in blockBuf
+	private int bufLen;
+
+	// File IV as a number for block IV computation, null until it is needed
+	private Long fileIvLong;
+
+	// Position within the decrypted data
+	private long position;
+
+	/**
+	 * Create a new EncFSSeekableByteChannel for reading decrypted data off a
+	 * file on an EncFS volume
+	 * 
+	 * @param volume
+	 *            Volume hosting the file to read
+	 * @param channel
+	 *            Channel to access the raw (encrypted) file contents
+	 * @param volumePath
+	 *            Volume path of the file being decrypted (needed for
+	 *            externalIVChaining)
+	 */
+	public EncFSSeekableByteChannel(EncFSVolume volume,
+			SeekableByteChannel channel, String volumePath)
+			throws EncFSUnsupportedException {
+		this.volume = volume;
+		this.context = volume.newCryptoContext();
+		this.channel = channel;
+		this.volumePath = volumePath;
+		EncFSConfig config = volume.getConfig();
+		this.blockSize = config.getEncryptedFileBlockSizeInBytes();
+		this.payloadSize = blockSize
+				- config.getNumberOfMACBytesForEachFileBlock()
+				- config.getNumberOfRandomBytesInEachMACHeader();
+		this.fileHeaderSize = config.isUseUniqueIV() ? EncFSFile.HEADER_SIZE
+				: 0;
+		this.cipherBuf = ByteBuffer.allocate(blockSize);
+		this.blockBuf = new byte[blockSize];
+		this.bufBlockNum = -1;
+		this.position = 0;
+	}
+
+	// Read from the underlying channel until the buffer is full or EOF
+	private void readFully(long rawPosition, ByteBuffer buffer)
+			throws IOException {
+		channel.position(rawPosition);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				break;
+			}
+		}
+	}
+
+	// Compute the file IV from the file header on first use
+	private long getFileIv() throws IOException {
+		if (fileIvLong == null) {
+			byte[] fileIv = new byte[EncFSFile.HEADER_SIZE];
+			if (fileHeaderSize > 0) {
+				ByteBuffer fileHeader = ByteBuffer.allocate(fileHeaderSize);
+				readFully(0, fileHeader);
+				if (fileHeader.hasRemaining()) {
+					throw new EOFException("Could't read file IV");
+				}
+				try {
+					fileIv = EncFSInputStream.decryptFileIv(volume, context,
+							fileHeader.array(), volumePath);
+				} catch (EncFSException e) {
+					throw new IOException(e);
+				}
+			}
+			fileIvLong = EncFSUtil.convertByteArrayToLong(fileIv);
+		}
+		return fileIvLong;
+	}
+
+	// Read and decrypt the given block into blockBuf
+	private void loadBlock(long block) throws IOException {
+		cipherBuf.clear();
+		readFully(fileHeaderSize + block * blockSize, cipherBuf);
+		bufBlockNum = -1;
+		bufLen = 0;
+		try {
+			if (cipherBuf.position() > 0) {
+				bufLen = EncFSInputStream.decryptBlock(volume, context, block
+						^ getFileIv(), cipherBuf.array(), 0,
+						cipherBuf.position(), blockBuf, 0);
+			}
+		} catch (EncFSCorruptDataException e) {
+			throw new IOException(e);
+		}
+		bufBlockNum = block;
+	}
+
+	private void ensureOpen() throws ClosedChannelException {
+		if (!channel.isOpen()) {
+			throw new ClosedChannelException();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.nio.channels.SeekableByteChannel#read(java.nio.ByteBuffer)
+	 */
+	@Override
+	public int read(ByteBuffer dst) throws IOException {
+		ensureOpen();
+		int bytesRead = 0;
+		while (dst.hasRemaining()) {
+			long block = position / payloadSize;
+			int blockOffset = (int) (position % payloadSize);
+			if (block != bufBlockNum) {
+				loadBlock(block);
+			}
+			if (blockOffset >= bufLen) {
+				break;
+			}
+			int bytesToCopy = Math.min(bufLen - blockOffset, dst.remaining());
+			dst.put(blockBuf, blockOffset, bytesToCopy);
+			position += bytesToCopy;
+			bytesRead += bytesToCopy;
+			if (bufLen < payloadSize) {
+				// Last block of the file
+				break;
+			}
+		}
+		return ((bytesRead == 0) && dst.hasRemaining()) ? -1 : bytesRead;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.nio.channels.SeekableByteChannel#write(java.nio.ByteBuffer)
+	 */
+	@Override
+	public int write(ByteBuffer src) throws IOException {
+		throw new NonWritableChannelException();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.nio.channels.SeekableByteChannel#position()
+	 */
+	@Override
+	public long position() throws IOException {
+		ensureOpen();
+		return position;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.nio.channels.SeekableByteChannel#position(long)
+	 */
+	@Override
+	public SeekableByteChannel position(long newPosition) throws IOException {
+		ensureOpen();
+		if (newPosition < 0) {
+			throw new IllegalArgumentException("Negative position");
+		}
+		position = newPosition;
+		return this;
+	}
+
+	/*
+	 * Size of the decrypted data derived from the size of the underlying
+	 * channel
+	 * 
+	 * @see java.nio.channels.SeekableByteChannel#size()
+	 */
+	@Override
+	public long size() throws IOException {
+		ensureOpen();
+		long dataSize = channel.size() - fileHeaderSize;
+		if (dataSize <= 0) {
+			return 0;
+		}
+		long lastBlockSize = dataSize % blockSize;
+		return (dataSize / blockSize) * payloadSize
+				+ Math.max(lastBlockSize - (blockSize - payloadSize), 0);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.nio.channels.SeekableByteChannel#truncate(long)
+	 */
+	@Override
+	public SeekableByteChannel truncate(long size) throws IOException {
+		throw new NonWritableChannelException();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.nio.channels.Channel#isOpen()
+	 */
+	@Override
+	public boolean isOpen() {
+		return channel.isOpen();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.nio.channels.Channel#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
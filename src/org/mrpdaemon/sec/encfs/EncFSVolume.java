@@ -20,9 +20,12 @@ import javax.crypto.Mac;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.security.InvalidKeyException;
 import java.security.Key;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * Class representing an EncFS volume.
@@ -43,6 +46,8 @@ public class EncFSVolume {
 	public final static String PATH_SEPARATOR = "/";
 	/** Length in bytes of the volume initialization vector (IV) */
 	public final static int IV_LENGTH_IN_BYTES = 16;
+	/** Maximum number of encoded directory paths cached per volume */
+	public final static int ENCODED_PATH_CACHE_SIZE = 4096;
 
 	private static enum PathOperation {
 		MOVE, COPY
@@ -53,11 +58,21 @@ public class EncFSVolume {
 	private Key volumeKey;
 	private byte[] volumeIV;
 	private byte[] derivedKeyData;
-	private Mac volumeMAC;
-	private Cipher streamCipher;
-	private Cipher blockCipher;
+	private ThreadLocal<EncFSCryptoContext> cryptoContext;
 	private EncFSFile rootDir;
 	private EncFSFileProvider fileProvider;
+	private Executor blockExecutor;
+	private int blockParallelism = 1;
+	private final Map<String, String> encodedPaths = Collections
+			.synchronizedMap(new LinkedHashMap<String, String>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(
+						Map.Entry<String, String> eldest) {
+					return size() > ENCODED_PATH_CACHE_SIZE;
+				}
+			});
 
 	public EncFSVolume() {
 	}
@@ -82,9 +97,16 @@ public class EncFSVolume {
 				.copyOfRange(keyData, 0, keyLength));
 
 		volumeIV = copyIVdata(keyData, keyLength);
-		volumeMAC = createVolumeMAC();
-		streamCipher = StreamCrypto.newStreamCipher();
-		blockCipher = BlockCrypto.newBlockCipher();
+		cryptoContext = ThreadLocal.withInitial(() -> {
+			try {
+				return newCryptoContext();
+			} catch (EncFSUnsupportedException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		// Create the context of the initializing thread to report errors here
+		cryptoContext.set(newCryptoContext());
+		encodedPaths.clear();
 
 		rootDir = getFile(ROOT_PATH);
 	}
@@ -99,14 +121,9 @@ public class EncFSVolume {
 		return Arrays.copyOfRange(keyData, keyLength, keyLength + ivLength);
 	}
 
-	// Create the volume MAC
-	private Mac createVolumeMAC() throws EncFSUnsupportedException,
-			EncFSInvalidConfigException {
-		try {
-			return EncFSCrypto.newMac(volumeKey);
-		} catch (InvalidKeyException e) {
-			throw new EncFSInvalidConfigException(e);
-		}
+	// Create a new set of ciphers and MAC for exclusive use by one stream
+	EncFSCryptoContext newCryptoContext() throws EncFSUnsupportedException {
+		return new EncFSCryptoContext(this);
 	}
 
 	/**
@@ -238,29 +255,35 @@ public class EncFSVolume {
 
 	/**
 	 * Returns the MAC object used for checksum verification
+	 * <p/>
+	 * The instance is bound to the calling thread.
 	 * 
 	 * @return Volume MAC for checksum verification
 	 */
 	public Mac getMAC() {
-		return volumeMAC;
+		return cryptoContext.get().getMac();
 	}
 
 	/**
 	 * Returns the stream cipher instance for stream encryption/decryption
+	 * <p/>
+	 * The instance is bound to the calling thread.
 	 * 
 	 * @return Stream cipher instance for stream encryption/decryption
 	 */
 	public Cipher getStreamCipher() {
-		return streamCipher;
+		return cryptoContext.get().getStreamCipher();
 	}
 
 	/**
 	 * Returns the block cipher instance for block encryption/decryption
+	 * <p/>
+	 * The instance is bound to the calling thread.
 	 * 
 	 * @return Block cipher instance for block encryption/decryption
 	 */
 	public Cipher getBlockCipher() {
-		return blockCipher;
+		return cryptoContext.get().getBlockCipher();
 	}
 
 	/**
@@ -281,6 +304,44 @@ public class EncFSVolume {
 		return fileProvider;
 	}
 
+	/**
+	 * Process the blocks of file contents in parallel
+	 * <p/>
+	 * Streams opened afterwards read ahead and write behind batches of blocks
+	 * and split each batch into the given number of tasks for the executor.
+	 * The order of the stream data is preserved. Files smaller than a batch
+	 * are processed on the calling thread.
+	 * 
+	 * @param executor
+	 *            Executor to run the block tasks on, null to process all
+	 *            blocks on the calling thread
+	 * @param parallelism
+	 *            Number of tasks each batch of blocks is split into
+	 */
+	public void setBlockExecutor(Executor executor, int parallelism) {
+		this.blockExecutor = (parallelism > 1) ? executor : null;
+		this.blockParallelism = (blockExecutor == null) ? 1 : parallelism;
+	}
+
+	// Executor for parallel block processing, null for the calling thread
+	Executor getBlockExecutor() {
+		return blockExecutor;
+	}
+
+	// Number of tasks a batch of blocks is split into
+	int getBlockParallelism() {
+		return blockParallelism;
+	}
+
+	/*
+	 * Encoded forms of absolute volume directory paths, least recently used
+	 * entries are dropped first. Since the encoding of a path only depends on
+	 * the path itself, entries never become stale.
+	 */
+	Map<String, String> getEncodedPaths() {
+		return encodedPaths;
+	}
+
 	/**
 	 * Get an EncFSFile object representing the provided absolute path in the
 	 * volume
@@ -927,6 +988,16 @@ public class EncFSVolume {
 		return getFile(filePath).openInputStream();
 	}
 
+	/**
+	 * Opens the specified file as an EncFSSeekableByteChannel that allows
+	 * random access to the decrypted file contents
+	 */
+	public EncFSSeekableByteChannel openChannelForPath(String filePath)
+			throws EncFSCorruptDataException, EncFSUnsupportedException,
+			IOException {
+		return getFile(filePath).openChannel();
+	}
+
 	/**
 	 * Opens the specified file as an EncFSOutputStream that encrypts the file
 	 * contents automatically
@@ -18,6 +18,7 @@ import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.Key;
 import java.util.Arrays;
@@ -85,6 +86,43 @@ public class StreamCrypto {
 				volume.getKey(), volume.getIV(), ivSeed, data, offset, len);
 	}
 
+	// Stream decryption implementation using the given context
+	static byte[] streamDecrypt(EncFSVolume volume, EncFSCryptoContext context,
+			byte[] ivSeed, byte[] data, int offset, int len)
+			throws EncFSUnsupportedException,
+			InvalidAlgorithmParameterException, IllegalBlockSizeException,
+			BadPaddingException {
+		return streamDecrypt(context.getStreamCipher(), context.getMac(),
+				volume.getKey(), volume.getIV(), ivSeed, data, offset, len);
+	}
+
+	// Stream decryption into the given output buffer
+	static void streamDecrypt(EncFSVolume volume, EncFSCryptoContext context,
+			long ivSeed, byte[] data, int offset, int len, byte[] output,
+			int outputOffset) throws InvalidAlgorithmParameterException,
+			IllegalBlockSizeException, BadPaddingException {
+		Cipher cipher = context.getStreamCipher();
+		byte[] buffer = context.getBuffer(len);
+		try {
+			// First round uses IV seed + 1 for IV generation
+			EncFSCrypto.cipherInit(volume.getKey(), context,
+					Cipher.DECRYPT_MODE, cipher, volume.getIV(), ivSeed + 1);
+			cipher.doFinal(data, offset, len, buffer, 0);
+
+			EncFSCrypto.unshuffleBytes(buffer, 0, len);
+			EncFSCrypto.flipBytes(buffer, output, outputOffset, len);
+
+			// Second round of decryption with IV seed itself
+			EncFSCrypto.cipherInit(volume.getKey(), context,
+					Cipher.DECRYPT_MODE, cipher, volume.getIV(), ivSeed);
+			cipher.doFinal(output, outputOffset, len, output, outputOffset);
+		} catch (ShortBufferException e) {
+			throw new IllegalArgumentException(e);
+		}
+
+		EncFSCrypto.unshuffleBytes(output, outputOffset, len);
+	}
+
 	// Stream encryption implementation
 	private static byte[] streamEncrypt(Cipher cipher, Mac mac, Key key,
 			byte[] iv, byte[] ivSeed, byte[] data, int offset, int len)
@@ -138,6 +176,32 @@ public class StreamCrypto {
 				volume.getKey(), volume.getIV(), ivSeed, data, offset, len);
 	}
 
+	// Stream encryption into the given output buffer
+	static void streamEncrypt(EncFSVolume volume, EncFSCryptoContext context,
+			long ivSeed, byte[] data, int offset, int len, byte[] output,
+			int outputOffset) throws InvalidAlgorithmParameterException,
+			IllegalBlockSizeException, BadPaddingException {
+		Cipher cipher = context.getStreamCipher();
+		byte[] buffer = context.getBuffer(len);
+		System.arraycopy(data, offset, buffer, 0, len);
+		EncFSCrypto.shuffleBytes(buffer, 0, len);
+		try {
+			EncFSCrypto.cipherInit(volume.getKey(), context,
+					Cipher.ENCRYPT_MODE, cipher, volume.getIV(), ivSeed);
+			cipher.doFinal(buffer, 0, len, buffer, 0);
+
+			EncFSCrypto.flipBytes(buffer, output, outputOffset, len);
+			EncFSCrypto.shuffleBytes(output, outputOffset, len);
+
+			// Second round of encryption with IV seed + 1 for IV generation
+			EncFSCrypto.cipherInit(volume.getKey(), context,
+					Cipher.ENCRYPT_MODE, cipher, volume.getIV(), ivSeed + 1);
+			cipher.doFinal(output, outputOffset, len, output, outputOffset);
+		} catch (ShortBufferException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+
 	/**
 	 * Compute chain IV for the given volume path
 	 * 
@@ -94,9 +94,10 @@ public class BinTree extends InWindow {
 
         _matchMaxLen = matchMaxLen;
 
-        int cyclicBufferSize = historySize+1;
-        if (_cyclicBufferSize!=cyclicBufferSize) {
-            _son = new int[(_cyclicBufferSize = cyclicBufferSize)*2];
+        // arrays allocated for a larger history are kept for reuse
+        _cyclicBufferSize = historySize+1;
+        if (_son==null||_son.length<_cyclicBufferSize*2) {
+            _son = new int[_cyclicBufferSize*2];
         }
 
         int hs = kBT2HashSize;
@@ -116,8 +117,9 @@ public class BinTree extends InWindow {
             hs++;
             hs += kFixHashSize;
         }
-        if (hs!=_hashSizeSum) {
-            _hash = new int[_hashSizeSum = hs];
+        _hashSizeSum = hs;
+        if (_hash==null||_hash.length<hs) {
+            _hash = new int[hs];
         }
         return true;
     }
@@ -82,10 +82,10 @@ public class InWindow {
     public void Create(int keepSizeBefore, int keepSizeAfter, int keepSizeReserv) {
         _keepSizeBefore = keepSizeBefore;
         _keepSizeAfter = keepSizeAfter;
-        int blockSize = keepSizeBefore+keepSizeAfter+keepSizeReserv;
-        if (_bufferBase==null||_blockSize!=blockSize) {
+        _blockSize = keepSizeBefore+keepSizeAfter+keepSizeReserv;
+        // a buffer allocated for a larger window is kept for reuse
+        if (_bufferBase==null||_bufferBase.length<_blockSize) {
             Free();
-            _blockSize = blockSize;
             _bufferBase = new byte[_blockSize];
         }
         _pointerToLastSafePosition = _blockSize-keepSizeAfter;
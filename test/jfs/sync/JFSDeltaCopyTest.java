@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * Rebuild files in place with the delta copy and check which parts had to be written.
+ *
+ */
+public class JFSDeltaCopyTest {
+
+    private static final int LENGTH = 3*1024*1024+321;
+
+
+    private static byte[] random(int length, long seed) {
+        byte[] data = new byte[length];
+        new Random(seed).nextBytes(data);
+        return data;
+    } // random()
+
+
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        } // for
+        byte[] result = new byte[length];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, result, offset, part.length);
+            offset += part.length;
+        } // for
+        return result;
+    } // concat()
+
+
+    private static JFSDeltaCopy update(byte[] existing, byte[] contents) throws Exception {
+        File file = File.createTempFile("delta", ".bin");
+        try {
+            Files.write(file.toPath(), existing);
+            JFSDeltaCopy delta;
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                delta = new JFSDeltaCopy(channel, 65536);
+                Assert.assertTrue(delta.copy(new ByteArrayInputStream(contents), contents.length), "Delta copy failed.");
+            } // try
+            Assert.assertEquals(Files.readAllBytes(file.toPath()), contents, "Unexpected file contents.");
+            return delta;
+        } finally {
+            file.delete();
+        } // try/finally
+    } // update()
+
+
+    @Test
+    public void testUnchanged() throws Exception {
+        byte[] data = random(LENGTH, 1);
+        JFSDeltaCopy delta = update(data, data);
+        Assert.assertEquals(delta.getBytesKept(), LENGTH, "Unexpected bytes kept.");
+        Assert.assertEquals(delta.getBytesWritten(), 0, "Unexpected bytes written.");
+    } // testUnchanged()
+
+
+    @Test
+    public void testAppend() throws Exception {
+        byte[] data = random(LENGTH, 2);
+        byte[] appended = random(100000, 3);
+        JFSDeltaCopy delta = update(data, concat(data, appended));
+        Assert.assertEquals(delta.getBytesKept(), LENGTH, "Unexpected bytes kept.");
+        Assert.assertEquals(delta.getBytesMoved(), 0, "Unexpected bytes moved.");
+        Assert.assertEquals(delta.getBytesWritten(), appended.length, "Unexpected bytes written.");
+    } // testAppend()
+
+
+    @Test
+    public void testChangeInPlace() throws Exception {
+        byte[] data = random(LENGTH, 4);
+        byte[] changed = data.clone();
+        System.arraycopy(random(5000, 5), 0, changed, LENGTH/2, 5000);
+        JFSDeltaCopy delta = update(data, changed);
+        Assert.assertEquals(delta.getBytesMoved(), 0, "Unexpected bytes moved.");
+        Assert.assertTrue(delta.getBytesWritten()<5000+3*JFSDeltaCopy.getBlockSize(LENGTH), "Too many bytes written.");
+    } // testChangeInPlace()
+
+
+    @Test
+    public void testInsertAndTruncate() throws Exception {
+        byte[] data = random(LENGTH, 6);
+        update(data, concat(random(1000, 7), Arrays.copyOf(data, LENGTH/3)));
+        JFSDeltaCopy delta = update(data, concat(Arrays.copyOfRange(data, 50000, LENGTH), random(10, 8)));
+        Assert.assertTrue(delta.getBytesMoved()>LENGTH-100000, "Moved blocks expected.");
+    } // testInsertAndTruncate()
+
+} // JFSDeltaCopyTest
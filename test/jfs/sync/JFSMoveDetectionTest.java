@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import jfs.conf.JFSConfig;
+import jfs.conf.JFSDirectoryPair;
+import jfs.conf.JFSSyncMode.SyncAction;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * Detect moved files and directories between two local directories and check the moves performed.
+ *
+ */
+public class JFSMoveDetectionTest {
+
+    private static final long MODIFIED = 1600000000000L;
+
+    private File base;
+
+    private File src;
+
+    private File tgt;
+
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        base = Files.createTempDirectory("moves").toFile();
+        src = new File(base, "src");
+        tgt = new File(base, "tgt");
+        src.mkdirs();
+        tgt.mkdirs();
+    } // setUp()
+
+
+    @AfterMethod
+    public void tearDown() {
+        delete(base);
+    } // tearDown()
+
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files!=null) {
+            for (File f : files) {
+                delete(f);
+            } // for
+        } // if
+        file.delete();
+    } // delete()
+
+
+    private static byte[] random(long seed) {
+        byte[] data = new byte[10000];
+        new Random(seed).nextBytes(data);
+        return data;
+    } // random()
+
+
+    private static void write(File dir, String path, byte[] data) throws Exception {
+        File file = new File(dir, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), data);
+        file.setLastModified(MODIFIED);
+    } // write()
+
+
+    /**
+     * Compare both directories, copy everything new from the source and delete everything missing there.
+     *
+     * @return the move statements computed
+     */
+    private List<JFSMoveStatement> computeMoves() {
+        JFSConfig config = JFSConfig.getInstance();
+        config.clean();
+        config.setDetectMoves(true);
+        config.setStoreHistory(false);
+        config.addDirectoryPair(new JFSDirectoryPair(src.getAbsolutePath(), tgt.getAbsolutePath()));
+        JFSComparison.getInstance().compare();
+        JFSTable table = JFSTable.getInstance();
+        for (int i = 0; i<table.getTableSize(); i++) {
+            JFSElement element = table.getTableElement(i);
+            if (element.getSrcFile()!=null&&element.getTgtFile()==null) {
+                element.setAction(SyncAction.COPY_SRC);
+            } else if (element.getSrcFile()==null&&element.getTgtFile()!=null) {
+                element.setAction(SyncAction.DELETE_TGT);
+            } // if
+        } // for
+        JFSSynchronization.getInstance().computeSynchronizationLists();
+        return table.getMoveStatements();
+    } // computeMoves()
+
+
+    @Test
+    public void testUniqueMatch() throws Exception {
+        byte[] data = random(1);
+        write(src, "new.bin", data);
+        write(tgt, "old.bin", data);
+        // same length and modification date but different contents
+        write(tgt, "other.bin", random(2));
+
+        List<JFSMoveStatement> moves = computeMoves();
+        Assert.assertEquals(moves.size(), 1, "Expected one move.");
+        Assert.assertEquals(moves.get(0).getFile().getName(), "old.bin", "Unexpected file to move.");
+        JFSSynchronization.getInstance().synchronize();
+        Assert.assertTrue(moves.get(0).getSuccess(), "Move failed.");
+        Assert.assertEquals(Files.readAllBytes(new File(tgt, "new.bin").toPath()), data, "Unexpected moved contents.");
+        Assert.assertFalse(new File(tgt, "old.bin").exists(), "Moved file still exists.");
+        Assert.assertFalse(new File(tgt, "other.bin").exists(), "Deleted file still exists.");
+    } // testUniqueMatch()
+
+
+    @Test
+    public void testAmbiguousMatch() throws Exception {
+        byte[] data = random(1);
+        write(src, "new.bin", data);
+        write(tgt, "a.bin", data);
+        write(tgt, "b.bin", data);
+
+        Assert.assertTrue(computeMoves().isEmpty(), "Ambiguous matches must not be moved.");
+    } // testAmbiguousMatch()
+
+
+    @Test
+    public void testDirectoryMove() throws Exception {
+        write(src, "renamed/a.bin", random(1));
+        write(src, "renamed/sub/b.bin", random(2));
+        write(tgt, "folder/a.bin", random(1));
+        write(tgt, "folder/sub/b.bin", random(2));
+
+        List<JFSMoveStatement> moves = computeMoves();
+        Assert.assertEquals(moves.size(), 1, "Expected the directory to be moved as a whole.");
+        Assert.assertEquals(moves.get(0).getCopyStatements().size(), 4, "Unexpected number of replaced copies.");
+        JFSSynchronization.getInstance().synchronize();
+        Assert.assertTrue(moves.get(0).getSuccess(), "Move failed.");
+        Assert.assertEquals(Files.readAllBytes(new File(tgt, "renamed/sub/b.bin").toPath()), random(2), "Unexpected contents.");
+        Assert.assertFalse(new File(tgt, "folder").exists(), "Moved directory still exists.");
+    } // testDirectoryMove()
+
+
+    @Test
+    public void testFailedMove() throws Exception {
+        byte[] data = random(1);
+        write(src, "new.bin", data);
+        write(tgt, "old.bin", data);
+
+        List<JFSMoveStatement> moves = computeMoves();
+        Assert.assertEquals(moves.size(), 1, "Expected one move.");
+        // the move fails since its target appears before the synchronization
+        write(tgt, "new.bin", random(2));
+        JFSSynchronization.getInstance().synchronize();
+        Assert.assertFalse(moves.get(0).getSuccess(), "Move should have failed.");
+        Assert.assertEquals(Files.readAllBytes(new File(tgt, "new.bin").toPath()), data, "File should have been copied.");
+        Assert.assertFalse(new File(tgt, "old.bin").exists(), "File should have been deleted.");
+    } // testFailedMove()
+
+} // JFSMoveDetectionTest
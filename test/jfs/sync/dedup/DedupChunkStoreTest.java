@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync.dedup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import jfs.conf.JFSConfig;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * Store contents in the deduplicating chunk store and check which chunks are reused.
+ *
+ */
+public class DedupChunkStoreTest {
+
+    private static final int LENGTH = 2*1024*1024+77;
+
+    private File root;
+
+    private DedupStorageAccess storageAccess;
+
+    private DedupChunkStore store;
+
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        root = Files.createTempDirectory("dedup").toFile();
+        JFSConfig.getInstance().setEncryptionPassPhrase("pass phrase");
+        storageAccess = new DedupStorageAccess("AES", false);
+        store = new DedupChunkStore(storageAccess, root.getPath());
+    } // setUp()
+
+
+    @AfterClass
+    public void tearDown() {
+        delete(root);
+    } // tearDown()
+
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files!=null) {
+            for (File f : files) {
+                delete(f);
+            } // for
+        } // if
+        file.delete();
+    } // delete()
+
+
+    private DedupManifest write(byte[] data) throws Exception {
+        final List<DedupManifest> result = new ArrayList<>();
+        try (DedupOutputStream os = new DedupOutputStream(store, store.getChunkerSeed(), result::add)) {
+            // odd sized writes to cross chunk boundaries
+            for (int offset = 0; offset<data.length; offset += 10007) {
+                os.write(data, offset, Math.min(10007, data.length-offset));
+            } // for
+        } // try
+        return result.get(0);
+    } // write()
+
+
+    private byte[] read(DedupManifest manifest) throws Exception {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (InputStream is = new DedupInputStream(store, manifest)) {
+            byte[] buffer = new byte[4096];
+            int count;
+            while ((count = is.read(buffer))>=0) {
+                result.write(buffer, 0, count);
+            } // while
+        } // try
+        return result.toByteArray();
+    } // read()
+
+
+    @Test
+    public void testDeduplication() throws Exception {
+        byte[] data = new byte[LENGTH];
+        new Random(7).nextBytes(data);
+        DedupManifest manifest = write(data);
+        Assert.assertEquals(manifest.getLength(), LENGTH, "Unexpected manifest length.");
+        Assert.assertEquals(read(manifest), data, "Round trip failed.");
+        int chunks = storageAccess.listChunks(root.getPath()).size();
+        Assert.assertEquals(chunks, manifest.size(), "Each chunk should be stored once.");
+        for (int i = 0; i<manifest.size()-1; i++) {
+            Assert.assertTrue(manifest.getLength(i)>=DedupOutputStream.MIN_CHUNK_SIZE, "Chunk too small.");
+            Assert.assertTrue(manifest.getLength(i)<=DedupOutputStream.MAX_CHUNK_SIZE, "Chunk too large.");
+        } // for
+
+        // the same contents again don't need any new chunks
+        long stored = store.getChunksStored();
+        Assert.assertEquals(write(data).getIds(), manifest.getIds(), "Equal contents should result in equal chunks.");
+        Assert.assertEquals(store.getChunksStored(), stored, "No chunk should have been stored again.");
+
+        // inserting data only changes the chunks around the insertion
+        byte[] shifted = new byte[LENGTH+100];
+        System.arraycopy(data, 0, shifted, 0, 1000000);
+        System.arraycopy(data, 1000000, shifted, 1000100, LENGTH-1000000);
+        DedupManifest shiftedManifest = write(shifted);
+        Assert.assertEquals(read(shiftedManifest), shifted, "Round trip of modified contents failed.");
+        Assert.assertTrue(store.getChunksStored()-stored<=2, "Too many new chunks: "+(store.getChunksStored()-stored));
+
+
+        // only the chunks of the original contents around the insertion are left over
+        int removed = store.removeUnreferenced(new HashSet<>(shiftedManifest.getIds()));
+        Assert.assertTrue((removed>0)&&(removed<=2), "Unexpected number of removed chunks: "+removed);
+        Assert.assertEquals(read(shiftedManifest), shifted, "Referenced chunks should be kept.");
+    } // testDeduplication()
+
+} // DedupChunkStoreTest
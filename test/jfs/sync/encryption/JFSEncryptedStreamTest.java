@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync.encryption;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * Decompress valid and corrupt sequences of LZMA blocks.
+ *
+ */
+public class JFSEncryptedStreamTest {
+
+    private static byte[] getHeader(int blockLength, int compressedLength) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(result);
+        output.writeInt(blockLength);
+        output.writeInt(compressedLength);
+        output.write(new byte[16]);
+        output.flush();
+        return result.toByteArray();
+    } // getHeader()
+
+
+    private static void assertIllegal(byte[] blocks, long length) {
+        try {
+            JFSEncryptedStream.decompressLzmaBlocks(new ByteArrayInputStream(blocks), length);
+            Assert.fail("Corrupt block sequence not detected.");
+        } catch (IOException ioe) {
+            // expected
+        } // try/catch
+    } // assertIllegal()
+
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        byte[] input = new byte[100000];
+        new Random(42).nextBytes(input);
+        for (int i = 0; i<input.length; i += 3) {
+            input[i] = 0;
+        } // for
+        byte[] blocks = JFSEncryptedStream.compressLzmaBlocks(input);
+        Assert.assertEquals(JFSEncryptedStream.decompressLzmaBlocks(new ByteArrayInputStream(blocks), input.length), input, "Round trip failed.");
+    } // testRoundTrip()
+
+
+    @Test
+    public void testCorruptLengths() throws IOException {
+        assertIllegal(getHeader(100, -1), 100);
+        assertIllegal(getHeader(100, Integer.MAX_VALUE), 100);
+        assertIllegal(getHeader(100, 2), 100);
+        assertIllegal(getHeader(0, 10), 100);
+        assertIllegal(getHeader(-5, 10), 100);
+        assertIllegal(getHeader(200, 10), 100);
+        assertIllegal(getHeader(Integer.MAX_VALUE, Integer.MAX_VALUE), Long.MAX_VALUE);
+        // truncated block data
+        assertIllegal(getHeader(100, 50), 100);
+    } // testCorruptLengths()
+
+} // JFSEncryptedStreamTest
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package jfs.sync.utils;
+
+import com.github.sardine.DavResource;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import jfs.conf.JFSConfig;
+import jfs.sync.util.DavTreeListing;
+import jfs.sync.util.PooledSardine;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * List a WebDAV folder from a server stalling in the middle of the first response.
+ *
+ */
+public class DavTreeListingTest {
+
+    private static final int FILES = 50;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private HttpServer server;
+
+    private String url;
+
+
+    private static byte[] getMultiStatus() {
+        StringBuilder body = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?><D:multistatus xmlns:D=\"DAV:\">");
+        body.append("<D:response><D:href>/folder/</D:href><D:propstat><D:prop>");
+        body.append("<D:resourcetype><D:collection/></D:resourcetype>");
+        body.append("</D:prop><D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>");
+        for (int i = 0; i<FILES; i++) {
+            body.append("<D:response><D:href>/folder/file").append(i).append(".txt</D:href><D:propstat><D:prop>");
+            body.append("<D:resourcetype/><D:getcontentlength>").append(i).append("</D:getcontentlength>");
+            body.append("</D:prop><D:status>HTTP/1.1 200 OK</D:status></D:propstat></D:response>");
+        } // for
+        body.append("</D:multistatus>");
+        return body.toString().getBytes(StandardCharsets.UTF_8);
+    } // getMultiStatus()
+
+
+    @BeforeClass
+    public void setUp() throws IOException {
+        JFSConfig.getInstance().setServerTimeout(500);
+        final byte[] body = getMultiStatus();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().close();
+            exchange.getResponseHeaders().set("Content-Type", "application/xml; charset=utf-8");
+            exchange.sendResponseHeaders(207, body.length);
+            OutputStream output = exchange.getResponseBody();
+            if ((requests.getAndIncrement()%2)==0) {
+                // every other response stalls after several complete resources until the client times out
+                output.write(body, 0, body.length/2);
+                output.flush();
+            } else {
+                output.write(body);
+            } // if
+            exchange.close();
+        });
+        server.start();
+        url = "http://127.0.0.1:"+server.getAddress().getPort()+"/folder/";
+    } // setUp()
+
+
+    @AfterClass
+    public void tearDown() {
+        server.stop(0);
+        JFSConfig.getInstance().clean();
+    } // tearDown()
+
+
+    private void checkListing(int depth) throws IOException {
+        requests.set(0);
+        PooledSardine sardine = new PooledSardine("user", "password", null);
+        Map<String, List<DavResource>> result = DavTreeListing.list(sardine, url, depth, Collections.emptySet(), 1);
+        Assert.assertEquals(requests.get(), 2, "Expected one retry of the stalled request.");
+        List<DavResource> listing = result.get("/folder");
+        Assert.assertNotNull(listing, "Folder not listed.");
+        Assert.assertEquals(listing.get(0).getPath(), "/folder/", "Folder itself expected first.");
+        Set<String> paths = new HashSet<>();
+        for (DavResource resource : listing) {
+            Assert.assertTrue(paths.add(resource.getPath()), "Duplicate entry "+resource.getPath()+".");
+        } // for
+        Assert.assertEquals(listing.size(), FILES+1, "Unexpected listing size.");
+    } // checkListing()
+
+
+    @Test
+    public void testDepthOneRetry() throws IOException {
+        checkListing(1);
+    } // testDepthOneRetry()
+
+
+    @Test
+    public void testDepthInfinityRetry() throws IOException {
+        checkListing(0);
+    } // testDepthInfinityRetry()
+
+} // DavTreeListingTest
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package org.mrpdaemon.sec.encfs;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * Compare random access reads through the seekable channel with the decrypted stream contents.
+ *
+ */
+public class EncFSSeekableByteChannelTest {
+
+    private static final String PASSWORD = "password";
+
+    private static final String PATH = "/channel.bin";
+
+    // several blocks and a final partial block for all block layouts used
+    private static final int LENGTH = 7777;
+
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files!=null) {
+            for (File f : files) {
+                delete(f);
+            } // for
+        } // if
+        file.delete();
+    } // delete()
+
+
+    private static int read(EncFSSeekableByteChannel channel, ByteBuffer buffer) throws Exception {
+        int total = 0;
+        int count;
+        while (buffer.hasRemaining()&&((count = channel.read(buffer))>0)) {
+            total += count;
+        } // while
+        return total;
+    } // read()
+
+
+    private void check(EncFSConfig config) throws Exception {
+        File root = Files.createTempDirectory("encfs").toFile();
+        try {
+            config.setIterationForPasswordKeyDerivationCount(1000);
+            new EncFSVolumeBuilder().withRootPath(root.getPath()).withConfig(config).withPassword(PASSWORD).writeVolumeConfig();
+            EncFSVolume volume = new EncFSVolumeBuilder().withRootPath(root.getPath()).withPassword(PASSWORD).buildVolume();
+            byte[] plain = new byte[LENGTH];
+            Random random = new Random(42);
+            random.nextBytes(plain);
+            try (OutputStream output = volume.createFile(PATH).openOutputStream(plain.length)) {
+                output.write(plain);
+            } // try
+            byte[] expected = new byte[LENGTH];
+            try (InputStream input = volume.openInputStreamForPath(PATH)) {
+                int offset = 0;
+                int count;
+                while ((offset<expected.length)&&((count = input.read(expected, offset, expected.length-offset))>0)) {
+                    offset += count;
+                } // while
+                Assert.assertEquals(offset, LENGTH, "Unexpected stream length.");
+            } // try
+            Assert.assertEquals(expected, plain, "Unexpected stream contents.");
+
+            int blockSize = config.getEncryptedFileBlockSizeInBytes();
+            try (EncFSSeekableByteChannel channel = volume.getFile(PATH).openChannel()) {
+                Assert.assertEquals(channel.size(), LENGTH, "Unexpected channel size.");
+                // random positions and lengths, mostly crossing block boundaries
+                for (int i = 0; i<200; i++) {
+                    int position = random.nextInt(LENGTH);
+                    int length = 1+random.nextInt(3*blockSize);
+                    ByteBuffer buffer = ByteBuffer.allocate(length);
+                    channel.position(position);
+                    int count = read(channel, buffer);
+                    Assert.assertEquals(count, Math.min(length, LENGTH-position), "Unexpected length read at "+position+".");
+                    Assert.assertEquals(Arrays.copyOf(buffer.array(), count), Arrays.copyOfRange(expected, position, position+count), "Unexpected data at "+position+".");
+                    Assert.assertEquals(channel.position(), position+count, "Unexpected position after read.");
+                } // for
+
+                // final partial block
+                channel.position(LENGTH-10);
+                ByteBuffer buffer = ByteBuffer.allocate(100);
+                Assert.assertEquals(read(channel, buffer), 10, "Unexpected length of final block.");
+                Assert.assertEquals(Arrays.copyOf(buffer.array(), 10), Arrays.copyOfRange(expected, LENGTH-10, LENGTH), "Unexpected final data.");
+                Assert.assertEquals(channel.read(buffer), -1, "Expected end of channel.");
+
+                // position beyond the end of the file
+                channel.position(LENGTH+3*blockSize);
+                Assert.assertEquals(channel.read(ByteBuffer.allocate(10)), -1, "Expected end of channel past EOF.");
+                Assert.assertEquals(channel.position(), LENGTH+3*blockSize, "Position past EOF must not change.");
+                Assert.assertEquals(channel.size(), LENGTH, "Size must not change.");
+
+                // back to the start after having read the last block
+                channel.position(0);
+                buffer = ByteBuffer.allocate(LENGTH);
+                Assert.assertEquals(read(channel, buffer), LENGTH, "Unexpected full length.");
+                Assert.assertEquals(buffer.array(), expected, "Unexpected full contents.");
+            } // try
+
+            try (EncFSSeekableByteChannel channel = volume.openChannelForPath(PATH)) {
+                channel.position(blockSize-1);
+                ByteBuffer buffer = ByteBuffer.allocate(2);
+                Assert.assertEquals(read(channel, buffer), 2, "Unexpected length across first block boundary.");
+                Assert.assertEquals(buffer.array(), Arrays.copyOfRange(expected, blockSize-1, blockSize+1), "Unexpected data across block boundary.");
+            } // try
+        } finally {
+            delete(root);
+        } // try/finally
+    } // check()
+
+
+    @Test
+    public void testDefaultConfig() throws Exception {
+        check(EncFSConfigFactory.createDefault());
+    } // testDefaultConfig()
+
+
+    @Test
+    public void testBlockMacHeaders() throws Exception {
+        EncFSConfig config = EncFSConfigFactory.createDefault();
+        config.setNumberOfMACBytesForEachFileBlock(8);
+        config.setNumberOfRandomBytesInEachMACHeader(8);
+        check(config);
+    } // testBlockMacHeaders()
+
+
+    @Test
+    public void testWithoutUniqueIv() throws Exception {
+        EncFSConfig config = EncFSConfigFactory.createDefault();
+        config.setUseUniqueIV(false);
+        check(config);
+    } // testWithoutUniqueIv()
+
+
+    @Test
+    public void testExternalIvChaining() throws Exception {
+        EncFSConfig config = EncFSConfigFactory.createDefault();
+        config.setSupportedExternalIVChaining(true);
+        check(config);
+    } // testExternalIvChaining()
+
+} // EncFSSeekableByteChannelTest
@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2026 Martin Goellnitz
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA, 02110-1301, USA
+ */
+package org.mrpdaemon.sec.encfs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * Byte exact round trips of in memory files through the EncFS streams for different volume configurations.
+ *
+ */
+public class EncFSStreamTest {
+
+    private static final String PASSWORD = "password";
+
+    private static final String PATH = "/stream.bin";
+
+
+    private static EncFSVolume createVolume(File root, EncFSConfig config) throws Exception {
+        config.setIterationForPasswordKeyDerivationCount(1000);
+        new EncFSVolumeBuilder().withRootPath(root.getPath()).withConfig(config).withPassword(PASSWORD).writeVolumeConfig();
+        return new EncFSVolumeBuilder().withRootPath(root.getPath()).withPassword(PASSWORD).buildVolume();
+    } // createVolume()
+
+
+    private static byte[] encrypt(EncFSVolume volume, byte[] plain, Random random) throws Exception {
+        ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+        try (OutputStream output = new EncFSOutputStream(volume, encrypted, PATH)) {
+            int offset = 0;
+            while (offset<plain.length) {
+                if (random.nextInt(4)==0) {
+                    output.write(plain[offset++]);
+                } else {
+                    int length = Math.min(1+random.nextInt(3000), plain.length-offset);
+                    output.write(plain, offset, length);
+                    offset += length;
+                } // if
+            } // while
+        } // try
+        return encrypted.toByteArray();
+    } // encrypt()
+
+
+    private static InputStream open(EncFSVolume volume, byte[] encrypted) throws Exception {
+        return new EncFSInputStream(volume, new ByteArrayInputStream(encrypted), PATH);
+    } // open()
+
+
+    private static void checkSingleBytes(EncFSVolume volume, byte[] plain, byte[] encrypted) throws Exception {
+        try (InputStream input = open(volume, encrypted)) {
+            for (int i = 0; i<plain.length; i++) {
+                Assert.assertEquals(input.read(), plain[i]&0xff, "Unexpected byte at "+i+".");
+            } // for
+            Assert.assertEquals(input.read(), -1, "Expected end of stream.");
+        } // try
+    } // checkSingleBytes()
+
+
+    private static void checkUnalignedReads(EncFSVolume volume, byte[] plain, byte[] encrypted, Random random) throws Exception {
+        byte[] buffer = new byte[plain.length+7];
+        try (InputStream input = open(volume, encrypted)) {
+            int offset = 0;
+            while (offset<plain.length) {
+                // keep the buffer contents in front of the target offset to detect writes out of range
+                int length = 1+random.nextInt(3000);
+                int count = input.read(buffer, 3+offset, Math.min(length, buffer.length-3-offset));
+                Assert.assertTrue(count>0, "Unexpected end of stream at "+offset+".");
+                offset += count;
+            } // while
+            Assert.assertEquals(input.read(buffer, 0, 4), -1, "Expected end of stream.");
+        } // try
+        Assert.assertEquals(Arrays.copyOfRange(buffer, 3, 3+plain.length), plain, "Unexpected data.");
+        Assert.assertEquals(Arrays.copyOfRange(buffer, 0, 3), new byte[3], "Unexpected data in front of the reads.");
+    } // checkUnalignedReads()
+
+
+    private static void checkSkip(EncFSVolume volume, byte[] plain, byte[] encrypted, int blockSize, Random random) throws Exception {
+        try (InputStream input = open(volume, encrypted)) {
+            int position = 0;
+            while (position<plain.length) {
+                long skipped = input.skip(1+random.nextInt(3*blockSize));
+                Assert.assertTrue(skipped>0, "Nothing skipped at "+position+".");
+                position += skipped;
+                Assert.assertTrue(position<=plain.length, "Skipped past the end of the stream.");
+                if (position<plain.length) {
+                    Assert.assertEquals(input.read(), plain[position]&0xff, "Unexpected byte after skip to "+position+".");
+                    position++;
+                } // if
+            } // while
+            // like the original implementation skip() signals the end of the stream with -1
+            Assert.assertEquals(input.skip(10), -1, "Expected end of stream on skip.");
+            Assert.assertEquals(input.read(), -1, "Expected end of stream.");
+        } // try
+    } // checkSkip()
+
+
+    private void check(EncFSConfig config) throws Exception {
+        File root = Files.createTempDirectory("encfs").toFile();
+        try {
+            EncFSVolume volume = createVolume(root, config);
+            int blockSize = config.getEncryptedFileBlockSizeInBytes();
+            int payloadSize = blockSize-config.getNumberOfMACBytesForEachFileBlock()-config.getNumberOfRandomBytesInEachMACHeader();
+            Random random = new Random(42);
+            // empty, single byte, exact blocks and a final partial block
+            for (int length : new int[]{0, 1, 3*payloadSize, 7777}) {
+                byte[] plain = new byte[length];
+                random.nextBytes(plain);
+                byte[] encrypted = encrypt(volume, plain, random);
+                checkSingleBytes(volume, plain, encrypted);
+                checkUnalignedReads(volume, plain, encrypted, random);
+                checkSkip(volume, plain, encrypted, blockSize, random);
+            } // for
+        } finally {
+            for (File file : root.listFiles()) {
+                file.delete();
+            } // for
+            root.delete();
+        } // try/finally
+    } // check()
+
+
+    private static void checkSkipBeyondEnd(EncFSVolume volume, File rawFile, byte[] plain) throws Exception {
+        int length = plain.length;
+        for (boolean knownLength : new boolean[]{true, false}) {
+            String mode = knownLength ? "known length" : "unknown length";
+            InputStream input = knownLength ? volume.openInputStreamForPath(PATH) : new EncFSInputStream(volume, new FileInputStream(rawFile), PATH);
+            try {
+                Assert.assertEquals(input.skip(length+5000), length, "Unexpected count skipping past the end with "+mode+".");
+                Assert.assertEquals(input.read(), -1, "Expected end of stream after skip with "+mode+".");
+            } finally {
+                input.close();
+            } // try/finally
+            input = knownLength ? volume.openInputStreamForPath(PATH) : new EncFSInputStream(volume, new FileInputStream(rawFile), PATH);
+            try {
+                Assert.assertEquals(input.skip(length/2), length/2, "Unexpected count skipping half with "+mode+".");
+                Assert.assertEquals(input.read(), plain[length/2]&0xff, "Unexpected byte in the middle with "+mode+".");
+                Assert.assertEquals(input.skip(5*length), length-length/2-1, "Unexpected count skipping the rest with "+mode+".");
+                Assert.assertEquals(input.read(), -1, "Expected end of stream after the rest with "+mode+".");
+            } finally {
+                input.close();
+            } // try/finally
+        } // for
+    } // checkSkipBeyondEnd()
+
+
+    /**
+     * Files on disk - unlike in memory streams - may be skipped beyond their end without notice.
+     */
+    @Test
+    public void testSkipOnDisk() throws Exception {
+        File root = Files.createTempDirectory("encfs").toFile();
+        try {
+            EncFSConfig config = EncFSConfigFactory.createDefault();
+            config.setNumberOfMACBytesForEachFileBlock(8);
+            config.setNumberOfRandomBytesInEachMACHeader(8);
+            EncFSVolume volume = createVolume(root, config);
+            byte[] plain = new byte[1000000];
+            new Random(42).nextBytes(plain);
+            try (OutputStream output = volume.createFile(PATH).openOutputStream(plain.length)) {
+                output.write(plain);
+            } // try
+            File rawFile = new File(root, volume.getFile(PATH).getEncryptedPath());
+            checkSkipBeyondEnd(volume, rawFile, plain);
+            // exact multiple of the block payload
+            try (OutputStream output = volume.getFile(PATH).openOutputStream(1008*100)) {
+                output.write(plain, 0, 1008*100);
+            } // try
+            checkSkipBeyondEnd(volume, rawFile, Arrays.copyOf(plain, 1008*100));
+        } finally {
+            for (File file : root.listFiles()) {
+                file.delete();
+            } // for
+            root.delete();
+        } // try/finally
+    } // testSkipOnDisk()
+
+
+    @Test
+    public void testDefaultConfig() throws Exception {
+        check(EncFSConfigFactory.createDefault());
+    } // testDefaultConfig()
+
+
+    @Test
+    public void testBlockMacHeaders() throws Exception {
+        EncFSConfig config = EncFSConfigFactory.createDefault();
+        config.setNumberOfMACBytesForEachFileBlock(8);
+        config.setNumberOfRandomBytesInEachMACHeader(8);
+        check(config);
+    } // testBlockMacHeaders()
+
+
+    @Test
+    public void testWithoutUniqueIv() throws Exception {
+        EncFSConfig config = EncFSConfigFactory.createDefault();
+        config.setUseUniqueIV(false);
+        check(config);
+    } // testWithoutUniqueIv()
+
+
+    @Test
+    public void testExternalIvChaining() throws Exception {
+        EncFSConfig config = EncFSConfigFactory.createDefault();
+        config.setSupportedExternalIVChaining(true);
+        check(config);
+    } // testExternalIvChaining()
+
+} // EncFSStreamTest